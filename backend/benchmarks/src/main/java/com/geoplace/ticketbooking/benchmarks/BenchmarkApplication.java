@@ -0,0 +1,43 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.TicketBookingApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Boots the service without a web server against its own embedded H2 database.
+ */
+final class BenchmarkApplication {
+    
+    private BenchmarkApplication() {
+    }
+    
+    /**
+     * @param overrides extra {@code key=value} properties, applied over application.properties
+     *                  and over the defaults below
+     */
+    static ConfigurableApplicationContext start(String... overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.h2.console.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.geoplace.ticketbooking", "WARN");
+        properties.put("ticketbooking.booking.optimistic.max-retries", "1000");
+        for (String override : overrides) {
+            int separator = override.indexOf('=');
+            properties.put(override.substring(0, separator), override.substring(separator + 1));
+        }
+        return new SpringApplicationBuilder(TicketBookingApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .run(properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new));
+    }
+}
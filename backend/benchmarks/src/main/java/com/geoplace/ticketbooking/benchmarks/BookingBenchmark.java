@@ -0,0 +1,100 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TicketBookingService.bookTickets} under 1, 8, 64 and 512 concurrent callers,
+ * either all on one event or spread across {@value #SPREAD_EVENTS} events.
+ * Throughput mode reports ops/ms; sample mode reports p50/p99/p999 latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class BookingBenchmark {
+    
+    static final int SPREAD_EVENTS = 256;
+    
+    @State(Scope.Benchmark)
+    public static class BookingState {
+        
+        @Param({"database", "in-memory", "single-writer"})
+        String engine;
+        
+        @Param({"pessimistic"})
+        String strategy;
+        
+        @Param({"single", "spread"})
+        String contention;
+        
+        ConfigurableApplicationContext context;
+        TicketBookingService ticketBookingService;
+        Long[] eventIds;
+        String[] userIds;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BenchmarkApplication.start(
+                "ticketbooking.booking.engine=" + engine,
+                "ticketbooking.booking.strategy=" + strategy);
+            ticketBookingService = context.getBean(TicketBookingService.class);
+            
+            // Enough tickets that no trial ever sells out
+            EventRepository eventRepository = context.getBean(EventRepository.class);
+            eventIds = new Long[contention.equals("single") ? 1 : SPREAD_EVENTS];
+            for (int i = 0; i < eventIds.length; i++) {
+                Event event = new Event("Benchmark Event " + i, "JMH", Integer.MAX_VALUE);
+                event.setInventoryShards(8);
+                eventIds[i] = eventRepository.save(event).getId();
+            }
+            userIds = new String[1024];
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = "bench-user-" + i;
+            }
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+        
+        BookingResponse book() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long eventId = eventIds.length == 1 ? eventIds[0] : eventIds[random.nextInt(eventIds.length)];
+            return ticketBookingService.bookTickets(eventId, 1, userIds[random.nextInt(userIds.length)]);
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public BookingResponse book_1_caller(BookingState state) {
+        return state.book();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public BookingResponse book_8_callers(BookingState state) {
+        return state.book();
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public BookingResponse book_64_callers(BookingState state) {
+        return state.book();
+    }
+    
+    @Benchmark
+    @Threads(512)
+    public BookingResponse book_512_callers(BookingState state) {
+        return state.book();
+    }
+}
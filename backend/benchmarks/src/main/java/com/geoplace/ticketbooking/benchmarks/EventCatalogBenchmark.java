@@ -0,0 +1,63 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TicketBookingService.getAllEvents} over catalogs of 10, 10k and 1M events.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class EventCatalogBenchmark {
+    
+    private static final int INSERT_CHUNK = 10_000;
+    
+    @Param({"10", "10000", "1000000"})
+    int events;
+    
+    ConfigurableApplicationContext context;
+    TicketBookingService ticketBookingService;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        ticketBookingService = context.getBean(TicketBookingService.class);
+        seed(context.getBean(JdbcTemplate.class), events);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<EventDTO> getAllEvents() {
+        return ticketBookingService.getAllEvents();
+    }
+    
+    static void seed(JdbcTemplate jdbcTemplate, int events) {
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM events");
+        List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 0; i < events; i++) {
+            rows.add(new Object[] {"Event " + i, "Seeded catalog event " + i, 500, 500});
+            if (rows.size() == INSERT_CHUNK || i == events - 1) {
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO events (name, description, total_tickets, available_tickets, inventory_shards, version) " +
+                    "VALUES (?, ?, ?, ?, 1, 0)", rows);
+                rows.clear();
+            }
+        }
+    }
+}
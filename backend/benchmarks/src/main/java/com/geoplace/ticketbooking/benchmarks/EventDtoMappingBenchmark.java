@@ -0,0 +1,34 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.entity.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code EventDTO.fromEntity}, without the database. Add {@code -prof gc} for bytes/op.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EventDtoMappingBenchmark {
+    
+    Event event;
+    
+    @Setup
+    public void setUp() {
+        event = new Event("Cloud Native Conference", "Cloud-native technologies and best practices", 200);
+        event.setId(5L);
+        event.setAvailableTickets(137);
+        event.setVersion(63L);
+    }
+    
+    @Benchmark
+    public EventDTO fromEntity() {
+        return EventDTO.fromEntity(event);
+    }
+}
@@ -0,0 +1,127 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.dto.EventPage;
+import com.geoplace.ticketbooking.service.EventListingService;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a 1M-event catalog end to end: the unbounded list, keyset pages, and the
+ * NDJSON export. Besides the time per full pass, each iteration prints the peak heap
+ * in use while it ran, sampled every 5 ms.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class EventListingBenchmark {
+    
+    @Param({"1000000"})
+    int events;
+    
+    @Param({"500"})
+    int pageSize;
+    
+    ConfigurableApplicationContext context;
+    TicketBookingService ticketBookingService;
+    EventListingService eventListingService;
+    HeapSampler heapSampler;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        ticketBookingService = context.getBean(TicketBookingService.class);
+        eventListingService = context.getBean(EventListingService.class);
+        EventCatalogBenchmark.seed(context.getBean(JdbcTemplate.class), events);
+    }
+    
+    @Setup(Level.Iteration)
+    public void startSampling() {
+        System.gc();
+        heapSampler = new HeapSampler();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void reportPeakHeap() {
+        System.out.printf("  peak heap used: %d MB%n", heapSampler.stop() / (1024 * 1024));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public int listAll() {
+        return ticketBookingService.getAllEvents().size();
+    }
+    
+    @Benchmark
+    public int pageThroughAll(Blackhole blackhole) {
+        int seen = 0;
+        String cursor = null;
+        do {
+            EventPage page = eventListingService.getEventsPage(cursor, pageSize);
+            blackhole.consume(page);
+            seen += page.getEvents().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+    
+    @Benchmark
+    public void exportNdjson(Blackhole blackhole) throws IOException {
+        eventListingService.exportEvents(new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+            
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                blackhole.consume(bytes);
+            }
+        });
+    }
+    
+    /**
+     * Tracks the highest heap usage seen on a background thread
+     */
+    static final class HeapSampler {
+        
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long peak;
+        
+        HeapSampler() {
+            thread = Thread.ofPlatform().daemon().name("heap-sampler").start(() -> {
+                while (running) {
+                    peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+        
+        long stop() {
+            running = false;
+            thread.interrupt();
+            return peak;
+        }
+    }
+}
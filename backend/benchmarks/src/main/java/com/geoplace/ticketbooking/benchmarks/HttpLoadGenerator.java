@@ -0,0 +1,116 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load against a running service: every connection is one
+ * virtual thread that sends its next request as soon as the previous one returns.
+ * <p>
+ * Used to compare the servlet thread pool with {@code --spring.profiles.active=virtual-threads}
+ * at thousands of concurrent connections, which JMH threads cannot model.
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=com.geoplace.ticketbooking.benchmarks.HttpLoadGenerator \
+ *     -Dexec.args="http://localhost:8080/api/tickets/1 GET 10000 30"
+ * </pre>
+ */
+public final class HttpLoadGenerator {
+    
+    /** Latency buckets of 100 microseconds, up to 60 seconds. */
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 600_000;
+    
+    private HttpLoadGenerator() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: HttpLoadGenerator <url> <GET|POST> <connections> <seconds> [warmup-seconds]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        String method = args[1];
+        int connections = Integer.parseInt(args[2]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[3]));
+        Duration warmup = Duration.ofSeconds(args.length > 4 ? Long.parseLong(args[4]) : 5);
+        
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .timeout(Duration.ofSeconds(60))
+            .build();
+        
+        AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        List<LongAdder> statusCounts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            statusCounts.add(new LongAdder());
+        }
+        
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < measureUntil) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            long received = System.nanoTime();
+                            if (sent >= measureFrom && received <= measureUntil) {
+                                completed.increment();
+                                statusCounts.get(Math.min(response.statusCode() / 100, 5)).increment();
+                                histogram.incrementAndGet((int) Math.min(BUCKETS - 1, (received - sent) / BUCKET_NANOS));
+                            }
+                        } catch (Exception e) {
+                            if (sent >= measureFrom) {
+                                errors.increment();
+                            }
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(duration.plus(warmup).toSeconds() + 120, TimeUnit.SECONDS);
+        }
+        
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%s %s, %d connections, %ds measured%n", method, uri, connections, duration.toSeconds());
+        System.out.printf("throughput: %.1f req/s (%d completed, %d errors)%n",
+                          completed.sum() / seconds, completed.sum(), errors.sum());
+        System.out.printf("status: 2xx=%d 4xx=%d 5xx=%d%n",
+                          statusCounts.get(2).sum(), statusCounts.get(4).sum(), statusCounts.get(5).sum());
+        for (double percentile : new double[] {0.50, 0.99, 0.999}) {
+            System.out.printf("p%s: %.1f ms%n", percentile * 100, percentileMillis(histogram, completed.sum(), percentile));
+        }
+    }
+    
+    private static double percentileMillis(AtomicLongArray histogram, long total, double percentile) {
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < histogram.length(); bucket++) {
+            seen += histogram.get(bucket);
+            if (seen >= rank && rank > 0) {
+                return (bucket + 1) * BUCKET_NANOS / 1e6;
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,86 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking throughput under the development logging setup (DEBUG plus pretty-printed
+ * {@code show-sql}) and under the {@code prod} profile (INFO, async console appender,
+ * sampled SQL). Console output goes to a temporary file, as it would to a log
+ * collector, so the benchmark measures the cost of producing it rather than the
+ * terminal's speed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    
+    @Param({"default", "prod"})
+    String logging;
+    
+    ConfigurableApplicationContext context;
+    TicketBookingService ticketBookingService;
+    PrintStream originalOut;
+    Path consoleFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        originalOut = System.out;
+        consoleFile = Files.createTempFile("logging-benchmark", ".log");
+        System.setOut(new PrintStream(new FileOutputStream(consoleFile.toFile()), true));
+        
+        context = "prod".equals(logging)
+            ? BenchmarkApplication.start(
+                "spring.profiles.active=prod",
+                "logging.level.root=INFO",
+                "logging.level.com.geoplace.ticketbooking=INFO")
+            : BenchmarkApplication.start(
+                "spring.jpa.show-sql=true",
+                "spring.jpa.properties.hibernate.format_sql=true",
+                "logging.level.root=INFO",
+                "logging.level.com.geoplace.ticketbooking=DEBUG");
+        ticketBookingService = context.getBean(TicketBookingService.class);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        System.out.close();
+        System.setOut(originalOut);
+        System.out.println("Console output: " + Files.size(consoleFile) / 1024 + " KiB");
+        Files.delete(consoleFile);
+    }
+    
+    /**
+     * One event per caller, so row locks do not hide the logging cost
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+        Long eventId;
+        
+        @Setup(Level.Trial)
+        public void setUp(LoggingBenchmark benchmark) {
+            eventId = benchmark.context.getBean(EventRepository.class)
+                .save(new Event("Logging", "JMH", Integer.MAX_VALUE)).getId();
+        }
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Object book_8_callers(Caller caller) {
+        return ticketBookingService.bookTickets(caller.eventId, 1, "user");
+    }
+}
@@ -0,0 +1,81 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.geoplace.ticketbooking.config.ResponseJsonWriter;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.ErrorResponse;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and writing the body of an accepted and of a rejected booking: with boxed
+ * fields, an eagerly formatted message, a fresh timestamp and Jackson, as before, and
+ * with the primitive DTOs and {@link ResponseJsonWriter}. Both write into a reused
+ * buffer, as a servlet response does. Add {@code -prof gc} for bytes/op.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseSerializationBenchmark {
+    
+    ObjectMapper objectMapper;
+    ByteArrayOutputStream out;
+    long bookingId;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        out = new ByteArrayOutputStream(512);
+    }
+    
+    @Benchmark
+    public int successJackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, new BoxedBookingResponse(
+            ++bookingId, 5L, "Cloud Native Conference", 2, 137, "Booking successful"));
+        return out.size();
+    }
+    
+    @Benchmark
+    public int successWriter() throws IOException {
+        out.reset();
+        ResponseJsonWriter.write(BookingResponse.success(++bookingId, 5L, "Cloud Native Conference", 2, 137), out);
+        return out.size();
+    }
+    
+    @Benchmark
+    public int rejectionJackson() throws IOException {
+        out.reset();
+        String message = String.format("Not enough tickets available for event %d. Requested: %d, Available: %d", 5L, 3, 1);
+        objectMapper.writeValue(out, new BoxedErrorResponse(LocalDateTime.now(), "Insufficient Tickets", message));
+        return out.size();
+    }
+    
+    @Benchmark
+    public int rejectionWriter() throws IOException {
+        out.reset();
+        InsufficientTicketsException e = new InsufficientTicketsException(5L, 3, 1);
+        ResponseJsonWriter.write(new ErrorResponse("Insufficient Tickets", e.getMessage()), out);
+        return out.size();
+    }
+    
+    /** Shape of {@code BookingResponse} before its fields were primitives */
+    public record BoxedBookingResponse(Long bookingId, Long eventId, String eventName,
+                                       Integer ticketsBooked, Integer remainingTickets, String message) {
+    }
+    
+    public record BoxedErrorResponse(LocalDateTime timestamp, String message, String details) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.geoplace.ticketbooking.benchmarks;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking attempts against a sold-out event, the common case right after a sell-out,
+ * with the availability fast path on and off.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SoldOutBenchmark {
+    
+    @Param({"true", "false"})
+    String fastPath;
+    
+    @Param({"pessimistic"})
+    String strategy;
+    
+    ConfigurableApplicationContext context;
+    TicketBookingService ticketBookingService;
+    Long eventId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+            "ticketbooking.availability.fast-path=" + fastPath,
+            "ticketbooking.booking.strategy=" + strategy);
+        ticketBookingService = context.getBean(TicketBookingService.class);
+        eventId = context.getBean(EventRepository.class).save(new Event("Sold Out", "JMH", 1)).getId();
+        ticketBookingService.bookTickets(eventId, 1, "first");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public Object book_sold_out_64_callers() {
+        try {
+            return ticketBookingService.bookTickets(eventId, 1, "late");
+        } catch (InsufficientTicketsException e) {
+            return e;
+        }
+    }
+}
@@ -16,6 +16,11 @@ public class DataInitializer implements CommandLineRunner {
     
     @Override
     public void run(String... args) {
+        if (eventRepository.count() > 0) {
+            // Restored from the booking journal
+            log.info("Events already present, skipping sample data");
+            return;
+        }
         log.info("Initializing sample events...");
         
         Event event1 = new Event("Spring Boot Conference 2025", 
@@ -28,6 +33,7 @@ public class DataInitializer implements CommandLineRunner {
                                  "Learn about microservices architecture", 120);
         Event event5 = new Event("Cloud Native Conference", 
                                  "Cloud-native technologies and best practices", 200);
+        event5.setInventoryShards(8);
         
         eventRepository.save(event1);
         eventRepository.save(event2);
@@ -0,0 +1,43 @@
+package com.geoplace.ticketbooking.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the application DataSource in a {@link ConcurrencyLimitedDataSource}
+ * when {@code ticketbooking.datasource.limiter.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ticketbooking.datasource.limiter.enabled", havingValue = "true")
+@Slf4j
+public class DataSourceLimiterConfig {
+    
+    @Bean
+    static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        int maxConcurrency = environment.getProperty(
+            "ticketbooking.datasource.limiter.max-concurrency", Integer.class, 10);
+        int maxWaiters = environment.getProperty(
+            "ticketbooking.datasource.limiter.max-waiters", Integer.class, 10_000);
+        Duration acquireTimeout = environment.getProperty(
+            "ticketbooking.datasource.limiter.acquire-timeout", Duration.class, Duration.ofSeconds(5));
+        
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    log.info("Limiting DataSource {} to {} concurrent callers and {} waiters",
+                             beanName, maxConcurrency, maxWaiters);
+                    return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, maxWaiters, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.geoplace.ticketbooking.config;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.ErrorResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link BookingResponse} and {@link ErrorResponse} bodies with the
+ * {@link ResponseJsonWriter} rather than reflective Jackson serialization. As a
+ * converter bean it is placed ahead of Jackson; everything else, and every
+ * request body, still goes through Jackson.
+ */
+@Component
+public class ResponseJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    
+    public ResponseJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == BookingResponse.class || clazz == ErrorResponse.class;
+    }
+    
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Only writes " + clazz.getSimpleName(), inputMessage);
+    }
+    
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof BookingResponse booking) {
+            ResponseJsonWriter.write(booking, outputMessage.getBody());
+        } else {
+            ResponseJsonWriter.write((ErrorResponse) body, outputMessage.getBody());
+        }
+    }
+}
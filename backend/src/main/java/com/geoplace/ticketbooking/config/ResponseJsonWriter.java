@@ -0,0 +1,301 @@
+package com.geoplace.ticketbooking.config;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.ErrorResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hand-written JSON for the two bodies every booking ends with. The output is what
+ * Jackson would write for the same object. Field names and the success message are
+ * encoded once; each body is put together in a byte buffer borrowed from a small
+ * shared pool and handed to the stream in a single write, so nothing is allocated
+ * per response. The pool stands in for a thread-local buffer, which request threads
+ * that are virtual would never get to reuse.
+ */
+public final class ResponseJsonWriter {
+    
+    private static final byte[] BOOKING_ID = ascii("{\"bookingId\":");
+    private static final byte[] EVENT_ID = ascii(",\"eventId\":");
+    private static final byte[] EVENT_NAME = ascii(",\"eventName\":");
+    private static final byte[] TICKETS_BOOKED = ascii(",\"ticketsBooked\":");
+    private static final byte[] REMAINING_TICKETS = ascii(",\"remainingTickets\":");
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+    private static final byte[] SUCCESS_END = ascii(",\"message\":\"" + BookingResponse.SUCCESS_MESSAGE + "\"}");
+    private static final byte[] TIMESTAMP = ascii("{\"timestamp\":");
+    private static final byte[] DETAILS = ascii(",\"details\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] MIN_LONG = ascii(Long.toString(Long.MIN_VALUE));
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    private static final long[] POWERS_OF_TEN = new long[19];
+    
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+    
+    private static final AtomicReferenceArray<Buffer> POOL =
+        new AtomicReferenceArray<>(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4));
+    // Pool slots tried, starting from the one the thread ID picks, before giving up
+    private static final int PROBES = 4;
+    
+    private ResponseJsonWriter() {
+    }
+    
+    public static void write(BookingResponse response, OutputStream out) throws IOException {
+        Buffer buffer = borrow();
+        try {
+            buffer.put(BOOKING_ID);
+            buffer.putNumber(response.getBookingId());
+            buffer.put(EVENT_ID);
+            buffer.putNumber(response.getEventId());
+            buffer.put(EVENT_NAME);
+            buffer.putString(response.getEventName());
+            buffer.put(TICKETS_BOOKED);
+            buffer.putNumber(response.getTicketsBooked());
+            buffer.put(REMAINING_TICKETS);
+            buffer.putNumber(response.getRemainingTickets());
+            if (response.getMessage() == BookingResponse.SUCCESS_MESSAGE) {
+                buffer.put(SUCCESS_END);
+            } else {
+                buffer.put(MESSAGE);
+                buffer.putString(response.getMessage());
+                buffer.put('}');
+            }
+            buffer.writeTo(out);
+        } finally {
+            giveBack(buffer);
+        }
+    }
+    
+    public static void write(ErrorResponse response, OutputStream out) throws IOException {
+        Buffer buffer = borrow();
+        try {
+            buffer.put(TIMESTAMP);
+            buffer.putTimestamp(response.getTimestamp());
+            buffer.put(MESSAGE);
+            buffer.putString(response.getMessage());
+            buffer.put(DETAILS);
+            buffer.putString(response.getDetails());
+            buffer.put('}');
+            buffer.writeTo(out);
+        } finally {
+            giveBack(buffer);
+        }
+    }
+    
+    private static Buffer borrow() {
+        int start = (int) Thread.currentThread().threadId();
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (start + probe) & (POOL.length() - 1);
+            Buffer buffer = POOL.get(slot);
+            if (buffer != null && POOL.compareAndSet(slot, buffer, null)) {
+                return buffer.clear();
+            }
+        }
+        return new Buffer();
+    }
+    
+    /**
+     * Return a buffer to the pool; dropped when the slots tried are all taken
+     */
+    private static void giveBack(Buffer buffer) {
+        int start = (int) Thread.currentThread().threadId();
+        for (int probe = 0; probe < PROBES; probe++) {
+            if (POOL.compareAndSet((start + probe) & (POOL.length() - 1), null, buffer)) {
+                return;
+            }
+        }
+    }
+    
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private static final class Buffer {
+        
+        private static final int INITIAL_CAPACITY = 512;
+        // A buffer that once held a huge body should not stay that large in the pool
+        private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+        
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+        
+        private Buffer clear() {
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+            length = 0;
+            return this;
+        }
+        
+        private void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, length);
+        }
+        
+        private void put(byte[] segment) {
+            ensureRoom(segment.length);
+            System.arraycopy(segment, 0, bytes, length, segment.length);
+            length += segment.length;
+        }
+        
+        private void put(char c) {
+            ensureRoom(1);
+            bytes[length++] = (byte) c;
+        }
+        
+        private void putNumber(long value) {
+            if (value == Long.MIN_VALUE) {
+                put(MIN_LONG);
+                return;
+            }
+            ensureRoom(20);
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+                digits++;
+            }
+            for (int i = digits - 1; i >= 0; i--) {
+                long power = POWERS_OF_TEN[i];
+                int digit = (int) (value / power);
+                bytes[length++] = (byte) ('0' + digit);
+                value -= digit * power;
+            }
+        }
+        
+        /**
+         * Put a date-time quoted in its ISO form, as Jackson writes it: seconds always, and
+         * a fraction of only as many digits as it needs
+         */
+        private void putTimestamp(LocalDateTime timestamp) {
+            if (timestamp == null) {
+                put(NULL);
+                return;
+            }
+            int year = timestamp.getYear();
+            if (year < 0 || year > 9999) {
+                // Signed or five-digit years are left to the formatter
+                put(ascii('"' + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) + '"'));
+                return;
+            }
+            ensureRoom(31);
+            bytes[length++] = '"';
+            putDigits(year, 4);
+            bytes[length++] = '-';
+            putDigits(timestamp.getMonthValue(), 2);
+            bytes[length++] = '-';
+            putDigits(timestamp.getDayOfMonth(), 2);
+            bytes[length++] = 'T';
+            putDigits(timestamp.getHour(), 2);
+            bytes[length++] = ':';
+            putDigits(timestamp.getMinute(), 2);
+            bytes[length++] = ':';
+            putDigits(timestamp.getSecond(), 2);
+            int nano = timestamp.getNano();
+            if (nano > 0) {
+                int digits = 9;
+                while (nano % 10 == 0) {
+                    nano /= 10;
+                    digits--;
+                }
+                bytes[length++] = '.';
+                putDigits(nano, digits);
+            }
+            bytes[length++] = '"';
+        }
+        
+        /**
+         * Put {@code value} zero-padded to {@code digits}; the room must already be ensured
+         */
+        private void putDigits(int value, int digits) {
+            for (int at = length + digits - 1; at >= length; at--) {
+                bytes[at] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+        }
+        
+        /**
+         * Put a JSON string in UTF-8, escaping as Jackson does; a lone surrogate,
+         * which has no UTF-8 form, is written as a {@code \\u} escape
+         */
+        private void putString(String value) {
+            if (value == null) {
+                put(NULL);
+                return;
+            }
+            int count = value.length();
+            // At most six bytes per char, for an escape, plus the quotes
+            ensureRoom(count * 6 + 2);
+            byte[] bytes = this.bytes;
+            int at = length;
+            bytes[at++] = '"';
+            for (int i = 0; i < count; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        bytes[at++] = (byte) c;
+                        continue;
+                    }
+                    bytes[at++] = '\\';
+                    switch (c) {
+                        case '"', '\\' -> bytes[at++] = (byte) c;
+                        case '\n' -> bytes[at++] = 'n';
+                        case '\r' -> bytes[at++] = 'r';
+                        case '\t' -> bytes[at++] = 't';
+                        case '\b' -> bytes[at++] = 'b';
+                        case '\f' -> bytes[at++] = 'f';
+                        default -> at = putUnicodeEscape(c, at);
+                    }
+                } else if (c < 0x800) {
+                    bytes[at++] = (byte) (0xc0 | (c >> 6));
+                    bytes[at++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[at++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[at++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[at++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[at++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[at++] = '\\';
+                    at = putUnicodeEscape(c, at);
+                } else {
+                    bytes[at++] = (byte) (0xe0 | (c >> 12));
+                    bytes[at++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[at++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            bytes[at++] = '"';
+            length = at;
+        }
+        
+        /**
+         * @return position after {@code uXXXX}, written at {@code at} right after its backslash
+         */
+        private int putUnicodeEscape(char c, int at) {
+            bytes[at++] = 'u';
+            bytes[at++] = HEX[(c >> 12) & 0xf];
+            bytes[at++] = HEX[(c >> 8) & 0xf];
+            bytes[at++] = HEX[(c >> 4) & 0xf];
+            bytes[at++] = HEX[c & 0xf];
+            return at;
+        }
+        
+        private void ensureRoom(int needed) {
+            if (length + needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + needed));
+            }
+        }
+    }
+}
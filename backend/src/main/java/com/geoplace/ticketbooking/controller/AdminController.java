@@ -0,0 +1,28 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.service.cancellation.BookingCancellationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Operator endpoints that act on other users' bookings. Not under /api, so the frontend proxy never
+ * exposes them; they are reached on the backend port only.
+ */
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    
+    private final BookingCancellationService cancellationService;
+    
+    /**
+     * Cancel every booking of an event, e.g. when it is called off or rescheduled
+     * POST /admin/events/{id}/bookings/cancel
+     */
+    @PostMapping("/events/{id}/bookings/cancel")
+    public ResponseEntity<CancellationResponse> cancelEventBookings(@PathVariable("id") Long eventId) {
+        return ResponseEntity.ok(cancellationService.cancelEvent(eventId));
+    }
+}
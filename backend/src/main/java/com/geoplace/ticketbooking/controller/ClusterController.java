@@ -0,0 +1,97 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.dto.BookingRequest;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.CancellationRequest;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.cancellation.BookingCancellationService;
+import com.geoplace.ticketbooking.service.cluster.CatalogChangeRelay;
+import com.geoplace.ticketbooking.service.cluster.ClusterMembership;
+import com.geoplace.ticketbooking.service.cluster.ClusterRouter;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Node-to-node endpoints of a cluster. Not under /api, so the frontend proxy never exposes them.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ticketbooking.cluster.enabled", havingValue = "true")
+public class ClusterController {
+    
+    private final TicketBookingService ticketBookingService;
+    private final BookingCancellationService cancellationService;
+    private final ClusterMembership membership;
+    private final ClusterRouter router;
+    private final CatalogChangeRelay relay;
+    
+    /**
+     * Liveness probe used by the other members' heartbeats
+     * GET /internal/cluster/ping
+     */
+    @GetMapping("/ping")
+    public ResponseEntity<String> ping() {
+        return ResponseEntity.ok(membership.self());
+    }
+    
+    /**
+     * Members this node currently considers alive
+     * GET /internal/cluster/members
+     */
+    @GetMapping("/members")
+    public ResponseEntity<List<String>> members() {
+        return ResponseEntity.ok(membership.liveMembers());
+    }
+    
+    /**
+     * Book on this node a booking another member forwarded here
+     * POST /internal/cluster/bookings
+     */
+    @PostMapping("/bookings")
+    public ResponseEntity<BookingResponse> book(
+            @Valid @RequestBody BookingRequest request,
+            @RequestHeader(value = TicketBookingController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        
+        BookingResponse response = router.serveForwarded(() -> ticketBookingService.bookTickets(
+            request.getEventId(), request.getCount(), request.getUserId(), idempotencyKey));
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    /**
+     * Cancel on this node the user's bookings of events it owns, forwarded by another member
+     * POST /internal/cluster/cancellations?userId=user1
+     */
+    @PostMapping("/cancellations")
+    public ResponseEntity<CancellationResponse> cancel(@Valid @RequestBody CancellationRequest request,
+                                                       @RequestParam("userId") String userId) {
+        return ResponseEntity.ok(router.serveForwarded(() -> cancellationService.cancelAll(request.getBookingIds(), userId)));
+    }
+    
+    /**
+     * Cancel on this node every booking of an event it owns, forwarded by another member
+     * POST /internal/cluster/events/{id}/cancellations
+     */
+    @PostMapping("/events/{id}/cancellations")
+    public ResponseEntity<CancellationResponse> cancelEvent(@PathVariable("id") Long eventId) {
+        return ResponseEntity.ok(router.serveForwarded(() -> cancellationService.cancelEvent(eventId)));
+    }
+    
+    /**
+     * Take the catalog changes another member committed
+     * POST /internal/cluster/catalog-changes
+     */
+    @PostMapping("/catalog-changes")
+    public ResponseEntity<Void> catalogChanges(@RequestBody List<CatalogChange> changes) {
+        relay.receive(changes);
+        return ResponseEntity.noContent().build();
+    }
+}
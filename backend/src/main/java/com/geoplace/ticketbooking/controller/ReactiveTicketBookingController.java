@@ -0,0 +1,94 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.dto.EventPage;
+import com.geoplace.ticketbooking.service.EventListingService;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.waitingroom.WaitingRoom;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link TicketBookingController}.
+ * <p>
+ * Every handler returns a {@link Mono} or {@link Flux}, which Spring MVC serves asynchronously,
+ * so no servlet thread waits on a booking or a query. Bookings complete from the engine's own
+ * future, which with the {@code in-memory} and {@code single-writer} engines never blocks a
+ * thread at all. JPA reads and the {@code database} engine run on Reactor's bounded elastic
+ * scheduler instead of the request thread. The event list is streamed as NDJSON and read in
+ * keyset pages only as fast as the client consumes it.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@Validated
+@CrossOrigin(origins = "http://localhost:4200")
+public class ReactiveTicketBookingController {
+    
+    static final int STREAM_PAGE_SIZE = 100;
+    
+    private final TicketBookingService ticketBookingService;
+    private final EventListingService eventListingService;
+    private final WaitingRoom waitingRoom;
+    
+    /**
+     * Book tickets for an event
+     * POST /api/reactive/tickets/{id}/book?count=2
+     * Same rules as the blocking endpoint, including the waiting room and Idempotency-Key.
+     */
+    @PostMapping("/tickets/{id}/book")
+    public Mono<ResponseEntity<BookingResponse>> bookTickets(
+            @PathVariable("id") Long eventId,
+            @RequestParam("count") @Min(value = 1, message = "Count must be at least 1") Integer count,
+            @RequestParam(value = "userId", defaultValue = "anonymous") String userId,
+            @RequestHeader(value = WaitingRoom.TOKEN_HEADER, required = false) String queueToken,
+            @RequestHeader(value = TicketBookingController.IDEMPOTENCY_KEY_HEADER, required = false)
+            @Size(max = 255, message = "Idempotency key must be at most 255 characters") String idempotencyKey) {
+        
+        waitingRoom.enter(eventId, queueToken);
+        Mono<BookingResponse> booking = idempotencyKey == null
+            ? Mono.fromFuture(() -> ticketBookingService.bookTicketsAsync(eventId, count, userId))
+            : Mono.fromCallable(() -> ticketBookingService.bookTickets(eventId, count, userId, idempotencyKey));
+        // The database engine books on the subscribing thread, and a keyed retry may wait for the
+        // first attempt; neither may hold the request thread
+        return booking
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(response -> new ResponseEntity<>(response, HttpStatus.CREATED));
+    }
+    
+    /**
+     * Get event details including remaining tickets
+     * GET /api/reactive/tickets/{id}
+     */
+    @GetMapping("/tickets/{id}")
+    public Mono<EventDTO> getEvent(@PathVariable("id") Long eventId) {
+        return Mono.fromCallable(() -> ticketBookingService.getEvent(eventId))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    /**
+     * Stream every event as newline-delimited JSON, ordered by ID
+     * GET /api/reactive/events
+     * The next keyset page is only read once the client has taken the previous one.
+     */
+    @GetMapping(value = "/events", produces = "application/x-ndjson")
+    public Flux<EventDTO> getAllEvents() {
+        return page(null)
+            .expand(page -> page.getNextCursor() == null ? Mono.empty() : page(page.getNextCursor()))
+            .concatMapIterable(EventPage::getEvents, 1);
+    }
+    
+    private Mono<EventPage> page(String cursor) {
+        return Mono.fromCallable(() -> eventListingService.getEventsPage(cursor, STREAM_PAGE_SIZE))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -1,16 +1,44 @@
 package com.geoplace.ticketbooking.controller;
 
+import com.geoplace.ticketbooking.dto.BatchBookingRequest;
+import com.geoplace.ticketbooking.dto.BatchBookingResponse;
+import com.geoplace.ticketbooking.dto.BookingLine;
+import com.geoplace.ticketbooking.dto.BookingPage;
+import com.geoplace.ticketbooking.dto.BookingRequest;
 import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.BulkBookingRequest;
+import com.geoplace.ticketbooking.dto.BulkBookingResponse;
+import com.geoplace.ticketbooking.dto.CancellationRequest;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
 import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.dto.EventPage;
+import com.geoplace.ticketbooking.dto.HoldResponse;
+import com.geoplace.ticketbooking.service.BookingHistoryService;
+import com.geoplace.ticketbooking.service.EventCatalogSnapshot;
+import com.geoplace.ticketbooking.service.EventListingService;
 import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.cancellation.BookingCancellationService;
+import com.geoplace.ticketbooking.service.hold.HoldService;
+import com.geoplace.ticketbooking.service.push.AvailabilityBroadcaster;
+import com.geoplace.ticketbooking.service.waitingroom.WaitingRoom;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api")
@@ -19,22 +47,130 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 public class TicketBookingController {
     
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
     private final TicketBookingService ticketBookingService;
+    private final EventCatalogSnapshot eventCatalogSnapshot;
+    private final EventListingService eventListingService;
+    private final BookingHistoryService bookingHistoryService;
+    private final HoldService holdService;
+    private final BookingCancellationService cancellationService;
+    private final WaitingRoom waitingRoom;
+    private final AvailabilityBroadcaster availabilityBroadcaster;
     
     /**
      * Book tickets for an event
      * POST /api/tickets/{id}/book?count=2
+     * Requires an admitted X-Queue-Token while the waiting room is enabled.
+     * Retries carrying the same Idempotency-Key get the original booking back.
      */
     @PostMapping("/tickets/{id}/book")
     public ResponseEntity<BookingResponse> bookTickets(
             @PathVariable("id") Long eventId,
             @RequestParam("count") @Min(value = 1, message = "Count must be at least 1") Integer count,
-            @RequestParam(value = "userId", defaultValue = "anonymous") String userId) {
+            @RequestParam(value = "userId", defaultValue = "anonymous") String userId,
+            @RequestHeader(value = WaitingRoom.TOKEN_HEADER, required = false) String queueToken,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+            @Size(max = 255, message = "Idempotency key must be at most 255 characters") String idempotencyKey) {
+        
+        waitingRoom.enter(eventId, queueToken);
+        BookingResponse response = ticketBookingService.bookTickets(eventId, count, userId, idempotencyKey);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    /**
+     * Hold tickets while the buyer checks out
+     * POST /api/tickets/{id}/hold?count=2&ttlSeconds=300
+     * Requires an admitted X-Queue-Token while the waiting room is enabled.
+     */
+    @PostMapping("/tickets/{id}/hold")
+    public ResponseEntity<HoldResponse> holdTickets(
+            @PathVariable("id") Long eventId,
+            @RequestParam("count") @Min(value = 1, message = "Count must be at least 1") Integer count,
+            @RequestParam(value = "userId", defaultValue = "anonymous") String userId,
+            @RequestParam(value = "ttlSeconds", required = false)
+            @Min(value = 1, message = "Hold must last at least 1 second") Long ttlSeconds,
+            @RequestHeader(value = WaitingRoom.TOKEN_HEADER, required = false) String queueToken) {
+        
+        waitingRoom.enter(eventId, queueToken);
+        Duration ttl = ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds);
+        HoldResponse response = holdService.hold(eventId, count, userId, ttl);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    /**
+     * Turn a hold into a booking
+     * POST /api/holds/{holdId}/confirm?userId=user1
+     */
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<BookingResponse> confirmHold(@PathVariable("holdId") Long holdId,
+                                                       @RequestParam("userId") String userId) {
+        BookingResponse response = holdService.confirm(holdId, userId);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+    
+    /**
+     * Give held tickets back
+     * DELETE /api/holds/{holdId}?userId=user1
+     */
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable("holdId") Long holdId,
+                                            @RequestParam("userId") String userId) {
+        holdService.release(holdId, userId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Cancel one of the user's bookings and put its tickets back on sale
+     * POST /api/bookings/{bookingId}/cancel?userId=user1
+     */
+    @PostMapping("/bookings/{bookingId}/cancel")
+    public ResponseEntity<CancellationResponse> cancelBooking(@PathVariable("bookingId") Long bookingId,
+                                                              @RequestParam("userId") String userId) {
+        return ResponseEntity.ok(cancellationService.cancel(bookingId, userId));
+    }
+    
+    /**
+     * Cancel several of the user's bookings together
+     * POST /api/bookings/cancel?userId=user1
+     */
+    @PostMapping("/bookings/cancel")
+    public ResponseEntity<CancellationResponse> cancelBookings(@Valid @RequestBody CancellationRequest request,
+                                                               @RequestParam("userId") String userId) {
+        return ResponseEntity.ok(cancellationService.cancelAll(request.getBookingIds(), userId));
+    }
+    
+    /**
+     * Book tickets for several events at once; all lines succeed or none do
+     * POST /api/bookings/bulk
+     * Requires an admitted X-Queue-Token per line while the waiting room is enabled,
+     * comma-separated.
+     */
+    @PostMapping("/bookings/bulk")
+    public ResponseEntity<BulkBookingResponse> bookAll(
+            @Valid @RequestBody BulkBookingRequest request,
+            @RequestHeader(value = WaitingRoom.TOKEN_HEADER, required = false) String queueTokens) {
         
-        BookingResponse response = ticketBookingService.bookTickets(eventId, count, userId);
+        waitingRoom.enterAll(request.getLines().stream().map(BookingLine::getEventId).toList(), queueTokens);
+        BulkBookingResponse response = ticketBookingService.bookAll(request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
     
+    /**
+     * Submit many independent bookings, each with its own result
+     * POST /api/bookings/batch
+     * Requires an admitted X-Queue-Token per booking while the waiting room is enabled,
+     * comma-separated; without them the whole batch is turned away.
+     */
+    @PostMapping("/bookings/batch")
+    public ResponseEntity<BatchBookingResponse> bookBatch(
+            @Valid @RequestBody BatchBookingRequest request,
+            @RequestHeader(value = WaitingRoom.TOKEN_HEADER, required = false) String queueTokens) {
+        
+        waitingRoom.enterAll(request.getBookings().stream().map(BookingRequest::getEventId).toList(), queueTokens);
+        return ResponseEntity.ok(ticketBookingService.bookBatch(request));
+    }
+    
     /**
      * Get event details including remaining tickets
      * GET /api/tickets/{id}
@@ -46,13 +182,163 @@ public class TicketBookingController {
     }
     
     /**
-     * Get all events
+     * Get all events from the pre-serialized catalog snapshot
      * GET /api/events
+     * Answers 304 when If-None-Match carries the current ETag, and sends the
+     * pre-compressed body when the client accepts gzip.
      */
     @GetMapping("/events")
-    public ResponseEntity<List<EventDTO>> getAllEvents() {
-        List<EventDTO> events = ticketBookingService.getAllEvents();
-        return ResponseEntity.ok(events);
+    public ResponseEntity<byte[]> getAllEvents(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        
+        EventCatalogSnapshot.Snapshot snapshot = eventCatalogSnapshot.current();
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(snapshot.etag())
+                .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+    
+    /**
+     * Get one page of events, ordered by ID
+     * GET /api/events/page?size=50&cursor=...
+     */
+    @GetMapping("/events/page")
+    public ResponseEntity<EventPage> getEventsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 500, message = "Size must be at most 500") Integer size) {
+        
+        return ResponseEntity.ok(eventListingService.getEventsPage(cursor, size));
+    }
+    
+    /**
+     * Get one page of a user's bookings, newest first
+     * GET /api/users/{userId}/bookings?from=2025-01-01T00:00:00&to=...&size=50&cursor=...
+     */
+    @GetMapping("/users/{userId}/bookings")
+    public ResponseEntity<BookingPage> getUserBookings(
+            @PathVariable("userId") String userId,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 500, message = "Size must be at most 500") Integer size) {
+        
+        return ResponseEntity.ok(bookingHistoryService.getUserBookings(userId, from, to, cursor, size));
+    }
+    
+    /**
+     * Get one page of an event's bookings, newest first
+     * GET /api/events/{id}/bookings?from=2025-01-01T00:00:00&to=...&size=50&cursor=...
+     */
+    @GetMapping("/events/{id}/bookings")
+    public ResponseEntity<BookingPage> getEventBookings(
+            @PathVariable("id") Long eventId,
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 500, message = "Size must be at most 500") Integer size) {
+        
+        return ResponseEntity.ok(bookingHistoryService.getEventBookings(eventId, from, to, cursor, size));
+    }
+    
+    /**
+     * Stream every event as newline-delimited JSON
+     * GET /api/events/export
+     */
+    @GetMapping(value = "/events/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportEvents() {
+        StreamingResponseBody body = eventListingService::exportEvents;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+    
+    /**
+     * Subscribe to live availability as Server-Sent Events
+     * GET /api/events/stream
+     * Starts with a {@code snapshot} of every event, followed by coalesced
+     * {@code availability} updates of the events whose tickets moved.
+     */
+    @GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamAvailability() {
+        return ResponseEntity.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .cacheControl(CacheControl.noStore())
+            // Keeps reverse proxies such as nginx from buffering the stream
+            .header("X-Accel-Buffering", "no")
+            .body(availabilityBroadcaster.subscribe());
+    }
+    
+    /**
+     * @return whether an If-None-Match list names {@code etag}, compared weakly as RFC 9110
+     *         requires for this header, or is {@code *}
+     */
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return whether an Accept-Encoding list gives gzip, by name or through {@code *},
+     *         a non-zero quality
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
     }
 }
-
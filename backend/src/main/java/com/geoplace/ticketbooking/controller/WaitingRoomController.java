@@ -0,0 +1,46 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.dto.QueueStatusResponse;
+import com.geoplace.ticketbooking.service.waitingroom.WaitingRoom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200")
+public class WaitingRoomController {
+    
+    private final WaitingRoom waitingRoom;
+    
+    /**
+     * Join the waiting room for an event
+     * POST /api/events/{id}/queue?userId=user123
+     */
+    @PostMapping("/events/{id}/queue")
+    public ResponseEntity<QueueStatusResponse> joinQueue(
+            @PathVariable("id") Long eventId,
+            @RequestParam(value = "userId", defaultValue = "anonymous") String userId) {
+        
+        return withRetryAfter(waitingRoom.join(eventId, userId));
+    }
+    
+    /**
+     * Poll a waiting-room token for its position or admission
+     * GET /api/queue/{token}
+     */
+    @GetMapping("/queue/{token}")
+    public ResponseEntity<QueueStatusResponse> getQueueStatus(@PathVariable("token") String token) {
+        return withRetryAfter(waitingRoom.status(token));
+    }
+    
+    private static ResponseEntity<QueueStatusResponse> withRetryAfter(QueueStatusResponse status) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (status.getRetryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(status.getRetryAfterSeconds()));
+        }
+        return response.body(status);
+    }
+}
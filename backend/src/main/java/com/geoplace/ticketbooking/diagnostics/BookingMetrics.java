@@ -0,0 +1,127 @@
+package com.geoplace.ticketbooking.diagnostics;
+
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.exception.PurchaseLimitExceededException;
+import com.geoplace.ticketbooking.exception.RateLimitedException;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end booking latency ({@code booking.latency}, tagged by outcome) and
+ * booking outcomes per event ({@code booking.requests}, tagged by event and outcome).
+ * <p>
+ * Meters are created once per event and outcome, so recording a booking only bumps
+ * existing counters and histogram buckets. To keep the series count bounded, events
+ * past {@code ticketbooking.metrics.max-tagged-events} share the {@code other} tag.
+ * A deleted event's meters are removed.
+ */
+@Component
+public class BookingMetrics {
+    
+    public static final String OTHER_EVENTS = "other";
+    
+    public enum Outcome {
+        SUCCESS, INSUFFICIENT, NOT_FOUND, LIMITED, FAILED;
+        
+        private final String tag = name().toLowerCase();
+        
+        public static Outcome of(Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+            return switch (cause) {
+                case null -> SUCCESS;
+                case InsufficientTicketsException e -> INSUFFICIENT;
+                case EventNotFoundException e -> NOT_FOUND;
+                case PurchaseLimitExceededException e -> LIMITED;
+                case RateLimitedException e -> LIMITED;
+                default -> FAILED;
+            };
+        }
+    }
+    
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(50_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+    
+    private final MeterRegistry meterRegistry;
+    private final int maxTaggedEvents;
+    private final Timer[] latency = new Timer[OUTCOMES.length];
+    private final ConcurrentMap<Long, Counter[]> requestsPerEvent = new ConcurrentHashMap<>();
+    private final Counter[] otherEvents;
+    
+    public BookingMetrics(MeterRegistry meterRegistry,
+                          @Value("${ticketbooking.metrics.max-tagged-events:1000}") int maxTaggedEvents) {
+        this.meterRegistry = meterRegistry;
+        this.maxTaggedEvents = maxTaggedEvents;
+        for (Outcome outcome : OUTCOMES) {
+            latency[outcome.ordinal()] = latencyTimer(meterRegistry, "booking.latency", "outcome", outcome.tag);
+        }
+        this.otherEvents = counters(OTHER_EVENTS);
+    }
+    
+    /**
+     * A timer that also publishes a fixed set of histogram buckets between 50µs and
+     * 10s, so Prometheus can compute percentiles across instances. Recording into
+     * it does not allocate.
+     */
+    public static Timer latencyTimer(MeterRegistry meterRegistry, String name, String... tags) {
+        return Timer.builder(name)
+            .tags(tags)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN_EXPECTED)
+            .maximumExpectedValue(MAX_EXPECTED)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record a finished booking request
+     * @param startNanos {@link System#nanoTime()} when the request started
+     */
+    public void record(Long eventId, Outcome outcome, long startNanos) {
+        latency[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        requestsFor(eventId)[outcome.ordinal()].increment();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        if (change.type() == CatalogChange.Type.DELETED) {
+            Counter[] removed = requestsPerEvent.remove(change.eventId());
+            if (removed != null) {
+                for (Counter counter : removed) {
+                    meterRegistry.remove(counter);
+                }
+            }
+        }
+    }
+    
+    private Counter[] requestsFor(Long eventId) {
+        Counter[] counters = requestsPerEvent.get(eventId);
+        if (counters != null) {
+            return counters;
+        }
+        if (eventId == null || requestsPerEvent.size() >= maxTaggedEvents) {
+            return otherEvents;
+        }
+        return requestsPerEvent.computeIfAbsent(eventId, id -> counters(id.toString()));
+    }
+    
+    private Counter[] counters(String event) {
+        Counter[] counters = new Counter[OUTCOMES.length];
+        for (Outcome outcome : OUTCOMES) {
+            counters[outcome.ordinal()] = meterRegistry.counter("booking.requests", "event", event, "outcome", outcome.tag);
+        }
+        return counters;
+    }
+}
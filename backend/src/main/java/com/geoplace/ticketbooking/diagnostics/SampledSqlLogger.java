@@ -0,0 +1,46 @@
+package com.geoplace.ticketbooking.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a random sample of the SQL Hibernate prepares, on the
+ * {@code com.geoplace.ticketbooking.sql} logger, instead of every statement as
+ * {@code spring.jpa.show-sql} does. One in {@code ticketbooking.logging.sql-sampling.rate}
+ * statements is logged; the draw is thread-local, so unsampled statements cost
+ * neither a shared counter nor a formatted message.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.logging.sql-sampling.enabled", havingValue = "true")
+public class SampledSqlLogger implements StatementInspector, HibernatePropertiesCustomizer {
+    
+    private static final Logger log = LoggerFactory.getLogger("com.geoplace.ticketbooking.sql");
+    
+    private final int rate;
+    
+    public SampledSqlLogger(@Value("${ticketbooking.logging.sql-sampling.rate:1000}") int rate) {
+        this.rate = Math.max(1, rate);
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        if (log.isInfoEnabled() && ThreadLocalRandom.current().nextInt(rate) == 0) {
+            log.info("Sampled SQL (1 in {}): {}", rate, sql);
+        }
+        return sql;
+    }
+    
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+}
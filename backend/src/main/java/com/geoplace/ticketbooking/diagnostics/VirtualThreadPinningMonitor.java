@@ -0,0 +1,83 @@
+package com.geoplace.ticketbooking.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process, so a virtual
+ * thread that blocks while pinned to its carrier (typically inside a
+ * {@code synchronized} block of the JDBC driver) shows up in
+ * {@code jvm.threads.virtual.pinned} and in the log with the offending frames.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.diagnostics.pinning.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor implements DisposableBean {
+    
+    private static final int LOGGED_FRAMES = 8;
+    
+    private final RecordingStream recording;
+    private final Counter pinnedCount;
+    private final Timer pinnedTime;
+    private final long logIntervalNanos;
+    private final AtomicLong nextLogAt = new AtomicLong();
+    
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${ticketbooking.diagnostics.pinning.threshold:20ms}") Duration threshold,
+                                       @Value("${ticketbooking.diagnostics.pinning.log-interval:10s}") Duration logInterval) {
+        this.pinnedCount = meterRegistry.counter("jvm.threads.virtual.pinned");
+        this.pinnedTime = meterRegistry.timer("jvm.threads.virtual.pinned.duration");
+        this.logIntervalNanos = logInterval.toNanos();
+        
+        this.recording = new RecordingStream();
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recording.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recording.startAsync();
+        log.info("Watching for virtual threads pinned longer than {}", threshold);
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedTime.record(event.getDuration());
+        
+        // At most one stack trace per interval; the counter carries the rate
+        long now = System.nanoTime();
+        long next = nextLogAt.get();
+        if (now - next >= 0 && nextLogAt.compareAndSet(next, now + logIntervalNanos)) {
+            log.warn("Virtual thread pinned for {} ms at:\n{}", event.getDuration().toMillis(), frames(event));
+        }
+    }
+    
+    private static String frames(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return "\t<no stack trace>";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+            .limit(LOGGED_FRAMES)
+            .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")")
+            .collect(Collectors.joining("\n"));
+    }
+    
+    @Override
+    public void destroy() {
+        recording.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.geoplace.ticketbooking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Independent bookings submitted together; each one succeeds or fails on its own
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingRequest {
+    
+    @NotEmpty(message = "At least one booking is required")
+    @Size(max = 1000, message = "At most 1000 bookings per batch")
+    private List<@Valid BookingRequest> bookings;
+}
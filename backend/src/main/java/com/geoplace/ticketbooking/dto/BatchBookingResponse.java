@@ -0,0 +1,22 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingResponse {
+    
+    private List<BatchBookingResult> results;
+    private Integer succeeded;
+    private Integer failed;
+    
+    public static BatchBookingResponse of(List<BatchBookingResult> results) {
+        int succeeded = (int) results.stream().filter(result -> result.getBooking() != null).count();
+        return new BatchBookingResponse(results, succeeded, results.size() - succeeded);
+    }
+}
@@ -0,0 +1,27 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one booking in a batch, carrying the HTTP status it would have had on its own
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBookingResult {
+    
+    private Integer index;
+    private Integer status;
+    private BookingResponse booking;
+    private ErrorResponse error;
+    
+    public static BatchBookingResult success(int index, BookingResponse booking) {
+        return new BatchBookingResult(index, 201, booking, null);
+    }
+    
+    public static BatchBookingResult failure(int index, int status, String message, String details) {
+        return new BatchBookingResult(index, status, null, new ErrorResponse(message, details));
+    }
+}
@@ -0,0 +1,20 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPage {
+    
+    private List<BookingSummary> bookings;
+    
+    /**
+     * Opaque token for the next page, null on the last page
+     */
+    private String nextCursor;
+}
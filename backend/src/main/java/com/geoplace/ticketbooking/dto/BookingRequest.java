@@ -1,6 +1,7 @@
 package com.geoplace.ticketbooking.dto;
 
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,9 +11,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class BookingRequest {
     
+    @NotNull(message = "Event ID is required")
+    private Long eventId;
+    
+    @NotNull(message = "Count is required")
     @Min(value = 1, message = "Count must be at least 1")
     private Integer count;
     
     private String userId;
 }
-
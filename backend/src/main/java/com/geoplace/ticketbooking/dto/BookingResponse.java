@@ -4,27 +4,33 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Result of a booking. Counts and IDs are primitives, so building one boxes nothing.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookingResponse {
     
-    private Long bookingId;
-    private Long eventId;
+    /** Message of every successful booking; one shared instance, so writers can recognise it */
+    public static final String SUCCESS_MESSAGE = "Booking successful";
+    
+    private long bookingId;
+    private long eventId;
     private String eventName;
-    private Integer ticketsBooked;
-    private Integer remainingTickets;
+    private int ticketsBooked;
+    private int remainingTickets;
     private String message;
     
-    public static BookingResponse success(Long bookingId, Long eventId, String eventName, 
-                                         Integer ticketsBooked, Integer remainingTickets) {
+    public static BookingResponse success(long bookingId, long eventId, String eventName,
+                                          int ticketsBooked, int remainingTickets) {
         return new BookingResponse(
             bookingId,
             eventId,
             eventName,
             ticketsBooked,
             remainingTickets,
-            "Booking successful"
+            SUCCESS_MESSAGE
         );
     }
 }
@@ -0,0 +1,28 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a booking history, read as a projection rather than an entity
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSummary {
+    
+    private Long bookingId;
+    private Long eventId;
+    private String eventName;
+    private Integer ticketCount;
+    private LocalDateTime bookingTime;
+    private String userId;
+    
+    /**
+     * When the booking was cancelled, null while it stands
+     */
+    private LocalDateTime cancelledAt;
+}
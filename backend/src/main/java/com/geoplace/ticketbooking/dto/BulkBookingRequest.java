@@ -0,0 +1,25 @@
+package com.geoplace.ticketbooking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Tickets for several events that must all be booked, or none of them
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingRequest {
+    
+    @NotEmpty(message = "At least one line is required")
+    @Size(max = 50, message = "At most 50 lines per order")
+    private List<@Valid BookingLine> lines;
+    
+    private String userId;
+}
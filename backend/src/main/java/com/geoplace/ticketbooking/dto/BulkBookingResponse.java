@@ -0,0 +1,22 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBookingResponse {
+    
+    private List<BookingResponse> bookings;
+    private Integer totalTickets;
+    private String message;
+    
+    public static BulkBookingResponse success(List<BookingResponse> bookings) {
+        int totalTickets = bookings.stream().mapToInt(BookingResponse::getTicketsBooked).sum();
+        return new BulkBookingResponse(bookings, totalTickets, "Order booked");
+    }
+}
@@ -0,0 +1,23 @@
+package com.geoplace.ticketbooking.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Bookings to cancel together; unknown and already cancelled ones are skipped
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancellationRequest {
+    
+    @NotEmpty(message = "At least one booking is required")
+    @Size(max = 1000, message = "At most 1000 bookings per cancellation")
+    private List<@NotNull(message = "Booking ID is required") Long> bookingIds;
+}
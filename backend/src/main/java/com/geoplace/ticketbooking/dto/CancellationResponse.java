@@ -0,0 +1,20 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancellationResponse {
+    
+    private int cancelledBookings;
+    
+    /**
+     * Tickets put back on sale, across all events
+     */
+    private int releasedTickets;
+    
+    private int affectedEvents;
+}
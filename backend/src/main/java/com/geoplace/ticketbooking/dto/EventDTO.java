@@ -10,11 +10,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class EventDTO {
     
-    private Long id;
+    private long id;
     private String name;
     private String description;
-    private Integer totalTickets;
-    private Integer availableTickets;
+    private int totalTickets;
+    private int availableTickets;
     
     public static EventDTO fromEntity(Event event) {
         return new EventDTO(
@@ -0,0 +1,25 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldResponse {
+    
+    private Long holdId;
+    private Long eventId;
+    private Integer ticketsHeld;
+    private String userId;
+    private LocalDateTime expiresAt;
+    private String message;
+    
+    public static HoldResponse held(Long holdId, Long eventId, Integer ticketsHeld, 
+                                    String userId, LocalDateTime expiresAt) {
+        return new HoldResponse(holdId, eventId, ticketsHeld, userId, expiresAt, "Tickets held");
+    }
+}
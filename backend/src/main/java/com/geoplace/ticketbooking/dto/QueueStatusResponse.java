@@ -0,0 +1,38 @@
+package com.geoplace.ticketbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatusResponse {
+    
+    public enum Status {
+        WAITING,
+        ADMITTED,
+        SOLD_OUT
+    }
+    
+    private String token;
+    private Long eventId;
+    private Status status;
+    private Long position;
+    private Long retryAfterSeconds;
+    private LocalDateTime admittedUntil;
+    
+    public static QueueStatusResponse waiting(String token, Long eventId, long position, long retryAfterSeconds) {
+        return new QueueStatusResponse(token, eventId, Status.WAITING, position, retryAfterSeconds, null);
+    }
+    
+    public static QueueStatusResponse admitted(String token, Long eventId, LocalDateTime admittedUntil) {
+        return new QueueStatusResponse(token, eventId, Status.ADMITTED, 0L, null, admittedUntil);
+    }
+    
+    public static QueueStatusResponse soldOut(String token, Long eventId, long retryAfterSeconds) {
+        return new QueueStatusResponse(token, eventId, Status.SOLD_OUT, null, retryAfterSeconds, null);
+    }
+}
@@ -8,7 +8,16 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_bookings_user_idempotency_key", columnNames = {"userId", "idempotencyKey"}),
+    indexes = {
+        // Covers the per-user ticket sum of purchase limits without touching the table
+        @Index(name = "idx_bookings_user_event", columnList = "userId, event_id, ticketCount, cancelledAt"),
+        // Booking history pages, newest first, walked by (bookingTime, id) keyset
+        @Index(name = "idx_bookings_user_time", columnList = "userId, bookingTime, id"),
+        @Index(name = "idx_bookings_event_time", columnList = "event_id, bookingTime, id")
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,10 +40,21 @@ public class Booking {
     @Column(nullable = false)
     private String userId;
     
+    /** Client-supplied {@code Idempotency-Key}, unique per user when present. */
+    private String idempotencyKey;
+    
+    /** When the booking was cancelled and its tickets put back on sale; null while it stands. */
+    private LocalDateTime cancelledAt;
+    
     public Booking(Event event, Integer ticketCount, String userId) {
+        this(event, ticketCount, userId, null);
+    }
+    
+    public Booking(Event event, Integer ticketCount, String userId, String idempotencyKey) {
         this.event = event;
         this.ticketCount = ticketCount;
         this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
         this.bookingTime = LocalDateTime.now();
     }
 }
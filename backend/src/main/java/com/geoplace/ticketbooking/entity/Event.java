@@ -1,12 +1,20 @@
 package com.geoplace.ticketbooking.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Objects;
 
 @Entity
 @Table(name = "events")
+@EntityListeners(EventChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,9 +36,25 @@ public class Event {
     @Column(nullable = false)
     private Integer availableTickets;
     
+    /**
+     * Number of in-memory stripes the in-memory engine splits this event's inventory into
+     */
+    @Column(nullable = false)
+    private Integer inventoryShards = 1;
+    
     @Version
     private Long version;
     
+    /**
+     * The row as last read or written, to tell an edit of the event or a restock from a sale
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Snapshot persisted;
+    
     public Event(String name, String description, Integer totalTickets) {
         this.name = name;
         this.description = description;
@@ -48,5 +72,28 @@ public class Event {
         }
         this.availableTickets -= count;
     }
+    
+    /**
+     * @return whether name, description or size differ from the database row; true
+     *         for an instance that was not read through the persistence context
+     */
+    boolean metadataChanged() {
+        return persisted == null || !Objects.equals(name, persisted.name)
+            || !Objects.equals(description, persisted.description)
+            || !Objects.equals(totalTickets, persisted.totalTickets);
+    }
+    
+    /**
+     * @return whether more tickets are available than in the database row
+     */
+    boolean availabilityRaised() {
+        return persisted != null && availableTickets > persisted.availableTickets;
+    }
+    
+    void markPersisted() {
+        this.persisted = new Snapshot(name, description, totalTickets, availableTickets);
+    }
+    
+    private record Snapshot(String name, String description, Integer totalTickets, Integer availableTickets) {
+    }
 }
-
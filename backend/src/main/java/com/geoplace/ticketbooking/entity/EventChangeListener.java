@@ -0,0 +1,47 @@
+package com.geoplace.ticketbooking.entity;
+
+import com.geoplace.ticketbooking.service.CatalogChange;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Turns entity lifecycle callbacks on {@link Event} into {@link CatalogChange}s.
+ * An update that only moves availability, as every sale does, is published as
+ * {@link CatalogChange.Type#AVAILABILITY} so caches keep the event's metadata, and
+ * one that only raises it as {@link CatalogChange.Type#RESTOCKED}.
+ * Bulk JPQL/JDBC updates bypass these callbacks and publish their own change.
+ * Instantiated by Hibernate through Spring's bean container.
+ */
+@RequiredArgsConstructor
+public class EventChangeListener {
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @PostLoad
+    void loaded(Event event) {
+        event.markPersisted();
+    }
+    
+    @PostPersist
+    void created(Event event) {
+        event.markPersisted();
+        eventPublisher.publishEvent(new CatalogChange(event.getId(), CatalogChange.Type.CREATED));
+    }
+    
+    @PostUpdate
+    void updated(Event event) {
+        CatalogChange.Type type = event.metadataChanged() ? CatalogChange.Type.UPDATED
+            : event.availabilityRaised() ? CatalogChange.Type.RESTOCKED : CatalogChange.Type.AVAILABILITY;
+        event.markPersisted();
+        eventPublisher.publishEvent(new CatalogChange(event.getId(), type));
+    }
+    
+    @PostRemove
+    void removed(Event event) {
+        eventPublisher.publishEvent(new CatalogChange(event.getId(), CatalogChange.Type.DELETED));
+    }
+}
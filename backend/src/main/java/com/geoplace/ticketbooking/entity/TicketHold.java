@@ -0,0 +1,46 @@
+package com.geoplace.ticketbooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tickets taken out of an event's availability while a buyer checks out.
+ * The row lives until the hold is confirmed, released or expires.
+ */
+@Entity
+@Table(name = "ticket_holds", indexes = {
+    @Index(name = "idx_ticket_holds_expires_at", columnList = "expiresAt"),
+    @Index(name = "idx_ticket_holds_user_event", columnList = "userId, eventId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketHold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long eventId;
+    
+    @Column(nullable = false)
+    private Integer ticketCount;
+    
+    @Column(nullable = false)
+    private String userId;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+    
+    public TicketHold(Long eventId, Integer ticketCount, String userId, LocalDateTime expiresAt) {
+        this.eventId = eventId;
+        this.ticketCount = ticketCount;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+}
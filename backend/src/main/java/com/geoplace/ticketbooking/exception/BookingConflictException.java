@@ -0,0 +1,8 @@
+package com.geoplace.ticketbooking.exception;
+
+public class BookingConflictException extends RuntimeException {
+    
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
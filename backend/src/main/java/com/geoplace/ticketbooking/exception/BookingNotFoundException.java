@@ -0,0 +1,8 @@
+package com.geoplace.ticketbooking.exception;
+
+public class BookingNotFoundException extends RuntimeException {
+    
+    public BookingNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,62 @@
 package com.geoplace.ticketbooking.exception;
 
+/**
+ * An expected outcome rather than a fault: once an event sells out most booking
+ * attempts end here, so it is created without a stack trace, and its message is
+ * only put together if something asks for it.
+ */
 public class InsufficientTicketsException extends RuntimeException {
     
+    /** {@link #getAvailable()} when the remaining count is not known. */
+    public static final int UNKNOWN = -1;
+    
+    private final Long eventId;
+    private final int requested;
+    private final int available;
+    private String message;
+    
     public InsufficientTicketsException(String message) {
-        super(message);
+        this(message, UNKNOWN);
+    }
+    
+    public InsufficientTicketsException(String message, int available) {
+        super(message, null, false, false);
+        this.eventId = null;
+        this.requested = UNKNOWN;
+        this.available = available;
+        this.message = message;
+    }
+    
+    public InsufficientTicketsException(int requested, int available) {
+        this(null, requested, available);
+    }
+    
+    /**
+     * @param eventId Event the tickets were requested for, named in the message; may be null
+     */
+    public InsufficientTicketsException(Long eventId, int requested, int available) {
+        super(null, null, false, false);
+        this.eventId = eventId;
+        this.requested = requested;
+        this.available = available;
+    }
+    
+    @Override
+    public String getMessage() {
+        String built = message;
+        if (built == null) {
+            // Racing callers build equal strings; either one may be kept
+            built = "Not enough tickets available" + (eventId == null ? "" : " for event " + eventId)
+                + ". Requested: " + requested + ", Available: " + available;
+            message = built;
+        }
+        return built;
+    }
+    
+    /**
+     * Tickets left when the booking was rejected, or {@link #UNKNOWN}
+     */
+    public int getAvailable() {
+        return available;
     }
 }
-
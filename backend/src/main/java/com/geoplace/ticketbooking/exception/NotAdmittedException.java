@@ -0,0 +1,18 @@
+package com.geoplace.ticketbooking.exception;
+
+/**
+ * The caller has no admitted waiting-room token for the event yet
+ */
+public class NotAdmittedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public NotAdmittedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,34 @@
+package com.geoplace.ticketbooking.exception;
+
+/**
+ * The booking would take the user past the number of tickets one user may buy
+ * for an event; created without a stack trace or an eager message, like
+ * {@link InsufficientTicketsException}
+ */
+public class PurchaseLimitExceededException extends RuntimeException {
+    
+    private final int requested;
+    private final int limit;
+    private final int purchased;
+    
+    public PurchaseLimitExceededException(int requested, int limit, int purchased) {
+        super(null, null, false, false);
+        this.requested = requested;
+        this.limit = limit;
+        this.purchased = purchased;
+    }
+    
+    @Override
+    public String getMessage() {
+        return "At most " + limit + " tickets per user for this event. Requested: " + requested
+            + ", Already booked or held: " + purchased;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public int getPurchased() {
+        return purchased;
+    }
+}
@@ -0,0 +1,8 @@
+package com.geoplace.ticketbooking.exception;
+
+public class QueueTokenNotFoundException extends RuntimeException {
+    
+    public QueueTokenNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.geoplace.ticketbooking.exception;
+
+/**
+ * The caller sent more booking requests than its rate limit allows. Abusive
+ * clients trigger it in bulk, so it is created without a stack trace.
+ */
+public class RateLimitedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,14 +1,90 @@
 package com.geoplace.ticketbooking.repository;
 
+import com.geoplace.ticketbooking.dto.BookingSummary;
 import com.geoplace.ticketbooking.entity.Booking;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
     List<Booking> findByEventId(Long eventId);
+    
+    Optional<Booking> findByUserIdAndIdempotencyKey(String userId, String idempotencyKey);
+    
+    /**
+     * Tickets the user has booked for the event and not cancelled, answered from {@code idx_bookings_user_event}
+     */
+    @Query("SELECT COALESCE(SUM(b.ticketCount), 0) FROM Booking b " +
+           "WHERE b.userId = :userId AND b.event.id = :eventId AND b.cancelledAt IS NULL")
+    long sumTicketCount(@Param("userId") String userId, @Param("eventId") Long eventId);
+    
+    /**
+     * Keyset page of a user's bookings made in {@code [from, beforeTime)}, newest first, continuing
+     * after {@code (beforeTime, beforeId)}; a range scan of {@code idx_bookings_user_time}
+     */
+    @Query("SELECT new com.geoplace.ticketbooking.dto.BookingSummary(" +
+           "b.id, e.id, e.name, b.ticketCount, b.bookingTime, b.userId, b.cancelledAt) " +
+           "FROM Booking b JOIN b.event e " +
+           "WHERE b.userId = :userId AND b.bookingTime >= :from " +
+           "AND (b.bookingTime < :beforeTime OR (b.bookingTime = :beforeTime AND b.id < :beforeId)) " +
+           "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<BookingSummary> findUserHistory(@Param("userId") String userId,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("beforeTime") LocalDateTime beforeTime,
+                                         @Param("beforeId") long beforeId,
+                                         Limit limit);
+    
+    /**
+     * Keyset page of an event's bookings, as {@link #findUserHistory}; a range scan of
+     * {@code idx_bookings_event_time}
+     */
+    @Query("SELECT new com.geoplace.ticketbooking.dto.BookingSummary(" +
+           "b.id, e.id, e.name, b.ticketCount, b.bookingTime, b.userId, b.cancelledAt) " +
+           "FROM Booking b JOIN b.event e " +
+           "WHERE b.event.id = :eventId AND b.bookingTime >= :from " +
+           "AND (b.bookingTime < :beforeTime OR (b.bookingTime = :beforeTime AND b.id < :beforeId)) " +
+           "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<BookingSummary> findEventHistory(@Param("eventId") Long eventId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("beforeTime") LocalDateTime beforeTime,
+                                          @Param("beforeId") long beforeId,
+                                          Limit limit);
+    
+    /**
+     * The bookings among {@code ids} that still stand, without locking them; enough to tell
+     * whose they are and which events they are for
+     */
+    @Query("SELECT b.id AS id, b.event.id AS eventId, b.userId AS userId, b.ticketCount AS ticketCount " +
+           "FROM Booking b WHERE b.id IN :ids AND b.cancelledAt IS NULL")
+    List<BookingTickets> findStandingByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Lock the bookings among {@code ids} that still stand, in ID order, reading only what
+     * cancelling them needs; a concurrent cancellation of the same bookings waits, then skips them
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id AS id, b.event.id AS eventId, b.userId AS userId, b.ticketCount AS ticketCount " +
+           "FROM Booking b WHERE b.id IN :ids AND b.cancelledAt IS NULL ORDER BY b.id")
+    List<BookingTickets> lockStandingByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Mark bookings cancelled in one statement
+     * @return number of bookings marked
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.cancelledAt = :cancelledAt WHERE b.id IN :ids AND b.cancelledAt IS NULL")
+    int markCancelled(@Param("ids") Collection<Long> ids, @Param("cancelledAt") LocalDateTime cancelledAt);
 }
 
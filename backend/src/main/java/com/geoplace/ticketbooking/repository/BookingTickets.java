@@ -0,0 +1,15 @@
+package com.geoplace.ticketbooking.repository;
+
+/**
+ * Projection of what a booking took off sale, without loading the entity.
+ */
+public interface BookingTickets {
+    
+    Long getId();
+    
+    Long getEventId();
+    
+    String getUserId();
+    
+    Integer getTicketCount();
+}
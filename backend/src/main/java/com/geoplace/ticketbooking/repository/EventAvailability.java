@@ -0,0 +1,11 @@
+package com.geoplace.ticketbooking.repository;
+
+/**
+ * Projection of an event's remaining tickets, without loading the entity.
+ */
+public interface EventAvailability {
+    
+    Long getId();
+    
+    Integer getAvailableTickets();
+}
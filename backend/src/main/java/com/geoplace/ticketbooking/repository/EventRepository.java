@@ -2,12 +2,16 @@ package com.geoplace.ticketbooking.repository;
 
 import com.geoplace.ticketbooking.entity.Event;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,5 +20,36 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT e FROM Event e WHERE e.id = :id")
     Optional<Event> findByIdWithLock(@Param("id") Long id);
+    
+    @Query("SELECT e.availableTickets FROM Event e WHERE e.id = :id")
+    Optional<Integer> findAvailableTicketsById(@Param("id") Long id);
+    
+    @Query("SELECT e.id AS id, e.availableTickets AS availableTickets FROM Event e WHERE e.id IN :ids")
+    List<EventAvailability> findAvailabilityByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT e FROM Event e ORDER BY e.id")
+    List<Event> findAllOrderById();
+    
+    /**
+     * Keyset page: the events following {@code afterId}, in ID order
+     */
+    List<Event> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+    
+    /**
+     * Atomically take tickets without reading the row first
+     * @return number of rows updated, 0 if the event is missing or has too few tickets
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.availableTickets = e.availableTickets - :count, e.version = e.version + 1 " +
+           "WHERE e.id = :id AND e.availableTickets >= :count")
+    int decrementAvailableTickets(@Param("id") Long id, @Param("count") int count);
+    
+    /**
+     * Give tickets back, e.g. when a hold is released or expires
+     * @return number of rows updated, 0 if the event is missing
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.availableTickets = e.availableTickets + :count, e.version = e.version + 1 " +
+           "WHERE e.id = :id")
+    int incrementAvailableTickets(@Param("id") Long id, @Param("count") int count);
 }
-
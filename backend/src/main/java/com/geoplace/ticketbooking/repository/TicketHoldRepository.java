@@ -0,0 +1,33 @@
+package com.geoplace.ticketbooking.repository;
+
+import com.geoplace.ticketbooking.entity.TicketHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+@Repository
+public interface TicketHoldRepository extends JpaRepository<TicketHold, Long> {
+    
+    /**
+     * @return 1 if the hold was deleted, 0 if it was already gone
+     */
+    @Modifying
+    @Query("DELETE FROM TicketHold h WHERE h.id = :id")
+    int deleteHold(@Param("id") Long id);
+    
+    /**
+     * Every outstanding hold; must be consumed inside a transaction and closed
+     */
+    @Query("SELECT h FROM TicketHold h")
+    Stream<TicketHold> streamAll();
+    
+    /**
+     * Tickets the user holds for the event
+     */
+    @Query("SELECT COALESCE(SUM(h.ticketCount), 0) FROM TicketHold h WHERE h.userId = :userId AND h.eventId = :eventId")
+    long sumTicketCount(@Param("userId") String userId, @Param("eventId") Long eventId);
+}
@@ -0,0 +1,107 @@
+package com.geoplace.ticketbooking.service;
+
+import com.geoplace.ticketbooking.dto.BookingPage;
+import com.geoplace.ticketbooking.dto.BookingSummary;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InvalidCursorException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Booking history of a user or an event, newest first, in keyset pages over
+ * {@code (bookingTime, id)}. Rows are read straight into {@link BookingSummary}
+ * projections with the event name joined in the same query, so no entity or lazy
+ * association is loaded, and each page is one range scan of a composite index
+ * however many bookings precede it.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingHistoryService {
+    
+    /** Bounds of an open time range, well inside what every database can store */
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int CURSOR_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    
+    private final BookingRepository bookingRepository;
+    private final EventRepository eventRepository;
+    
+    /**
+     * Get a page of the user's bookings
+     * @param from Earliest booking time, inclusive, or null for no bound
+     * @param to Latest booking time, exclusive, or null for no bound
+     * @param cursor token from a previous page, or null for the first page
+     * @param size Maximum number of bookings on the page
+     * @return BookingPage with the bookings and the cursor of the next page
+     */
+    public BookingPage getUserBookings(String userId, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        Position after = Position.of(cursor, to);
+        return page(bookingRepository.findUserHistory(userId, from == null ? EARLIEST : from,
+            after.bookingTime, after.id, Limit.of(size + 1)), size);
+    }
+    
+    /**
+     * Get a page of the event's bookings, as {@link #getUserBookings}
+     * @throws EventNotFoundException if there is no such event
+     */
+    public BookingPage getEventBookings(Long eventId, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        Position after = Position.of(cursor, to);
+        if (!eventRepository.existsById(eventId)) {
+            throw new EventNotFoundException("Event not found with id: " + eventId);
+        }
+        return page(bookingRepository.findEventHistory(eventId, from == null ? EARLIEST : from,
+            after.bookingTime, after.id, Limit.of(size + 1)), size);
+    }
+    
+    private static BookingPage page(List<BookingSummary> rows, int size) {
+        // One extra row tells whether another page follows
+        if (rows.size() <= size) {
+            return new BookingPage(rows, null);
+        }
+        List<BookingSummary> bookings = rows.subList(0, size);
+        BookingSummary last = bookings.get(size - 1);
+        return new BookingPage(bookings, encodeCursor(last.getBookingTime(), last.getBookingId()));
+    }
+    
+    static String encodeCursor(LocalDateTime bookingTime, long bookingId) {
+        ByteBuffer bytes = ByteBuffer.allocate(CURSOR_BYTES)
+            .putLong(bookingTime.toEpochSecond(ZoneOffset.UTC))
+            .putInt(bookingTime.getNano())
+            .putLong(bookingId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+    
+    /**
+     * Where a page starts: strictly before this booking time and ID
+     */
+    private record Position(LocalDateTime bookingTime, long id) {
+        
+        private static Position of(String cursor, LocalDateTime to) {
+            if (cursor == null || cursor.isEmpty()) {
+                // Everything before the end of the range; no ID is below 0
+                return new Position(to == null ? LATEST : to, 0L);
+            }
+            try {
+                byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+                if (bytes.length != CURSOR_BYTES) {
+                    throw new InvalidCursorException("Invalid page cursor: " + cursor);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new Position(LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC),
+                    buffer.getLong());
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new InvalidCursorException("Invalid page cursor: " + cursor);
+            }
+        }
+    }
+}
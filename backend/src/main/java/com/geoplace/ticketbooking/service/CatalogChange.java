@@ -0,0 +1,39 @@
+package com.geoplace.ticketbooking.service;
+
+/**
+ * Published whenever an event is created, changed or removed, or its availability moves.
+ * Listeners use {@code @TransactionalEventListener(fallbackExecution = true)} so they only
+ * react once the change is committed, and re-read the event rather than trusting a value.
+ * In a cluster, changes committed on another member are published here again with
+ * {@code relayed} set.
+ */
+public record CatalogChange(Long eventId, Type type, boolean relayed) {
+    
+    public CatalogChange(Long eventId, Type type) {
+        this(eventId, type, false);
+    }
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        AVAILABILITY,
+        /** Availability went up, e.g. a hold was released or expired, or bookings were cancelled */
+        RESTOCKED,
+        DELETED
+    }
+    
+    public static CatalogChange availability(Long eventId) {
+        return new CatalogChange(eventId, Type.AVAILABILITY);
+    }
+    
+    public static CatalogChange restocked(Long eventId) {
+        return new CatalogChange(eventId, Type.RESTOCKED);
+    }
+    
+    /**
+     * @return this change as received from the member that committed it
+     */
+    public CatalogChange asRelayed() {
+        return new CatalogChange(eventId, type, true);
+    }
+}
@@ -0,0 +1,168 @@
+package com.geoplace.ticketbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The event list as ready-to-send JSON bytes, with a strong ETag per version.
+ * <p>
+ * Every event is kept as its own serialized fragment. A {@link CatalogChange} only
+ * marks that event dirty; the next read re-serializes just the dirty events and
+ * stitches the fragments into a new immutable snapshot, unless none of them actually
+ * changed. Readers queued behind that rebuild pick up its result instead of rebuilding
+ * again. Reads of a clean snapshot take no lock and touch neither the database nor
+ * Jackson. The gzip form is compressed once per snapshot, on first request.
+ * <p>
+ * The ETag numbers the snapshots rather than hashing them, under a prefix drawn at
+ * startup so that tags from before a restart never match; members of a cluster tag
+ * the same content differently.
+ */
+@Component
+@RequiredArgsConstructor
+public class EventCatalogSnapshot {
+    
+    private final TicketBookingService ticketBookingService;
+    private final ObjectMapper objectMapper;
+    
+    private final Set<Long> dirtyEvents = ConcurrentHashMap.newKeySet();
+    private final Map<Long, byte[]> fragments = new TreeMap<>();
+    private final String etagPrefix = "\"" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    private long generation;
+    private volatile Snapshot snapshot;
+    
+    /**
+     * @return the current snapshot, rebuilding the dirty events first if there are any
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && dirtyEvents.isEmpty()) {
+            return current;
+        }
+        return rebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        dirtyEvents.add(change.eventId());
+    }
+    
+    private synchronized Snapshot rebuild() {
+        if (snapshot != null && dirtyEvents.isEmpty()) {
+            // Rebuilt by the reader ahead of this one
+            return snapshot;
+        }
+        boolean changed = snapshot == null;
+        if (snapshot == null) {
+            // Marks raised while the full list loads are simply re-applied below
+            for (EventDTO event : ticketBookingService.getAllEvents()) {
+                fragments.put(event.getId(), serialize(event));
+            }
+        }
+        for (Long eventId : List.copyOf(dirtyEvents)) {
+            // Clear the mark before reading, so a change landing mid-read stays marked
+            dirtyEvents.remove(eventId);
+            try {
+                byte[] fragment = serialize(ticketBookingService.getEvent(eventId));
+                changed |= !Arrays.equals(fragments.put(eventId, fragment), fragment);
+            } catch (EventNotFoundException e) {
+                changed |= fragments.remove(eventId) != null;
+            }
+        }
+        if (!changed) {
+            return snapshot;
+        }
+        
+        int size = 2 + Math.max(0, fragments.size() - 1);
+        for (byte[] fragment : fragments.values()) {
+            size += fragment.length;
+        }
+        byte[] json = new byte[size];
+        int position = 0;
+        json[position++] = '[';
+        for (byte[] fragment : fragments.values()) {
+            if (position > 1) {
+                json[position++] = ',';
+            }
+            System.arraycopy(fragment, 0, json, position, fragment.length);
+            position += fragment.length;
+        }
+        json[position] = ']';
+        
+        snapshot = new Snapshot(json, etagPrefix + Long.toHexString(++generation) + "\"");
+        return snapshot;
+    }
+    
+    private byte[] serialize(EventDTO event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event " + event.getId(), e);
+        }
+    }
+    
+    /**
+     * One immutable version of the serialized event list
+     */
+    public static final class Snapshot {
+        
+        private final byte[] json;
+        private final String etag;
+        private volatile byte[] gzip;
+        
+        private Snapshot(byte[] json, String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+        
+        public byte[] json() {
+            return json;
+        }
+        
+        /**
+         * Strong ETag, quoted, unique to this version of the list
+         */
+        public String etag() {
+            return etag;
+        }
+        
+        public byte[] gzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                synchronized (this) {
+                    compressed = gzip;
+                    if (compressed == null) {
+                        gzip = compressed = compress(json);
+                    }
+                }
+            }
+            return compressed;
+        }
+        
+        private static byte[] compress(byte[] content) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                gzipOut.write(content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.geoplace.ticketbooking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.dto.EventPage;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.InvalidCursorException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Event listings that stay flat in memory however large the catalog grows:
+ * keyset pages over {@code Event.id}, and an NDJSON export written a keyset page at a time.
+ */
+@Service
+public class EventListingService {
+    
+    private static final byte NEWLINE = '\n';
+    private static final int EXPORT_PAGE_SIZE = 500;
+    
+    private final EventRepository eventRepository;
+    private final BookingEngine bookingEngine;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    
+    public EventListingService(EventRepository eventRepository,
+                               BookingEngine bookingEngine,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.eventRepository = eventRepository;
+        this.bookingEngine = bookingEngine;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Get the page of events following the cursor
+     * @param cursor token from a previous page, or null for the first page
+     * @param size Maximum number of events on the page
+     * @return EventPage with the events and the cursor of the next page
+     */
+    public EventPage getEventsPage(String cursor, int size) {
+        long afterId = cursor == null || cursor.isEmpty() ? 0L : decodeCursor(cursor);
+        
+        // One extra row tells whether another page follows
+        List<Event> rows = eventRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<EventDTO> events = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            events.add(withLiveAvailability(EventDTO.fromEntity(rows.get(i))));
+        }
+        
+        String nextCursor = hasMore ? encodeCursor(events.get(events.size() - 1).getId()) : null;
+        return new EventPage(events, nextCursor);
+    }
+    
+    /**
+     * Write every event as one JSON object per line. Each keyset page is read in its own
+     * short read-only transaction, so a slow client holds no connection between pages.
+     */
+    public void exportEvents(OutputStream out) throws IOException {
+        long afterId = 0L;
+        List<Event> page;
+        do {
+            long from = afterId;
+            page = readOnlyTransaction.execute(status ->
+                eventRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(EXPORT_PAGE_SIZE)));
+            for (Event event : page) {
+                out.write(objectMapper.writeValueAsBytes(withLiveAvailability(EventDTO.fromEntity(event))));
+                out.write(NEWLINE);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        out.flush();
+    }
+    
+    private EventDTO withLiveAvailability(EventDTO event) {
+        bookingEngine.availableTickets(event.getId()).ifPresent(event::setAvailableTickets);
+        return event;
+    }
+    
+    static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(lastId).array());
+    }
+    
+    static long decodeCursor(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidCursorException("Invalid page cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid page cursor: " + cursor);
+        }
+    }
+}
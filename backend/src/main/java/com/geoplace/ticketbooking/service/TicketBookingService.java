@@ -1,93 +1,351 @@
 package com.geoplace.ticketbooking.service;
 
+import com.geoplace.ticketbooking.diagnostics.BookingMetrics;
+import com.geoplace.ticketbooking.dto.BatchBookingRequest;
+import com.geoplace.ticketbooking.dto.BatchBookingResponse;
+import com.geoplace.ticketbooking.dto.BatchBookingResult;
+import com.geoplace.ticketbooking.dto.BookingLine;
+import com.geoplace.ticketbooking.dto.BookingRequest;
 import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.BulkBookingRequest;
+import com.geoplace.ticketbooking.dto.BulkBookingResponse;
 import com.geoplace.ticketbooking.dto.EventDTO;
-import com.geoplace.ticketbooking.entity.Booking;
-import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
 import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.IdempotencyKeyReusedException;
 import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.exception.PurchaseLimitExceededException;
+import com.geoplace.ticketbooking.exception.RateLimitedException;
 import com.geoplace.ticketbooking.repository.BookingRepository;
-import com.geoplace.ticketbooking.repository.EventRepository;
-import jakarta.transaction.Transactional;
+import com.geoplace.ticketbooking.service.cache.AvailabilityIndex;
+import com.geoplace.ticketbooking.service.cache.EventCatalogCache;
+import com.geoplace.ticketbooking.service.cluster.ClusterRouter;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import com.geoplace.ticketbooking.service.idempotency.IdempotencyStore;
+import com.geoplace.ticketbooking.service.limits.PurchaseLimits;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TicketBookingService {
     
-    private final EventRepository eventRepository;
+    private final BookingEngine bookingEngine;
+    private final EventCatalogCache eventCatalogCache;
+    private final AvailabilityIndex availabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IdempotencyStore idempotencyStore;
     private final BookingRepository bookingRepository;
+    private final BookingMetrics bookingMetrics;
+    private final Optional<ClusterRouter> clusterRouter;
+    private final Optional<PurchaseLimits> purchaseLimits;
     
     /**
-     * Book tickets for an event with pessimistic locking to prevent overbooking
+     * Book tickets for an event through the configured booking engine
      * @param eventId The event ID
      * @param count Number of tickets to book
      * @param userId User making the booking
      * @return BookingResponse with booking details
      */
-    @Transactional
     public BookingResponse bookTickets(Long eventId, Integer count, String userId) {
-        log.info("Attempting to book {} tickets for event {} by user {}", count, eventId, userId);
-        
-        // Use pessimistic write lock to prevent concurrent modifications
-        Event event = eventRepository.findByIdWithLock(eventId)
-            .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + eventId));
-        
-        // Check if enough tickets are available
-        if (!event.canBook(count)) {
-            log.warn("Insufficient tickets for event {}. Requested: {}, Available: {}", 
-                     eventId, count, event.getAvailableTickets());
-            throw new InsufficientTicketsException(
-                String.format("Not enough tickets available. Requested: %d, Available: %d", 
-                            count, event.getAvailableTickets())
-            );
+        return bookTickets(eventId, count, userId, null);
+    }
+    
+    /**
+     * Book tickets at most once per idempotency key. A retry with the same key gets
+     * the original booking back, waiting for it if the first request is still running;
+     * a failed attempt does not use the key up.
+     * @param idempotencyKey Client-chosen key, or null to book unconditionally
+     * @return BookingResponse with booking details
+     * @throws IdempotencyKeyReusedException if the key was used for a different booking
+     */
+    public BookingResponse bookTickets(Long eventId, Integer count, String userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return book(eventId, count, userId, null);
+        }
+        IdempotencyStore.Claim claim = idempotencyStore.claim(userId, idempotencyKey, eventId, count);
+        if (!claim.isOwner()) {
+            log.debug("Replaying booking for idempotency key {} of user {}", idempotencyKey, userId);
+            return claim.replay(eventId, count);
+        }
+        BookingResponse response;
+        try {
+            try {
+                response = book(eventId, count, userId, idempotencyKey);
+            } catch (DataIntegrityViolationException e) {
+                // The key outlived its store entry: the unique index turned the retry away
+                response = bookingRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(booking -> replayed(booking.getId(), booking.getEvent().getId(), booking.getTicketCount(),
+                        eventId, count, idempotencyKey))
+                    .orElseThrow(() -> e);
+            }
+        } catch (RuntimeException e) {
+            claim.fail(e);
+            throw e;
+        }
+        claim.complete(response);
+        return response;
+    }
+    
+    private BookingResponse book(Long eventId, Integer count, String userId, String idempotencyKey) {
+        long start = System.nanoTime();
+        try {
+            admit(userId);
+        } catch (RateLimitedException e) {
+            bookingMetrics.record(eventId, BookingMetrics.Outcome.LIMITED, start);
+            throw e;
+        }
+        ClusterRouter router = clusterRouter.filter(candidate -> !candidate.isLocal(eventId)).orElse(null);
+        if (router != null) {
+            Optional<BookingResponse> forwarded;
+            try {
+                forwarded = router.forward(eventId, count, userId, idempotencyKey);
+            } catch (RuntimeException e) {
+                bookingMetrics.record(eventId, BookingMetrics.Outcome.of(e), start);
+                throw e;
+            }
+            if (forwarded.isPresent()) {
+                bookingMetrics.record(eventId, BookingMetrics.Outcome.SUCCESS, start);
+                return forwarded.get();
+            }
+        }
+        try {
+            availabilityIndex.rejectIfInsufficient(eventId, count);
+            reserveLimit(userId, eventId, count);
+        } catch (InsufficientTicketsException | PurchaseLimitExceededException e) {
+            bookingMetrics.record(eventId, BookingMetrics.Outcome.of(e), start);
+            throw e;
+        }
+        AvailabilityIndex.Slot slot = availabilityIndex.track(eventId);
+        BookingResponse response;
+        try {
+            response = bookingEngine.bookTickets(eventId, count, userId, idempotencyKey);
+        } catch (RuntimeException e) {
+            abandonLimit(userId, eventId, count);
+            if (e instanceof InsufficientTicketsException insufficient) {
+                slot.observe(insufficient.getAvailable());
+            }
+            bookingMetrics.record(eventId, BookingMetrics.Outcome.of(e), start);
+            throw e;
+        }
+        settleLimit(userId, eventId, count);
+        slot.observe(response.getRemainingTickets());
+        bookingMetrics.record(eventId, BookingMetrics.Outcome.SUCCESS, start);
+        eventPublisher.publishEvent(CatalogChange.availability(eventId));
+        return response;
+    }
+    
+    /**
+     * Book tickets without blocking on persistence. With the in-memory engine the
+     * future completes when the write-behind batch holding the booking commits.
+     * In a cluster, bookings for events another member owns are forwarded to it.
+     * @return future with the booking details, or completed exceptionally on failure
+     */
+    public CompletableFuture<BookingResponse> bookTicketsAsync(Long eventId, Integer count, String userId) {
+        long start = System.nanoTime();
+        try {
+            admit(userId);
+        } catch (RateLimitedException e) {
+            bookingMetrics.record(eventId, BookingMetrics.Outcome.LIMITED, start);
+            return CompletableFuture.failedFuture(e);
+        }
+        ClusterRouter router = clusterRouter.filter(candidate -> !candidate.isLocal(eventId)).orElse(null);
+        if (router != null) {
+            return router.forwardAsync(eventId, count, userId, null)
+                .whenComplete((forwarded, failure) -> {
+                    if (failure != null) {
+                        bookingMetrics.record(eventId, BookingMetrics.Outcome.of(failure), start);
+                    } else if (forwarded.isPresent()) {
+                        bookingMetrics.record(eventId, BookingMetrics.Outcome.SUCCESS, start);
+                    }
+                })
+                .thenCompose(forwarded -> forwarded
+                    .map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> bookLocallyAsync(eventId, count, userId, start)));
+        }
+        return bookLocallyAsync(eventId, count, userId, start);
+    }
+    
+    private CompletableFuture<BookingResponse> bookLocallyAsync(Long eventId, Integer count, String userId, long start) {
+        try {
+            availabilityIndex.rejectIfInsufficient(eventId, count);
+            reserveLimit(userId, eventId, count);
+        } catch (InsufficientTicketsException | PurchaseLimitExceededException e) {
+            bookingMetrics.record(eventId, BookingMetrics.Outcome.of(e), start);
+            return CompletableFuture.failedFuture(e);
+        }
+        AvailabilityIndex.Slot slot = availabilityIndex.track(eventId);
+        CompletableFuture<BookingResponse> booked;
+        try {
+            booked = bookingEngine.bookTicketsAsync(eventId, count, userId);
+        } catch (RuntimeException e) {
+            booked = CompletableFuture.failedFuture(e);
+        }
+        return booked
+            .whenComplete((response, failure) -> {
+                if (failure != null) {
+                    abandonLimit(userId, eventId, count);
+                } else {
+                    settleLimit(userId, eventId, count);
+                }
+                if (unwrap(failure) instanceof InsufficientTicketsException e) {
+                    slot.observe(e.getAvailable());
+                }
+                bookingMetrics.record(eventId, BookingMetrics.Outcome.of(failure), start);
+            })
+            .thenApply(response -> {
+                slot.observe(response.getRemainingTickets());
+                eventPublisher.publishEvent(CatalogChange.availability(eventId));
+                return response;
+            });
+    }
+    
+    /**
+     * Book every line of an order, or none of them. Lines for the same event are merged.
+     * @param request The order lines and the user placing it
+     * @return BulkBookingResponse with one booking per event
+     */
+    public BulkBookingResponse bookAll(BulkBookingRequest request) {
+        SortedMap<Long, Integer> ticketsPerEvent = new TreeMap<>();
+        for (BookingLine line : request.getLines()) {
+            ticketsPerEvent.merge(line.getEventId(), line.getCount(), Integer::sum);
         }
         
-        // Book the tickets
-        event.bookTickets(count);
-        eventRepository.save(event);
-        
-        // Create booking record
-        Booking booking = new Booking(event, count, userId);
-        booking = bookingRepository.save(booking);
-        
-        log.info("Successfully booked {} tickets for event {}. Remaining: {}", 
-                 count, eventId, event.getAvailableTickets());
-        
-        return BookingResponse.success(
-            booking.getId(),
-            event.getId(),
-            event.getName(),
-            count,
-            event.getAvailableTickets()
-        );
+        String userId = userIdOf(request.getUserId());
+        admit(userId);
+        ticketsPerEvent.forEach(availabilityIndex::rejectIfInsufficient);
+        purchaseLimits.ifPresent(limits -> limits.reserveAll(userId, ticketsPerEvent));
+        List<BookingResponse> bookings;
+        try {
+            bookings = bookingEngine.bookAll(ticketsPerEvent, userId);
+        } catch (RuntimeException e) {
+            purchaseLimits.ifPresent(limits -> limits.abandonAll(userId, ticketsPerEvent));
+            throw e;
+        }
+        purchaseLimits.ifPresent(limits -> limits.settleAll(userId, ticketsPerEvent));
+        ticketsPerEvent.keySet().forEach(eventId -> eventPublisher.publishEvent(CatalogChange.availability(eventId)));
+        return BulkBookingResponse.success(bookings);
+    }
+    
+    /**
+     * Book a batch of independent bookings, each succeeding or failing on its own.
+     * All of them are submitted before any is awaited, so with the in-memory engine
+     * the whole batch shares the same write-behind transactions.
+     * @param request The bookings to make
+     * @return BatchBookingResponse with one result per booking, in request order
+     */
+    public BatchBookingResponse bookBatch(BatchBookingRequest request) {
+        List<BookingRequest> bookings = request.getBookings();
+        List<CompletableFuture<BatchBookingResult>> pending = new ArrayList<>(bookings.size());
+        for (int i = 0; i < bookings.size(); i++) {
+            int index = i;
+            BookingRequest booking = bookings.get(i);
+            pending.add(bookTicketsAsync(booking.getEventId(), booking.getCount(), userIdOf(booking.getUserId()))
+                .handle((response, failure) -> failure == null
+                    ? BatchBookingResult.success(index, response)
+                    : failedResult(index, failure)));
+        }
+        return BatchBookingResponse.of(pending.stream().map(CompletableFuture::join).toList());
     }
     
     /**
-     * Get event details by ID
+     * Get event details by ID, served from the read cache when possible
      * @param eventId The event ID
      * @return EventDTO with event details
      */
     public EventDTO getEvent(Long eventId) {
-        Event event = eventRepository.findById(eventId)
+        EventDTO event = eventCatalogCache.find(eventId)
             .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + eventId));
-        return EventDTO.fromEntity(event);
+        return withLiveAvailability(event);
     }
     
     /**
-     * Get all events
+     * Get all events, served from the read cache when possible
      * @return List of EventDTO
      */
     public List<EventDTO> getAllEvents() {
-        return eventRepository.findAll().stream()
-            .map(EventDTO::fromEntity)
-            .collect(Collectors.toList());
+        List<EventDTO> events = eventCatalogCache.findAll();
+        events.forEach(this::withLiveAvailability);
+        return events;
+    }
+    
+    /**
+     * Rebuild the response of a booking already stored under an idempotency key;
+     * remaining tickets are reported as of now
+     */
+    private BookingResponse replayed(Long bookingId, Long bookedEventId, int bookedCount,
+                                     Long eventId, int count, String idempotencyKey) {
+        if (!bookedEventId.equals(eventId) || bookedCount != count) {
+            throw new IdempotencyKeyReusedException(
+                "Idempotency key " + idempotencyKey + " was already used for a different booking");
+        }
+        EventDTO event = getEvent(eventId);
+        return BookingResponse.success(bookingId, eventId, event.getName(), count, event.getAvailableTickets());
+    }
+    
+    private EventDTO withLiveAvailability(EventDTO event) {
+        bookingEngine.availableTickets(event.getId()).ifPresent(event::setAvailableTickets);
+        return event;
+    }
+    
+    /**
+     * Count a booking request against the user's rate limit, when limits are enabled
+     */
+    private void admit(String userId) {
+        purchaseLimits.ifPresent(limits -> limits.admit(userId));
+    }
+    
+    private void reserveLimit(String userId, Long eventId, int count) {
+        purchaseLimits.ifPresent(limits -> limits.reserve(userId, eventId, count));
+    }
+    
+    private void settleLimit(String userId, Long eventId, int count) {
+        purchaseLimits.ifPresent(limits -> limits.settle(userId, eventId, count));
+    }
+    
+    private void abandonLimit(String userId, Long eventId, int count) {
+        purchaseLimits.ifPresent(limits -> limits.abandon(userId, eventId, count));
+    }
+    
+    private static String userIdOf(String userId) {
+        return userId == null || userId.isBlank() ? "anonymous" : userId;
+    }
+    
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+    
+    private static BatchBookingResult failedResult(int index, Throwable failure) {
+        Throwable cause = unwrap(failure);
+        return switch (cause) {
+            case EventNotFoundException e ->
+                BatchBookingResult.failure(index, HttpStatus.NOT_FOUND.value(), "Event Not Found", e.getMessage());
+            case InsufficientTicketsException e ->
+                BatchBookingResult.failure(index, HttpStatus.CONFLICT.value(), "Insufficient Tickets", e.getMessage());
+            case BookingConflictException e ->
+                BatchBookingResult.failure(index, HttpStatus.CONFLICT.value(), "Booking Conflict", e.getMessage());
+            case PurchaseLimitExceededException e ->
+                BatchBookingResult.failure(index, HttpStatus.CONFLICT.value(), "Purchase Limit Exceeded", e.getMessage());
+            case RateLimitedException e ->
+                BatchBookingResult.failure(index, HttpStatus.TOO_MANY_REQUESTS.value(), "Rate Limited", e.getMessage());
+            default -> {
+                log.error("Booking {} of batch failed", index, cause);
+                yield BatchBookingResult.failure(index, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Internal Server Error", cause.getMessage());
+            }
+        };
     }
 }
-
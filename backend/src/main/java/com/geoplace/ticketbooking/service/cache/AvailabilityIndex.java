@@ -0,0 +1,146 @@
+package com.geoplace.ticketbooking.service.cache;
+
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Last known remaining tickets per event, learned from the booking path, so that
+ * sold-out checks can be answered without a database round trip.
+ * <p>
+ * Between restocks availability only ever goes down, so each {@link Slot} keeps the
+ * lowest count observed. Cancellations, released holds and edits that raise an
+ * event's availability publish {@link CatalogChange.Type#RESTOCKED}, and the engines
+ * publish it too whenever they put back tickets of a booking that failed to persist,
+ * since a concurrent request may have observed the count without them. Any of these,
+ * an edit of the event, or a change relayed from another member drops the slot;
+ * observations still in flight land on the detached slot and are lost, which is why
+ * callers take the slot before they start booking. The index may run high, and runs
+ * low only in the instant between tickets coming back and the change being delivered,
+ * which is what lets {@link #rejectIfInsufficient} turn requests away without a lock
+ * or transaction.
+ */
+@Component
+public class AvailabilityIndex {
+    
+    public static final int UNKNOWN = -1;
+    
+    private final BookingEngine bookingEngine;
+    private final EventRepository eventRepository;
+    private final boolean fastPath;
+    private final Counter fastRejections;
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    
+    public AvailabilityIndex(BookingEngine bookingEngine,
+                             EventRepository eventRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${ticketbooking.availability.fast-path:true}") boolean fastPath) {
+        this.bookingEngine = bookingEngine;
+        this.eventRepository = eventRepository;
+        this.fastPath = fastPath;
+        this.fastRejections = meterRegistry.counter("booking.fast_path.rejections");
+    }
+    
+    /**
+     * Reject a request the last observed count already rules out. Only observed
+     * counts are used, so this never adds a database read to the booking path.
+     * @throws InsufficientTicketsException without a stack trace if {@code count} cannot be covered
+     */
+    public void rejectIfInsufficient(Long eventId, int count) {
+        if (!fastPath) {
+            return;
+        }
+        Slot slot = slots.get(eventId);
+        int remaining = slot == null ? UNKNOWN : slot.remaining.get();
+        if (remaining != UNKNOWN && count > remaining) {
+            fastRejections.increment();
+            throw new InsufficientTicketsException(count, remaining);
+        }
+    }
+    
+    /**
+     * The slot to record an observation in; take it before the booking starts
+     */
+    public Slot track(Long eventId) {
+        return slots.computeIfAbsent(eventId, id -> new Slot());
+    }
+    
+    /**
+     * Remaining tickets as last seen, loaded once from the database when nothing
+     * has been observed since the last restock
+     * @return remaining tickets, or {@link #UNKNOWN} if the event does not exist
+     */
+    public int remaining(Long eventId) {
+        OptionalInt live = bookingEngine.availableTickets(eventId);
+        if (live.isPresent()) {
+            return live.getAsInt();
+        }
+        Slot slot = track(eventId);
+        int remaining = slot.remaining.get();
+        if (remaining != UNKNOWN) {
+            return remaining;
+        }
+        return eventRepository.findAvailableTicketsById(eventId)
+            .map(loaded -> {
+                slot.observe(loaded);
+                return loaded;
+            })
+            .orElseGet(() -> {
+                slots.remove(eventId, slot);
+                return UNKNOWN;
+            });
+    }
+    
+    public boolean isSoldOut(Long eventId) {
+        return remaining(eventId) == 0;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        switch (change.type()) {
+            case CREATED, UPDATED, RESTOCKED, DELETED -> slots.remove(change.eventId());
+            case AVAILABILITY -> {
+                // Sales only lower availability; the booking path records them itself, unless
+                // they were made on another member
+                if (change.relayed()) {
+                    slots.remove(change.eventId());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lowest remaining count observed for one event since its last restock
+     */
+    public static final class Slot {
+        
+        private final AtomicInteger remaining = new AtomicInteger(UNKNOWN);
+        
+        /**
+         * @param observed remaining tickets; negative values are ignored
+         */
+        public void observe(int observed) {
+            if (observed < 0) {
+                return;
+            }
+            int current;
+            do {
+                current = remaining.get();
+                if (current != UNKNOWN && current <= observed) {
+                    return;
+                }
+            } while (!remaining.compareAndSet(current, observed));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.geoplace.ticketbooking.service.cache;
+
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.EventAvailability;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Two-tier read cache in front of {@link EventRepository}, bounded by W-TinyLFU eviction.
+ * <p>
+ * Event metadata never expires; it is only dropped when the event itself changes.
+ * Availability expires after {@code ticketbooking.cache.availability-ttl} and is
+ * invalidated as soon as a committed {@link CatalogChange} touches the event, so a
+ * read after a booking never sees the count from before it. The list of catalog
+ * IDs is kept until an event is created or removed.
+ * <p>
+ * Hit/miss statistics are published as {@code cache.*} metrics named
+ * {@code event.metadata} and {@code event.availability}.
+ */
+@Component
+public class EventCatalogCache {
+    
+    private final EventRepository eventRepository;
+    private final Cache<Long, EventMetadata> metadata;
+    private final Cache<Long, Integer> availability;
+    private final Object catalogLock = new Object();
+    private volatile List<Long> catalogIds;
+    private long catalogGeneration;
+    
+    public EventCatalogCache(EventRepository eventRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${ticketbooking.cache.max-events:100000}") long maxEvents,
+                             @Value("${ticketbooking.cache.availability-ttl:1s}") Duration availabilityTtl) {
+        this.eventRepository = eventRepository;
+        this.metadata = Caffeine.newBuilder()
+            .maximumSize(maxEvents)
+            .recordStats()
+            .build();
+        this.availability = Caffeine.newBuilder()
+            .maximumSize(maxEvents)
+            .expireAfterWrite(availabilityTtl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, metadata, "event.metadata");
+        CaffeineCacheMetrics.monitor(meterRegistry, availability, "event.availability");
+    }
+    
+    /**
+     * @return the event, or empty if it does not exist
+     */
+    public Optional<EventDTO> find(Long eventId) {
+        EventMetadata event = metadata.get(eventId, this::loadEvent);
+        if (event == null) {
+            return Optional.empty();
+        }
+        Integer available = availability.get(eventId, id -> eventRepository.findAvailableTicketsById(id).orElse(null));
+        return available == null ? Optional.empty() : Optional.of(event.toDto(available));
+    }
+    
+    /**
+     * @return every event, ordered by ID
+     */
+    public List<EventDTO> findAll() {
+        List<Long> ids = catalogIds;
+        if (ids == null) {
+            return loadCatalog();
+        }
+        
+        Map<Long, Integer> available = availability.getAll(ids, this::loadAvailability);
+        List<EventDTO> events = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            EventMetadata event = metadata.get(id, this::loadEvent);
+            Integer tickets = available.get(id);
+            if (event != null && tickets != null) {
+                events.add(event.toDto(tickets));
+            }
+        }
+        return events;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        availability.invalidate(change.eventId());
+        switch (change.type()) {
+            case CREATED, DELETED -> {
+                metadata.invalidate(change.eventId());
+                synchronized (catalogLock) {
+                    catalogGeneration++;
+                    catalogIds = null;
+                }
+            }
+            case UPDATED -> metadata.invalidate(change.eventId());
+            case AVAILABILITY, RESTOCKED -> {
+                // Metadata is unaffected by ticket sales
+            }
+        }
+    }
+    
+    private EventMetadata loadEvent(Long eventId) {
+        return eventRepository.findById(eventId).map(EventMetadata::fromEntity).orElse(null);
+    }
+    
+    private Map<Long, Integer> loadAvailability(Iterable<? extends Long> ids) {
+        List<Long> missing = new ArrayList<>();
+        ids.forEach(missing::add);
+        Map<Long, Integer> loaded = new HashMap<>();
+        for (EventAvailability row : eventRepository.findAvailabilityByIdIn(missing)) {
+            loaded.put(row.getId(), row.getAvailableTickets());
+        }
+        return loaded;
+    }
+    
+    private List<EventDTO> loadCatalog() {
+        long generation;
+        synchronized (catalogLock) {
+            generation = catalogGeneration;
+        }
+        List<Event> events = eventRepository.findAllOrderById();
+        List<Long> ids = new ArrayList<>(events.size());
+        List<EventDTO> result = new ArrayList<>(events.size());
+        for (Event event : events) {
+            EventMetadata eventMetadata = EventMetadata.fromEntity(event);
+            metadata.put(event.getId(), eventMetadata);
+            ids.add(event.getId());
+            result.add(eventMetadata.toDto(event.getAvailableTickets()));
+        }
+        synchronized (catalogLock) {
+            // Only keep the list if no event was created or removed while it loaded
+            if (generation == catalogGeneration) {
+                catalogIds = List.copyOf(ids);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package com.geoplace.ticketbooking.service.cache;
+
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.entity.Event;
+
+/**
+ * The parts of an event that do not change as tickets are sold.
+ */
+public record EventMetadata(long id, String name, String description, int totalTickets) {
+    
+    public static EventMetadata fromEntity(Event event) {
+        return new EventMetadata(event.getId(), event.getName(), event.getDescription(), event.getTotalTickets());
+    }
+    
+    public EventDTO toDto(int availableTickets) {
+        return new EventDTO(id, name, description, totalTickets, availableTickets);
+    }
+}
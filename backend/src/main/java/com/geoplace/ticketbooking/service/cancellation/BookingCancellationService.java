@@ -0,0 +1,233 @@
+package com.geoplace.ticketbooking.service.cancellation;
+
+import com.geoplace.ticketbooking.dto.BookingSummary;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.exception.BookingNotFoundException;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.BookingTickets;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.cluster.ClusterRouter;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import com.geoplace.ticketbooking.service.journal.BookingJournal;
+import com.geoplace.ticketbooking.service.journal.JournalRecord;
+import com.geoplace.ticketbooking.service.limits.PurchaseLimits;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Cancels bookings and puts their tickets back on sale, in sets rather than one by one.
+ * <p>
+ * A set of bookings is cancelled in one transaction. Their rows are locked and read as
+ * projections, the freed tickets are summed per event, and each event gets a single
+ * {@code availableTickets} increment through the {@link BookingEngine}, in event ID order.
+ * One {@code UPDATE} then marks every booking cancelled. No event row is read or locked,
+ * so cancelling ten thousand bookings of one event costs that event one row update per
+ * chunk, not ten thousand locks.
+ * <p>
+ * Restocked events are published on commit, so the availability index, read caches and
+ * live streams see the tickets right away; the engine's in-memory counters are topped
+ * up at the same point.
+ * <p>
+ * Holders cancel only their own bookings; bookings of another user are treated as unknown.
+ * In a cluster, bookings of events another member owns are cancelled on that member, where
+ * the event's in-memory inventory and availability index live, the way bookings are routed.
+ * <p>
+ * With the {@link BookingJournal}, each cancelled booking is journaled before the tickets
+ * it frees, and both before the transaction commits, so a replay neither brings a
+ * cancelled booking back nor restocks tickets for one that still stands.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingCancellationService {
+    
+    private static final int CHUNK_SIZE = 1000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final BookingRepository bookingRepository;
+    private final EventRepository eventRepository;
+    private final BookingEngine bookingEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<PurchaseLimits> purchaseLimits;
+    private final Optional<BookingJournal> journal;
+    private final Optional<ClusterRouter> clusterRouter;
+    
+    /**
+     * Cancel one of the user's bookings
+     * @throws BookingNotFoundException if the user has no such booking, or it is already cancelled
+     */
+    public CancellationResponse cancel(Long bookingId, String userId) {
+        Cancelled cancelled = cancelOwned(List.of(bookingId), userId);
+        if (cancelled.bookings == 0) {
+            throw new BookingNotFoundException("Booking not found or already cancelled with id: " + bookingId);
+        }
+        return cancelled.toResponse();
+    }
+    
+    /**
+     * Cancel a set of the user's bookings together; unknown, already cancelled and other
+     * users' bookings are skipped
+     */
+    public CancellationResponse cancelAll(Collection<Long> bookingIds, String userId) {
+        return cancelOwned(new TreeSet<>(bookingIds), userId).toResponse();
+    }
+    
+    /**
+     * Cancel every booking of an event made up to now, e.g. when it is called off or
+     * rescheduled. Bookings are walked newest first through {@code idx_bookings_event_time}
+     * and cancelled in chunks of their own transactions, so the event row is updated once
+     * per chunk and memory stays flat however many bookings there are.
+     * @throws EventNotFoundException if there is no such event
+     */
+    public CancellationResponse cancelEvent(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EventNotFoundException("Event not found with id: " + eventId);
+        }
+        ClusterRouter router = clusterRouter.filter(candidate -> !candidate.isLocal(eventId)).orElse(null);
+        if (router != null) {
+            Optional<CancellationResponse> forwarded = router.forwardEventCancellation(eventId);
+            if (forwarded.isPresent()) {
+                return forwarded.get();
+            }
+        }
+        Cancelled total = new Cancelled();
+        LocalDateTime beforeTime = LocalDateTime.now();
+        long beforeId = Long.MAX_VALUE;
+        List<BookingSummary> page;
+        do {
+            page = bookingRepository.findEventHistory(eventId, EARLIEST, beforeTime, beforeId, Limit.of(CHUNK_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            total.add(cancelChunk(page.stream().map(BookingSummary::getBookingId).toList(), null));
+            BookingSummary last = page.get(page.size() - 1);
+            beforeTime = last.getBookingTime();
+            beforeId = last.getBookingId();
+        } while (page.size() == CHUNK_SIZE);
+        log.info("Cancelled {} bookings of event {}, releasing {} tickets", total.bookings, eventId, total.tickets);
+        return total.toResponse();
+    }
+    
+    /**
+     * Cancel the user's bookings among {@code bookingIds}, each on the member owning its event
+     */
+    private Cancelled cancelOwned(Collection<Long> bookingIds, String userId) {
+        ClusterRouter router = clusterRouter.orElse(null);
+        if (router == null) {
+            return cancelChunk(bookingIds, userId);
+        }
+        Map<String, List<Long>> remoteByOwner = new TreeMap<>();
+        List<Long> local = new ArrayList<>();
+        for (BookingTickets booking : bookingRepository.findStandingByIdIn(bookingIds)) {
+            if (!userId.equals(booking.getUserId())) {
+                continue;
+            }
+            String owner = router.remoteOwnerOf(booking.getEventId());
+            if (owner == null) {
+                local.add(booking.getId());
+            } else {
+                remoteByOwner.computeIfAbsent(owner, member -> new ArrayList<>()).add(booking.getId());
+            }
+        }
+        Cancelled total = new Cancelled();
+        remoteByOwner.forEach((owner, ids) -> router.forwardCancellation(owner, ids, userId).ifPresentOrElse(
+            total::add,
+            // The owner was unreachable and has left the ring, so its events are served here now
+            () -> total.add(cancelChunk(ids, userId))));
+        if (!local.isEmpty()) {
+            total.add(cancelChunk(local, userId));
+        }
+        return total;
+    }
+    
+    /**
+     * Cancel here the standing bookings among {@code bookingIds}; only the user's when
+     * {@code userId} is given
+     */
+    private Cancelled cancelChunk(Collection<Long> bookingIds, String userId) {
+        Cancelled cancelled = transactionTemplate.execute(status -> {
+            List<BookingTickets> standing = bookingRepository.lockStandingByIdIn(bookingIds).stream()
+                .filter(booking -> userId == null || userId.equals(booking.getUserId()))
+                .toList();
+            Cancelled chunk = new Cancelled();
+            if (standing.isEmpty()) {
+                return chunk;
+            }
+            SortedMap<Long, Integer> ticketsPerEvent = new TreeMap<>();
+            for (BookingTickets booking : standing) {
+                ticketsPerEvent.merge(booking.getEventId(), booking.getTicketCount(), Integer::sum);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            journal.ifPresent(bookingJournal -> {
+                long cancelledAtMillis = JournalRecord.epochMillis(now);
+                bookingJournal.appendBeforeCommit(standing.stream()
+                    .map(booking -> new JournalRecord.Cancelled(booking.getEventId(), booking.getId(), cancelledAtMillis))
+                    .toArray(JournalRecord[]::new));
+            });
+            bookingEngine.restoreTickets(ticketsPerEvent);
+            bookingRepository.markCancelled(standing.stream().map(BookingTickets::getId).toList(), now);
+            // Delivered on commit, so readers of the availability index see the restock right away
+            ticketsPerEvent.keySet().forEach(eventId -> eventPublisher.publishEvent(CatalogChange.restocked(eventId)));
+            chunk.record(standing, ticketsPerEvent);
+            return chunk;
+        });
+        // Restocked tickets are visible to the caller once it returns
+        bookingEngine.awaitRestocked(cancelled.events);
+        purchaseLimits.ifPresent(limits -> cancelled.released.forEach(booking ->
+            limits.release(booking.getUserId(), booking.getEventId(), booking.getTicketCount())));
+        log.debug("Cancelled {} bookings across {} events", cancelled.bookings, cancelled.events.size());
+        return cancelled;
+    }
+    
+    private static final class Cancelled {
+        private int bookings;
+        private int tickets;
+        private final Set<Long> events = new HashSet<>();
+        // Members own disjoint sets of events, so their counts add up
+        private int forwardedEvents;
+        private List<BookingTickets> released = List.of();
+        
+        private void record(List<BookingTickets> standing, SortedMap<Long, Integer> ticketsPerEvent) {
+            bookings = standing.size();
+            tickets = ticketsPerEvent.values().stream().mapToInt(Integer::intValue).sum();
+            events.addAll(ticketsPerEvent.keySet());
+            released = standing;
+        }
+        
+        private void add(Cancelled chunk) {
+            bookings += chunk.bookings;
+            tickets += chunk.tickets;
+            events.addAll(chunk.events);
+            forwardedEvents += chunk.forwardedEvents;
+        }
+        
+        private void add(CancellationResponse forwarded) {
+            bookings += forwarded.getCancelledBookings();
+            tickets += forwarded.getReleasedTickets();
+            forwardedEvents += forwarded.getAffectedEvents();
+        }
+        
+        private CancellationResponse toResponse() {
+            return new CancellationResponse(bookings, tickets, events.size() + forwardedEvents);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Carries committed {@link CatalogChange}s to the other members, so that their event caches,
+ * catalog snapshot, availability index and live streams follow sales, restocks and edits made on
+ * any node, not just their own.
+ * <p>
+ * Changes are queued per peer and sent every {@code ticketbooking.cluster.relay-interval} in one
+ * request. A change already queued for a peer is not queued twice, since every listener re-reads
+ * the event rather than trusting the change, so a burst of sales costs each peer one entry per
+ * event. A peer that is down or fails a request keeps its queue and gets it once it answers
+ * again. The receiving member publishes the changes outside any transaction, marked as
+ * {@linkplain CatalogChange#relayed() relayed} so that they are not relayed further.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.cluster.enabled", havingValue = "true")
+@Slf4j
+public class CatalogChangeRelay implements DisposableBean {
+    
+    static final String CATALOG_CHANGES_PATH = "/internal/cluster/catalog-changes";
+    
+    private final ClusterMembership membership;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sender;
+    
+    public CatalogChangeRelay(ClusterMembership membership,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper,
+                              @Value("${ticketbooking.cluster.relay-interval:50ms}") Duration interval) {
+        this.membership = membership;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        membership.peers().forEach(peer -> outboxes.put(peer, new Outbox()));
+        this.sender = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cluster-relay").daemon().factory());
+        sender.scheduleWithFixedDelay(this::send, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        if (change.relayed()) {
+            return;
+        }
+        outboxes.values().forEach(outbox -> outbox.changes.add(change));
+    }
+    
+    /**
+     * Publish here the changes another member committed
+     */
+    public void receive(List<CatalogChange> changes) {
+        changes.forEach(change -> eventPublisher.publishEvent(change.asRelayed()));
+    }
+    
+    private void send() {
+        outboxes.forEach((peer, outbox) -> {
+            if (outbox.changes.isEmpty() || !membership.isLive(peer) || !outbox.sending.compareAndSet(false, true)) {
+                return;
+            }
+            List<CatalogChange> batch = new ArrayList<>(outbox.changes);
+            // A change queued again meanwhile is covered by this batch, which is delivered after it committed
+            outbox.changes.removeAll(batch);
+            HttpRequest request;
+            try {
+                request = HttpRequest.newBuilder(URI.create(peer + CATALOG_CHANGES_PATH))
+                    .timeout(membership.requestTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                    .build();
+            } catch (JsonProcessingException e) {
+                log.error("Failed to encode {} catalog changes for {}", batch.size(), peer, e);
+                outbox.sending.set(false);
+                return;
+            }
+            membership.httpClient().sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    if (failure != null || response.statusCode() / 100 != 2) {
+                        log.debug("Cluster member {} did not take {} catalog changes, keeping them", peer, batch.size());
+                        outbox.changes.addAll(batch);
+                    }
+                    outbox.sending.set(false);
+                });
+        });
+    }
+    
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+    }
+    
+    private static final class Outbox {
+        private final Set<CatalogChange> changes = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean sending = new AtomicBoolean();
+    }
+}
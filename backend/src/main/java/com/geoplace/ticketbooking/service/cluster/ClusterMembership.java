@@ -0,0 +1,187 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This node's view of which cluster members are alive, and the ring of event ownership built from it.
+ * <p>
+ * Members are the base URLs listed in {@code ticketbooking.cluster.members}; {@code ticketbooking.cluster.self}
+ * names this node among them. Every member starts out alive. A heartbeat thread pings the others
+ * every {@code heartbeat-interval}; a member is dropped from the ring after {@code failure-threshold}
+ * missed pings, or at once when a forwarded booking cannot reach it, and rejoins on its next answered
+ * ping. Whenever the ring changes, the engine forgets the inventory of every event whose owner changed,
+ * so a node taking an event over starts from the database rather than from a stale count.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterMembership implements DisposableBean {
+    
+    static final String PING_PATH = "/internal/cluster/ping";
+    
+    private final BookingEngine bookingEngine;
+    private final String self;
+    private final List<String> peers;
+    private final int virtualNodes;
+    private final int failureThreshold;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final Map<String, Integer> missedPings = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat;
+    private volatile ConsistentHashRing ring;
+    
+    public ClusterMembership(BookingEngine bookingEngine,
+                             @Value("${ticketbooking.cluster.self:http://localhost:${server.port:8080}}") String self,
+                             @Value("${ticketbooking.cluster.members:}") List<String> members,
+                             @Value("${ticketbooking.cluster.virtual-nodes:128}") int virtualNodes,
+                             @Value("${ticketbooking.cluster.heartbeat-interval:1s}") Duration heartbeatInterval,
+                             @Value("${ticketbooking.cluster.failure-threshold:3}") int failureThreshold,
+                             @Value("${ticketbooking.cluster.request-timeout:2s}") Duration requestTimeout) {
+        this.bookingEngine = bookingEngine;
+        this.self = normalize(self);
+        this.peers = members.stream()
+            .map(ClusterMembership::normalize)
+            .filter(member -> !member.isEmpty() && !member.equals(this.self))
+            .distinct()
+            .toList();
+        this.virtualNodes = virtualNodes;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(requestTimeout).build();
+        this.ring = buildRing();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cluster-heartbeat").daemon().factory());
+        heartbeat.scheduleWithFixedDelay(this::pingPeers, heartbeatInterval.toMillis(),
+            heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Cluster node {} with peers {}", this.self, peers);
+    }
+    
+    public String self() {
+        return self;
+    }
+    
+    /**
+     * @return base URL of the member currently owning the event
+     */
+    public String ownerOf(long eventId) {
+        return ring.ownerOf(eventId);
+    }
+    
+    public boolean owns(long eventId) {
+        return self.equals(ring.ownerOf(eventId));
+    }
+    
+    public List<String> liveMembers() {
+        return ring.members();
+    }
+    
+    /**
+     * @return every other configured member, alive or not
+     */
+    List<String> peers() {
+        return peers;
+    }
+    
+    boolean isLive(String member) {
+        return ring.members().contains(member);
+    }
+    
+    HttpClient httpClient() {
+        return httpClient;
+    }
+    
+    Duration requestTimeout() {
+        return requestTimeout;
+    }
+    
+    /**
+     * Take a member out of the ring right away, e.g. after a forwarded request could not reach it
+     */
+    void markDown(String member) {
+        if (!self.equals(member)) {
+            missedPings.put(member, failureThreshold);
+            refresh();
+        }
+    }
+    
+    private void pingPeers() {
+        boolean changed = false;
+        for (String peer : peers) {
+            boolean alive = ping(peer);
+            Integer before = missedPings.get(peer);
+            int missed = alive ? 0 : Math.min(failureThreshold, (before == null ? 0 : before) + 1);
+            missedPings.put(peer, missed);
+            changed |= before == null || (before >= failureThreshold) != (missed >= failureThreshold);
+        }
+        if (changed) {
+            refresh();
+        }
+    }
+    
+    private boolean ping(String peer) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(peer + PING_PATH))
+            .timeout(requestTimeout)
+            .GET()
+            .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.debug("Cluster member {} did not answer its ping: {}", peer, e.toString());
+            return false;
+        }
+    }
+    
+    private synchronized void refresh() {
+        ConsistentHashRing before = ring;
+        ConsistentHashRing after = buildRing();
+        if (after.members().equals(before.members())) {
+            return;
+        }
+        ring = after;
+        bookingEngine.evictInventory(eventId -> !before.ownerOf(eventId).equals(after.ownerOf(eventId)));
+        log.info("Cluster membership changed from {} to {}", before.members(), after.members());
+    }
+    
+    private ConsistentHashRing buildRing() {
+        SortedSet<String> live = new TreeSet<>();
+        live.add(self);
+        for (String peer : peers) {
+            if (missedPings.getOrDefault(peer, 0) < failureThreshold) {
+                live.add(peer);
+            }
+        }
+        return new ConsistentHashRing(live, virtualNodes);
+    }
+    
+    private static String normalize(String member) {
+        String trimmed = member.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+    
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+    }
+}
@@ -0,0 +1,224 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.dto.BookingRequest;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.CancellationRequest;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.dto.ErrorResponse;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.IdempotencyKeyReusedException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Sends bookings and cancellations for events another member owns to that member, over
+ * plain HTTP/JSON on the internal endpoints of {@link com.geoplace.ticketbooking.controller.ClusterController}.
+ * <p>
+ * The owner's answer, success or error, is handed back as if the booking had run here. When
+ * the owner cannot be reached it is taken out of the ring and the booking is served locally;
+ * every engine still decrements the shared event row conditionally, so two nodes briefly
+ * claiming the same event can undersell but never oversell it.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterRouter {
+    
+    static final String BOOKINGS_PATH = "/internal/cluster/bookings";
+    static final String CANCELLATIONS_PATH = "/internal/cluster/cancellations";
+    static final String EVENT_CANCELLATIONS_PATH = "/internal/cluster/events/%d/cancellations";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
+    /** Set while serving a forwarded booking, which is always booked here, never forwarded again */
+    private static final ThreadLocal<Boolean> FORWARDED = new ThreadLocal<>();
+    
+    private final ClusterMembership membership;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * @return whether bookings for the event are served by this node
+     */
+    public boolean isLocal(Long eventId) {
+        return FORWARDED.get() != null || membership.owns(eventId);
+    }
+    
+    /**
+     * @return the member owning the event when that is not this node; null when it is served here
+     */
+    public String remoteOwnerOf(Long eventId) {
+        return isLocal(eventId) ? null : membership.ownerOf(eventId);
+    }
+    
+    /**
+     * Run a booking or cancellation another member forwarded here
+     */
+    public <T> T serveForwarded(Supplier<T> booking) {
+        FORWARDED.set(Boolean.TRUE);
+        try {
+            return booking.get();
+        } finally {
+            FORWARDED.remove();
+        }
+    }
+    
+    /**
+     * Book on the member owning the event
+     * @return the owner's response, or empty if the owner was unreachable and the booking is to be served here
+     */
+    public Optional<BookingResponse> forward(Long eventId, Integer count, String userId, String idempotencyKey) {
+        try {
+            return forwardAsync(eventId, count, userId, idempotencyKey).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    public CompletableFuture<Optional<BookingResponse>> forwardAsync(Long eventId, Integer count, String userId,
+                                                                     String idempotencyKey) {
+        String owner = membership.ownerOf(eventId);
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(owner + BOOKINGS_PATH))
+                .timeout(membership.requestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                    objectMapper.writeValueAsBytes(new BookingRequest(eventId, count, userId))));
+            if (idempotencyKey != null) {
+                builder.header(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+            }
+            request = builder.build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Forwarding booking of {} tickets for event {} to {}", count, eventId, owner);
+        }
+        
+        return membership.httpClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .handle((response, failure) -> {
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (!(cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException)) {
+                        // The owner may have booked it; only a retry with the same key can tell
+                        throw new BookingConflictException("Cluster member " + owner + " did not answer, please retry");
+                    }
+                    // Never reached the owner, so it cannot have booked anything
+                    log.warn("Cluster member {} is unreachable, booking event {} locally", owner, eventId);
+                    membership.markDown(owner);
+                    return Optional.empty();
+                }
+                return Optional.of(decode(owner, response));
+            });
+    }
+    
+    /**
+     * Cancel the user's bookings on the member owning their events. Cancelling is idempotent,
+     * so an owner that did not answer in time is reported as a conflict to retry.
+     * @return the owner's response, or empty if the owner was unreachable and they are to be cancelled here
+     */
+    public Optional<CancellationResponse> forwardCancellation(String owner, Collection<Long> bookingIds, String userId) {
+        try {
+            URI uri = URI.create(
+                owner + CANCELLATIONS_PATH + "?userId=" + URLEncoder.encode(userId, StandardCharsets.UTF_8));
+            byte[] body = objectMapper.writeValueAsBytes(new CancellationRequest(List.copyOf(bookingIds)));
+            return sendCancellation(owner, uri, body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Cancel every booking of the event on the member owning it
+     * @return the owner's response, or empty if the owner was unreachable and the event is to be cancelled here
+     */
+    public Optional<CancellationResponse> forwardEventCancellation(Long eventId) {
+        String owner = membership.ownerOf(eventId);
+        return sendCancellation(owner, URI.create(owner + EVENT_CANCELLATIONS_PATH.formatted(eventId)), new byte[0]);
+    }
+    
+    private Optional<CancellationResponse> sendCancellation(String owner, URI uri, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(membership.requestTimeout())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        if (log.isDebugEnabled()) {
+            log.debug("Forwarding cancellation {} to {}", uri.getPath(), owner);
+        }
+        try {
+            return membership.httpClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        if (!(cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException)) {
+                            throw new BookingConflictException("Cluster member " + owner + " did not answer, please retry");
+                        }
+                        log.warn("Cluster member {} is unreachable, cancelling locally", owner);
+                        membership.markDown(owner);
+                        return Optional.<CancellationResponse>empty();
+                    }
+                    return Optional.of(decodeCancellation(owner, response));
+                })
+                .join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    private CancellationResponse decodeCancellation(String owner, HttpResponse<byte[]> response) {
+        try {
+            if (response.statusCode() / 100 == 2) {
+                return objectMapper.readValue(response.body(), CancellationResponse.class);
+            }
+            ErrorResponse error = objectMapper.readValue(response.body(), ErrorResponse.class);
+            throw response.statusCode() == 422
+                ? new EventNotFoundException(error.getDetails())
+                : new IllegalStateException("Cluster member " + owner + " failed the cancellation: " + error.getDetails());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable answer from cluster member " + owner, e);
+        }
+    }
+    
+    private BookingResponse decode(String owner, HttpResponse<byte[]> response) {
+        try {
+            if (response.statusCode() / 100 == 2) {
+                return objectMapper.readValue(response.body(), BookingResponse.class);
+            }
+            ErrorResponse error = objectMapper.readValue(response.body(), ErrorResponse.class);
+            throw switch (response.statusCode()) {
+                case 404 -> new EventNotFoundException(error.getDetails());
+                case 409 -> "Insufficient Tickets".equals(error.getMessage())
+                    ? new InsufficientTicketsException(error.getDetails())
+                    : new BookingConflictException(error.getDetails());
+                case 422 -> new IdempotencyKeyReusedException(error.getDetails());
+                default -> new IllegalStateException(
+                    "Cluster member " + owner + " failed the booking: " + error.getDetails());
+            };
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable answer from cluster member " + owner, e);
+        }
+    }
+}
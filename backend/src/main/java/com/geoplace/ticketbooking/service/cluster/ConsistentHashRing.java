@@ -0,0 +1,82 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping event IDs to the cluster member that owns them.
+ * <p>
+ * Each member is placed on the ring at {@code virtualNodes} points, and an event belongs
+ * to the first point at or after its own hash. Adding or removing a member therefore only
+ * moves the events next to that member's points, about {@code 1/n} of them, and leaves
+ * every other event where it was. Lookups are a binary search over a sorted array.
+ */
+public final class ConsistentHashRing {
+    
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+    
+    public ConsistentHashRing(SortedSet<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one member");
+        }
+        this.members = List.copyOf(members);
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String member : members) {
+            long base = fnv1a(member);
+            for (int replica = 0; replica < Math.max(1, virtualNodes); replica++) {
+                ring.put(mix(base + replica * 0x9E3779B97F4A7C15L), member);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int index = 0;
+        for (Map.Entry<Long, String> point : ring.entrySet()) {
+            points[index] = point.getKey();
+            owners[index++] = point.getValue();
+        }
+    }
+    
+    public static ConsistentHashRing of(List<String> members, int virtualNodes) {
+        return new ConsistentHashRing(new TreeSet<>(members), virtualNodes);
+    }
+    
+    public String ownerOf(long eventId) {
+        int index = Arrays.binarySearch(points, mix(eventId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+    
+    public List<String> members() {
+        return members;
+    }
+    
+    /**
+     * Finalizer of MurmurHash3, so that consecutive IDs land far apart on the ring
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+    
+    private static long fnv1a(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
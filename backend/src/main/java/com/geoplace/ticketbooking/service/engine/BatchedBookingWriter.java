@@ -0,0 +1,110 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for bookings that were already accepted in memory.
+ * <p>
+ * A single writer thread groups submissions into micro-batches, closed when
+ * either {@code ticketbooking.inventory.batch-size} bookings are queued or
+ * {@code ticketbooking.inventory.batch-window} has passed since the first one,
+ * and hands each batch to the {@link BookingBatchPersister}.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.booking.engine", havingValue = "in-memory")
+public class BatchedBookingWriter implements DisposableBean {
+    
+    private final BookingBatchPersister persister;
+    private final int batchSize;
+    private final long batchWindowNanos;
+    private final BlockingQueue<PendingBooking> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    
+    public BatchedBookingWriter(BookingBatchPersister persister,
+                                @Value("${ticketbooking.inventory.batch-size:500}") int batchSize,
+                                @Value("${ticketbooking.inventory.batch-window:2ms}") Duration batchWindow) {
+        this.persister = persister;
+        this.batchSize = batchSize;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.writerThread = Thread.ofPlatform().name("booking-writer").daemon().start(this::runWriter);
+    }
+    
+    /**
+     * Queue an accepted booking for the next batch
+     * @return future completed with the generated booking ID once the batch commits
+     */
+    public CompletableFuture<Long> submit(Long eventId, int count, String userId, String idempotencyKey) {
+        PendingBooking pending = new PendingBooking(eventId, count, userId, idempotencyKey, LocalDateTime.now());
+        if (!running) {
+            pending.result.completeExceptionally(new IllegalStateException("Booking writer is shut down"));
+            return pending.result;
+        }
+        queue.add(pending);
+        return pending.result;
+    }
+    
+    /**
+     * Write a multi-event order on the calling thread, in a transaction of its own,
+     * so that it commits or rolls back as a whole rather than sharing a batch
+     * @return generated booking IDs, in event ID order
+     * @throws IllegalStateException if any event row cannot cover its line
+     */
+    public List<Long> writeAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        return persister.writeAll(ticketsPerEvent, userId);
+    }
+    
+    private void runWriter() {
+        List<PendingBooking> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    PendingBooking next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                persister.write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        PendingBooking pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Booking writer is shut down"));
+        }
+    }
+}
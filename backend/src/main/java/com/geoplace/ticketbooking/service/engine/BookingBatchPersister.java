@@ -0,0 +1,192 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.service.journal.BookingJournal;
+import com.geoplace.ticketbooking.service.journal.JournalRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Persists bookings that an engine has already accepted in memory.
+ * <p>
+ * Each batch commits in one transaction with one aggregated decrement per
+ * event and one multi-row insert for the bookings. JDBC is used directly
+ * because {@code IDENTITY} keys stop Hibernate from batching the inserts.
+ * Event rows are always updated in ascending ID order, the same order
+ * multi-event orders lock them in, so the two never deadlock.
+ * <p>
+ * With the {@link BookingJournal}, the bookings' records are appended once their
+ * rows are written and before the transaction commits, so a committed booking is
+ * always in the journal, with its ID, and one the journal could not take is rolled back.
+ */
+@Component
+@ConditionalOnExpression("'${ticketbooking.booking.engine:database}' matches 'in-memory|single-writer'")
+@Slf4j
+public class BookingBatchPersister {
+    
+    private static final String DECREMENT_SQL =
+        "UPDATE events SET available_tickets = available_tickets - ?, version = version + 1 " +
+        "WHERE id = ? AND available_tickets >= ?";
+    private static final String INSERT_PREFIX =
+        "INSERT INTO bookings (event_id, ticket_count, booking_time, user_id, idempotency_key) VALUES ";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<BookingJournal> journal;
+    
+    public BookingBatchPersister(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 Optional<BookingJournal> journal) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.journal = journal;
+    }
+    
+    /**
+     * Write a multi-event order in a transaction of its own, so that it commits
+     * or rolls back as a whole rather than sharing a batch
+     * @return generated booking IDs, in event ID order
+     * @throws IllegalStateException if any event row cannot cover its line
+     */
+    public List<Long> writeAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        LocalDateTime bookingTime = LocalDateTime.now();
+        List<PendingBooking> bookings = new ArrayList<>(ticketsPerEvent.size());
+        ticketsPerEvent.forEach((eventId, count) -> bookings.add(new PendingBooking(eventId, count, userId, null, bookingTime)));
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> diverged = decrement(ticketsPerEvent);
+            if (!diverged.isEmpty()) {
+                throw new IllegalStateException(
+                    "In-memory inventory for events " + diverged + " diverged from the database");
+            }
+            insert(bookings);
+            journal(bookings);
+        });
+        return bookings.stream().map(pending -> pending.bookingId).toList();
+    }
+    
+    /**
+     * Write a batch of independent bookings and complete each one's result.
+     * A booking whose event row cannot cover it fails with {@link IllegalStateException};
+     * a batch that violates a constraint is retried one by one, so only the offender fails.
+     * Results are completed once the transaction is over, so callbacks never run inside it.
+     */
+    void write(List<PendingBooking> batch) {
+        Map<Long, Integer> ticketsPerEvent = new TreeMap<>();
+        for (PendingBooking pending : batch) {
+            ticketsPerEvent.merge(pending.eventId, pending.count, Integer::sum);
+        }
+        
+        List<PendingBooking> written = new ArrayList<>(batch.size());
+        List<PendingBooking> refused = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> diverged = decrement(ticketsPerEvent);
+                for (PendingBooking pending : batch) {
+                    (diverged.contains(pending.eventId) ? refused : written).add(pending);
+                }
+                insert(written);
+                journal(written);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            // Typically a reused idempotency key: write one by one so only the offender fails
+            log.warn("Booking batch of {} bookings violated a constraint, writing them individually", batch.size());
+            batch.stream()
+                .filter(pending -> !pending.result.isDone())
+                .forEach(pending -> write(List.of(pending)));
+            return;
+        } catch (RuntimeException e) {
+            log.error("Failed to write booking batch of {} bookings", batch.size(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+        
+        log.debug("Wrote booking batch of {} bookings across {} events", written.size(), ticketsPerEvent.size());
+        refused.forEach(pending -> pending.result.completeExceptionally(new IllegalStateException(
+            "In-memory inventory for event " + pending.eventId + " diverged from the database")));
+        written.forEach(pending -> pending.result.complete(pending.bookingId));
+    }
+    
+    /**
+     * @return events whose row could not cover the aggregated decrement
+     */
+    private Set<Long> decrement(Map<Long, Integer> ticketsPerEvent) {
+        List<Object[]> args = new ArrayList<>(ticketsPerEvent.size());
+        ticketsPerEvent.forEach((eventId, count) -> args.add(new Object[] {count, eventId, count}));
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        
+        Set<Long> diverged = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                diverged.add((Long) args.get(i)[1]);
+            }
+        }
+        return diverged;
+    }
+    
+    private void journal(List<PendingBooking> bookings) {
+        if (journal.isEmpty() || bookings.isEmpty()) {
+            return;
+        }
+        JournalRecord[] records = new JournalRecord[bookings.size()];
+        for (int i = 0; i < records.length; i++) {
+            PendingBooking pending = bookings.get(i);
+            records[i] = new JournalRecord.Booked(pending.eventId, pending.bookingId, pending.count,
+                JournalRecord.epochMillis(pending.bookingTime), pending.userId, pending.idempotencyKey);
+        }
+        journal.get().appendBeforeCommit(records);
+    }
+    
+    private void insert(List<PendingBooking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + bookings.size() * 13).append(INSERT_PREFIX);
+        for (int i = 0; i < bookings.size(); i++) {
+            sql.append(i == 0 ? "(?,?,?,?,?)" : ",(?,?,?,?,?)");
+        }
+        
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(), new String[] {"id"})) {
+                int index = 1;
+                for (PendingBooking pending : bookings) {
+                    statement.setLong(index++, pending.eventId);
+                    statement.setInt(index++, pending.count);
+                    statement.setTimestamp(index++, Timestamp.valueOf(pending.bookingTime));
+                    statement.setString(index++, pending.userId);
+                    statement.setString(index++, pending.idempotencyKey);
+                }
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (PendingBooking pending : bookings) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Missing generated key for booking batch");
+                        }
+                        pending.bookingId = keys.getLong(1);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
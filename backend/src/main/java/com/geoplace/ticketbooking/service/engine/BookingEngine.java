@@ -0,0 +1,112 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a booking can be accepted and records it.
+ * Exactly one engine is active, selected with {@code ticketbooking.booking.engine}.
+ */
+public interface BookingEngine {
+
+    /**
+     * Book tickets for an event without ever overselling it
+     * @param eventId The event ID
+     * @param count Number of tickets to book
+     * @param userId User making the booking
+     * @param idempotencyKey Stored with the booking, unique per user; may be null
+     * @return BookingResponse with booking details
+     */
+    BookingResponse bookTickets(Long eventId, Integer count, String userId, String idempotencyKey);
+    
+    default BookingResponse bookTickets(Long eventId, Integer count, String userId) {
+        return bookTickets(eventId, count, userId, null);
+    }
+    
+    /**
+     * Book tickets for several events in one transaction: either every line is
+     * booked or none is. Inventory is claimed in ascending event ID order, so
+     * overlapping orders can never deadlock each other.
+     * @param ticketsPerEvent Tickets to book, keyed and ordered by event ID
+     * @param userId User making the booking
+     * @return one BookingResponse per event, in event ID order
+     */
+    List<BookingResponse> bookAll(SortedMap<Long, Integer> ticketsPerEvent, String userId);
+    
+    /**
+     * Book tickets without blocking the caller on persistence.
+     * Failures, including rejected bookings, complete the future exceptionally.
+     * @return future completed once the booking is durably recorded
+     */
+    default CompletableFuture<BookingResponse> bookTicketsAsync(Long eventId, Integer count, String userId,
+                                                                String idempotencyKey) {
+        try {
+            return CompletableFuture.completedFuture(bookTickets(eventId, count, userId, idempotencyKey));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    default CompletableFuture<BookingResponse> bookTicketsAsync(Long eventId, Integer count, String userId) {
+        return bookTicketsAsync(eventId, count, userId, null);
+    }
+    
+    /**
+     * Take tickets out of the sellable inventory without recording a booking,
+     * as part of the caller's transaction; rolled back with it
+     * @param userId User the tickets are withdrawn for
+     * @throws com.geoplace.ticketbooking.exception.InsufficientTicketsException if too few are left
+     */
+    void withdrawTickets(Long eventId, int count, String userId);
+    
+    /**
+     * Withdraw tickets in a new transaction and run {@code work} in the same one.
+     * Engines that wait on another thread for the tickets override this to claim
+     * them before the transaction takes a database connection.
+     * @return result of {@code work}
+     * @throws com.geoplace.ticketbooking.exception.InsufficientTicketsException if too few are left
+     */
+    default <T> T withdrawTickets(Long eventId, int count, String userId,
+                                  TransactionOperations transaction, Supplier<T> work) {
+        return transaction.execute(status -> {
+            withdrawTickets(eventId, count, userId);
+            return work.get();
+        });
+    }
+    
+    /**
+     * Return previously withdrawn tickets, as part of the caller's transaction
+     * @param ticketsPerEvent Tickets to return, keyed and ordered by event ID
+     */
+    void restoreTickets(SortedMap<Long, Integer> ticketsPerEvent);
+    
+    /**
+     * Wait until tickets restored by a committed transaction can be booked again. Call once
+     * that transaction has completed, so no connection is held while waiting.
+     */
+    default void awaitRestocked(Collection<Long> eventIds) {
+    }
+    
+    /**
+     * Remaining tickets as currently seen by the engine, when it holds inventory
+     * in memory that may be ahead of the database row
+     */
+    default OptionalInt availableTickets(Long eventId) {
+        return OptionalInt.empty();
+    }
+    
+    /**
+     * Forget inventory held in memory for the matching events, so that it is
+     * reloaded from the database when next used, e.g. after another node sold from it
+     */
+    default void evictInventory(LongPredicate eventIds) {
+    }
+}
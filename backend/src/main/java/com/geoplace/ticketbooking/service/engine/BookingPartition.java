@@ -0,0 +1,377 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * The events of one partition together with the one thread that owns them.
+ * <p>
+ * Request threads only ever write commands into the partition's {@link CommandRing}.
+ * The owner thread takes whatever has been published as one batch, decides every
+ * command against plain counters nobody else writes, persists the accepted bookings
+ * of the batch in one transaction and only then completes their futures. Counters
+ * are loaded from the event row on first use and always run ahead of it. Tickets
+ * put back on a counter are reported to {@code restocked} once the counter holds them.
+ */
+@Slf4j
+final class BookingPartition {
+    
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final EventRepository eventRepository;
+    private final BookingBatchPersister persister;
+    private final LongConsumer restocked;
+    private final CommandRing<Command> ring;
+    private final int batchSize;
+    private final Thread owner;
+    private volatile boolean running = true;
+    
+    // Written by the owner thread only; read by anyone through availableTickets
+    private final Map<Long, Inventory> inventories = new ConcurrentHashMap<>();
+    
+    // Owner thread only, reused across batches
+    private final List<Command> accepted = new ArrayList<>();
+    private final List<PendingBooking> pending = new ArrayList<>();
+    
+    BookingPartition(int index, EventRepository eventRepository, BookingBatchPersister persister,
+                     LongConsumer restocked, int ringSize, int batchSize) {
+        this.eventRepository = eventRepository;
+        this.persister = persister;
+        this.restocked = restocked;
+        this.ring = new CommandRing<>(ringSize, Command::new);
+        this.batchSize = Math.max(1, Math.min(batchSize, ring.capacity()));
+        this.owner = Thread.ofPlatform().name("booking-partition-" + index).daemon().start(this::run);
+    }
+    
+    /**
+     * @return future completed once the booking is committed, or failed right away if the ring is full
+     */
+    CompletableFuture<BookingResponse> book(Long eventId, int count, String userId, String idempotencyKey) {
+        CompletableFuture<BookingResponse> result = new CompletableFuture<>();
+        long sequence = claim();
+        if (sequence == CommandRing.FULL) {
+            result.completeExceptionally(busy(eventId));
+            return result;
+        }
+        Command command = ring.slot(sequence);
+        command.type = Command.BOOK;
+        command.eventId = eventId;
+        command.count = count;
+        command.userId = userId;
+        command.idempotencyKey = idempotencyKey;
+        command.booked = result;
+        ring.publish(sequence);
+        return result;
+    }
+    
+    /**
+     * Take tickets off the counter without booking them
+     * @return tickets left afterwards
+     */
+    int reserve(Long eventId, int count) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        long sequence = claim();
+        if (sequence == CommandRing.FULL) {
+            throw busy(eventId);
+        }
+        Command command = ring.slot(sequence);
+        command.type = Command.RESERVE;
+        command.eventId = eventId;
+        command.count = count;
+        command.reserved = result;
+        ring.publish(sequence);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    /**
+     * Put reserved tickets back. Never refused: waits for room in the ring instead.
+     */
+    void release(Long eventId, int count) {
+        enqueue(Command.RELEASE, eventId, count);
+    }
+    
+    /**
+     * Wait until the owner has applied every command published before this call,
+     * by queueing a reservation of no tickets behind them; best effort
+     */
+    void await(Long eventId) {
+        if (Thread.currentThread() == owner) {
+            return;
+        }
+        try {
+            reserve(eventId, 0);
+        } catch (RuntimeException e) {
+            // Full ring, shut down or missing event: nothing more to wait for
+        }
+    }
+    
+    /**
+     * Forget the counter so that the next command reloads it from the database
+     */
+    void evict(Long eventId) {
+        enqueue(Command.EVICT, eventId, 0);
+    }
+    
+    void evictIf(LongPredicate eventIds) {
+        for (Long eventId : inventories.keySet()) {
+            if (eventIds.test(eventId)) {
+                evict(eventId);
+            }
+        }
+    }
+    
+    /**
+     * @return name of a loaded event, or null
+     */
+    String eventName(Long eventId) {
+        Inventory inventory = inventories.get(eventId);
+        return inventory == null ? null : inventory.eventName;
+    }
+    
+    OptionalInt availableTickets(Long eventId) {
+        Inventory inventory = inventories.get(eventId);
+        return inventory == null ? OptionalInt.empty() : OptionalInt.of(inventory.remaining);
+    }
+    
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(owner);
+        owner.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    private long claim() {
+        return running ? ring.tryClaim() : CommandRing.FULL;
+    }
+    
+    private void enqueue(byte type, Long eventId, int count) {
+        if (Thread.currentThread() == owner) {
+            // Called back from a completed future; waiting on our own ring would never end
+            apply(type, eventId, count);
+            return;
+        }
+        long sequence;
+        while ((sequence = ring.tryClaim()) == CommandRing.FULL) {
+            if (!owner.isAlive()) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        Command command = ring.slot(sequence);
+        command.type = type;
+        command.eventId = eventId;
+        command.count = count;
+        ring.publish(sequence);
+    }
+    
+    private void run() {
+        while (running) {
+            int batch = ring.available(batchSize);
+            if (batch == 0) {
+                ring.awaitPublished(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                for (int i = 0; i < batch; i++) {
+                    decide(ring.peek(i));
+                }
+                persistAccepted();
+            } catch (RuntimeException e) {
+                log.error("Booking partition {} failed on a batch of {} commands", owner.getName(), batch, e);
+                accepted.forEach(command -> failAccepted(command, e));
+            } finally {
+                for (int i = 0; i < batch; i++) {
+                    ring.peek(i).clear();
+                }
+                accepted.clear();
+                pending.clear();
+                ring.release(batch);
+            }
+        }
+        failRemaining();
+    }
+    
+    private void decide(Command command) {
+        switch (command.type) {
+            case Command.BOOK -> {
+                Inventory inventory = take(command.eventId, command.count, command.booked);
+                if (inventory != null) {
+                    command.remaining = inventory.remaining;
+                    command.eventName = inventory.eventName;
+                    accepted.add(command);
+                    pending.add(new PendingBooking(command.eventId, command.count, command.userId,
+                        command.idempotencyKey, LocalDateTime.now()));
+                }
+            }
+            case Command.RESERVE -> {
+                Inventory inventory = take(command.eventId, command.count, command.reserved);
+                if (inventory != null) {
+                    command.reserved.complete(inventory.remaining);
+                }
+            }
+            default -> apply(command.type, command.eventId, command.count);
+        }
+    }
+    
+    /**
+     * @return the event's inventory with {@code count} taken off, or null once {@code result} has failed
+     */
+    private Inventory take(Long eventId, int count, CompletableFuture<?> result) {
+        Inventory inventory;
+        try {
+            inventory = inventoryFor(eventId);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return null;
+        }
+        if (inventory.remaining < count) {
+            if (log.isDebugEnabled()) {
+                log.debug("Insufficient tickets for event {}. Requested: {}, Available: {}",
+                          eventId, count, inventory.remaining);
+            }
+            result.completeExceptionally(new InsufficientTicketsException(count, inventory.remaining));
+            return null;
+        }
+        inventory.remaining -= count;
+        return inventory;
+    }
+    
+    private void apply(byte type, Long eventId, int count) {
+        if (type == Command.EVICT) {
+            inventories.remove(eventId);
+            return;
+        }
+        Inventory inventory = inventories.get(eventId);
+        // Not loaded yet: the row already holds the released tickets
+        if (inventory != null) {
+            inventory.remaining += count;
+        }
+        restocked.accept(eventId);
+    }
+    
+    private void persistAccepted() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        persister.write(pending);
+        for (int i = 0; i < accepted.size(); i++) {
+            Command command = accepted.get(i);
+            PendingBooking booking = pending.get(i);
+            if (booking.result.isCompletedExceptionally()) {
+                failAccepted(command, booking.result.exceptionNow());
+                continue;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Successfully booked {} tickets for event {}. Remaining: {}",
+                          command.count, command.eventId, command.remaining);
+            }
+            command.booked.complete(BookingResponse.success(booking.bookingId, command.eventId, command.eventName,
+                command.count, command.remaining));
+        }
+    }
+    
+    private void failAccepted(Command command, Throwable failure) {
+        if (command.booked.isDone()) {
+            return;
+        }
+        if (failure instanceof IllegalStateException) {
+            inventories.remove(command.eventId);
+            restocked.accept(command.eventId);
+        } else {
+            apply(Command.RELEASE, command.eventId, command.count);
+        }
+        command.booked.completeExceptionally(failure);
+    }
+    
+    private Inventory inventoryFor(Long eventId) {
+        Inventory inventory = inventories.get(eventId);
+        if (inventory == null) {
+            inventory = eventRepository.findById(eventId)
+                .map(event -> new Inventory(event.getName(), event.getAvailableTickets()))
+                .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + eventId));
+            inventories.put(eventId, inventory);
+        }
+        return inventory;
+    }
+    
+    private void failRemaining() {
+        IllegalStateException closed = new IllegalStateException("Booking partition is shut down");
+        int batch;
+        while ((batch = ring.available(ring.capacity())) > 0) {
+            for (int i = 0; i < batch; i++) {
+                Command command = ring.peek(i);
+                if (command.booked != null) {
+                    command.booked.completeExceptionally(closed);
+                }
+                if (command.reserved != null) {
+                    command.reserved.completeExceptionally(closed);
+                }
+                command.clear();
+            }
+            ring.release(batch);
+        }
+    }
+    
+    private static BookingConflictException busy(Long eventId) {
+        return new BookingConflictException("Too many bookings queued for event " + eventId + ", please retry");
+    }
+    
+    private static final class Inventory {
+        private final String eventName;
+        private volatile int remaining;
+        
+        private Inventory(String eventName, int remaining) {
+            this.eventName = eventName;
+            this.remaining = remaining;
+        }
+    }
+    
+    /**
+     * A preallocated ring slot, overwritten for every command that passes through it
+     */
+    private static final class Command {
+        private static final byte BOOK = 1;
+        private static final byte RESERVE = 2;
+        private static final byte RELEASE = 3;
+        private static final byte EVICT = 4;
+        
+        private byte type;
+        private Long eventId;
+        private int count;
+        private String userId;
+        private String idempotencyKey;
+        private CompletableFuture<BookingResponse> booked;
+        private CompletableFuture<Integer> reserved;
+        private String eventName;
+        private int remaining;
+        
+        private void clear() {
+            eventId = null;
+            userId = null;
+            idempotencyKey = null;
+            booked = null;
+            reserved = null;
+            eventName = null;
+        }
+    }
+}
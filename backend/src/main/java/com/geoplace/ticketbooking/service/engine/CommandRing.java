@@ -0,0 +1,119 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded ring of preallocated slots with many producers and a single consumer.
+ * <p>
+ * A producer claims the next sequence with one CAS, fills the slot it maps to and
+ * publishes it by advancing that slot's own sequence number, so producers never
+ * wait on each other while writing. The consumer takes every contiguous published
+ * slot as one batch and only hands the slots back once the batch is done with,
+ * which lets it keep working on the commands in place. A full ring refuses the
+ * claim instead of blocking the producer.
+ */
+final class CommandRing<T> {
+    
+    static final long FULL = -1L;
+    
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+    
+    // Consumer only
+    private long head;
+    
+    CommandRing(int capacity, Supplier<T> factory) {
+        int size = capacity <= 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * @return sequence of the claimed slot, or {@link #FULL}
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = claimed.get();
+            long diff = sequences.get(index(sequence)) - sequence;
+            if (diff < 0) {
+                return FULL;
+            }
+            if (diff == 0 && claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+            Thread.onSpinWait();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    T slot(long sequence) {
+        return (T) slots[index(sequence)];
+    }
+    
+    void publish(long sequence) {
+        sequences.set(index(sequence), sequence + 1);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    /**
+     * @return number of published slots ready for the consumer, at most {@code max}
+     */
+    int available(int max) {
+        int ready = 0;
+        while (ready < max && sequences.get(index(head + ready)) == head + ready + 1) {
+            ready++;
+        }
+        return ready;
+    }
+    
+    /**
+     * The slot {@code offset} places after the consumer's position
+     */
+    T peek(int offset) {
+        return slot(head + offset);
+    }
+    
+    /**
+     * Hand the first {@code count} consumed slots back to the producers
+     */
+    void release(int count) {
+        for (int i = 0; i < count; i++) {
+            sequences.setRelease(index(head), head + slots.length);
+            head++;
+        }
+    }
+    
+    /**
+     * Park the consumer until a producer publishes or {@code nanos} pass
+     */
+    void awaitPublished(long nanos) {
+        consumer = Thread.currentThread();
+        consumerParked = true;
+        if (available(1) == 0) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        consumerParked = false;
+    }
+    
+    int capacity() {
+        return slots.length;
+    }
+    
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
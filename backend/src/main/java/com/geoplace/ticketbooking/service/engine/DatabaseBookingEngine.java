@@ -0,0 +1,115 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.strategy.BookingConcurrencyStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Default engine: every booking is decided on the event row in the database,
+ * using the {@link BookingConcurrencyStrategy} named by {@code ticketbooking.booking.strategy}.
+ * Multi-event orders always lock their rows pessimistically, whatever the strategy.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.booking.engine", havingValue = "database", matchIfMissing = true)
+@Slf4j
+public class DatabaseBookingEngine implements BookingEngine {
+    
+    private final BookingConcurrencyStrategy strategy;
+    private final EventRepository eventRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    public DatabaseBookingEngine(List<BookingConcurrencyStrategy> strategies,
+                                 @Value("${ticketbooking.booking.strategy:pessimistic}") String strategyName,
+                                 EventRepository eventRepository,
+                                 BookingRepository bookingRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.eventRepository = eventRepository;
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.strategy = strategies.stream()
+            .filter(candidate -> candidate.getName().equals(strategyName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown booking strategy: " + strategyName));
+        log.info("Database booking engine using the {} strategy", strategyName);
+    }
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, Integer count, String userId, String idempotencyKey) {
+        // Guarded so the varargs array is not even allocated unless DEBUG is on
+        if (log.isDebugEnabled()) {
+            log.debug("Attempting to book {} tickets for event {} by user {}", count, eventId, userId);
+        }
+        
+        BookingResponse response = strategy.bookTickets(eventId, count, userId, idempotencyKey);
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully booked {} tickets for event {}. Remaining: {}",
+                      count, eventId, response.getRemainingTickets());
+        }
+        return response;
+    }
+    
+    @Override
+    public List<BookingResponse> bookAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        log.debug("Attempting to book an order of {} events by user {}", ticketsPerEvent.size(), userId);
+        
+        List<BookingResponse> responses = transactionTemplate.execute(status -> {
+            // Lock every row before touching any, in event ID order
+            List<Event> events = new ArrayList<>(ticketsPerEvent.size());
+            for (Map.Entry<Long, Integer> line : ticketsPerEvent.entrySet()) {
+                Event event = eventRepository.findByIdWithLock(line.getKey())
+                    .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + line.getKey()));
+                if (!event.canBook(line.getValue())) {
+                    log.warn("Insufficient tickets for event {} in order. Requested: {}, Available: {}", 
+                             event.getId(), line.getValue(), event.getAvailableTickets());
+                    throw new InsufficientTicketsException(event.getId(), line.getValue(), event.getAvailableTickets());
+                }
+                events.add(event);
+            }
+            
+            List<BookingResponse> booked = new ArrayList<>(events.size());
+            for (Event event : events) {
+                int count = ticketsPerEvent.get(event.getId());
+                event.bookTickets(count);
+                eventRepository.save(event);
+                Booking booking = bookingRepository.save(new Booking(event, count, userId));
+                booked.add(BookingResponse.success(
+                    booking.getId(), event.getId(), event.getName(), count, event.getAvailableTickets()));
+            }
+            return booked;
+        });
+        
+        log.debug("Successfully booked an order of {} events for user {}", ticketsPerEvent.size(), userId);
+        return responses;
+    }
+    
+    @Override
+    public void withdrawTickets(Long eventId, int count, String userId) {
+        if (eventRepository.decrementAvailableTickets(eventId, count) == 0) {
+            int available = eventRepository.findAvailableTicketsById(eventId)
+                .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + eventId));
+            throw new InsufficientTicketsException(count, available);
+        }
+    }
+    
+    @Override
+    public void restoreTickets(SortedMap<Long, Integer> ticketsPerEvent) {
+        ticketsPerEvent.forEach(eventRepository::incrementAvailableTickets);
+    }
+}
@@ -0,0 +1,285 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.journal.BookingJournal;
+import com.geoplace.ticketbooking.service.journal.JournalRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Lock-free engine: accepts or rejects bookings against per-event CAS counters
+ * and hands the accepted ones to the {@link BatchedBookingWriter}, so buyers
+ * never wait on the event row lock.
+ * <p>
+ * With {@code ticketbooking.journal.enabled} every accepted booking, every
+ * withdrawal and restore, and every event definition is also appended to the
+ * {@link BookingJournal}. Ticket movements are on disk before their transaction
+ * commits, and rolled back with it if they cannot be written; event definitions
+ * are appended once committed, before the caller returns. The database then
+ * becomes a projection that can be rebuilt from the journal.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.booking.engine", havingValue = "in-memory")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryBookingEngine implements BookingEngine {
+    
+    private final EventRepository eventRepository;
+    private final BatchedBookingWriter bookingWriter;
+    private final Optional<BookingJournal> journal;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConcurrentMap<Long, TicketPool> pools = new ConcurrentHashMap<>();
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, Integer count, String userId, String idempotencyKey) {
+        try {
+            return bookTicketsAsync(eventId, count, userId, idempotencyKey).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<BookingResponse> bookTicketsAsync(Long eventId, Integer count, String userId,
+                                                               String idempotencyKey) {
+        if (log.isDebugEnabled()) {
+            log.debug("Attempting to book {} tickets for event {} by user {}", count, eventId, userId);
+        }
+        
+        TicketPool pool;
+        try {
+            pool = poolFor(eventId);
+        } catch (EventNotFoundException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        long remaining = pool.tryReserve(count, userId);
+        if (remaining == TicketPool.REJECTED) {
+            int available = (int) pool.available();
+            if (log.isDebugEnabled()) {
+                log.debug("Insufficient tickets for event {}. Requested: {}, Available: {}",
+                          eventId, count, available);
+            }
+            return CompletableFuture.failedFuture(new InsufficientTicketsException(count, available));
+        }
+        
+        // The writer journals the booking before its batch commits
+        return bookingWriter.submit(eventId, count, userId, idempotencyKey)
+            .handle((bookingId, failure) -> {
+                if (failure != null) {
+                    putBack(pool, count, userId);
+                    if (failure instanceof IllegalStateException) {
+                        pools.remove(eventId, pool);
+                    }
+                    throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Successfully booked {} tickets for event {}. Remaining: {}", count, eventId, remaining);
+                }
+                return BookingResponse.success(bookingId, eventId, pool.getEventName(), count, (int) remaining);
+            });
+    }
+    
+    @Override
+    public List<BookingResponse> bookAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        log.debug("Attempting to book an order of {} events by user {}", ticketsPerEvent.size(), userId);
+        
+        Map<TicketPool, Long> reserved = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : ticketsPerEvent.entrySet()) {
+                TicketPool pool = poolFor(line.getKey());
+                long remaining = pool.tryReserve(line.getValue(), userId);
+                if (remaining == TicketPool.REJECTED) {
+                    log.warn("Insufficient tickets for event {} in order. Requested: {}, Available: {}", 
+                             line.getKey(), line.getValue(), pool.available());
+                    throw new InsufficientTicketsException(line.getKey(), line.getValue(), (int) pool.available());
+                }
+                reserved.put(pool, remaining);
+            }
+            
+            List<Long> bookingIds = bookingWriter.writeAll(ticketsPerEvent, userId);
+            
+            List<BookingResponse> responses = new ArrayList<>(bookingIds.size());
+            int line = 0;
+            for (Map.Entry<TicketPool, Long> reservation : reserved.entrySet()) {
+                TicketPool pool = reservation.getKey();
+                responses.add(BookingResponse.success(bookingIds.get(line++), pool.getEventId(), pool.getEventName(),
+                    ticketsPerEvent.get(pool.getEventId()), reservation.getValue().intValue()));
+            }
+            return responses;
+        } catch (RuntimeException e) {
+            reserved.keySet().forEach(pool -> {
+                putBack(pool, ticketsPerEvent.get(pool.getEventId()), userId);
+                if (e instanceof IllegalStateException) {
+                    pools.remove(pool.getEventId(), pool);
+                }
+            });
+            throw e;
+        }
+    }
+    
+    /**
+     * Reserves from the pool right away and decrements the row in the caller's
+     * transaction; the reservation is released again if that transaction does not commit.
+     */
+    @Override
+    public void withdrawTickets(Long eventId, int count, String userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Withdrawing tickets requires an active transaction");
+        }
+        TicketPool pool = poolFor(eventId);
+        if (pool.tryReserve(count, userId) == TicketPool.REJECTED) {
+            throw new InsufficientTicketsException(count, (int) pool.available());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    putBack(pool, count, userId);
+                }
+            }
+        });
+        
+        // The pool runs ahead of the row, so the row can always cover what the pool granted
+        if (eventRepository.decrementAvailableTickets(eventId, count) == 0) {
+            pools.remove(eventId, pool);
+            throw new IllegalStateException(
+                "In-memory inventory for event " + eventId + " diverged from the database");
+        }
+        journal.ifPresent(bookingJournal ->
+            bookingJournal.appendBeforeCommit(new JournalRecord.Adjusted(eventId, -count)));
+    }
+    
+    /**
+     * Increments the rows in the caller's transaction and tops up the pools once it commits.
+     * A pool loaded from the database in between may miss the tickets, which only ever
+     * undersells until it is reloaded.
+     */
+    @Override
+    public void restoreTickets(SortedMap<Long, Integer> ticketsPerEvent) {
+        Map<TicketPool, Integer> toRelease = new LinkedHashMap<>();
+        ticketsPerEvent.forEach((eventId, count) -> {
+            eventRepository.incrementAvailableTickets(eventId, count);
+            TicketPool pool = pools.get(eventId);
+            if (pool != null) {
+                toRelease.put(pool, count);
+            }
+        });
+        journal.ifPresent(bookingJournal -> bookingJournal.appendBeforeCommit(ticketsPerEvent.entrySet().stream()
+            .map(line -> new JournalRecord.Adjusted(line.getKey(), line.getValue()))
+            .toArray(JournalRecord[]::new)));
+        if (!toRelease.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    toRelease.forEach((pool, count) -> pool.release(count, null));
+                }
+            });
+        }
+    }
+    
+    @Override
+    public OptionalInt availableTickets(Long eventId) {
+        TicketPool pool = pools.get(eventId);
+        return pool == null ? OptionalInt.empty() : OptionalInt.of((int) pool.available());
+    }
+    
+    /**
+     * Journal event definitions as they are committed, so replay can recreate the events.
+     * Runs on the committing thread, which waits for the record before it returns.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        // Changes committed on another member are that member's to journal
+        if (journal.isEmpty() || change.relayed()) {
+            return;
+        }
+        JournalRecord record = switch (change.type()) {
+            case CREATED, UPDATED -> eventRepository.findById(change.eventId())
+                .map(InMemoryBookingEngine::snapshotOf)
+                .orElse(null);
+            case DELETED -> new JournalRecord.EventDeleted(change.eventId());
+            // Covered by the booking and adjustment records
+            case AVAILABILITY, RESTOCKED -> null;
+        };
+        if (record == null) {
+            return;
+        }
+        try {
+            journal.get().appendAndWait(record);
+        } catch (IllegalStateException e) {
+            // Already committed; the next pool load journals the event's definition again
+            log.error("Failed to journal {} of event {}", change.type(), change.eventId(), e);
+        }
+    }
+    
+    /**
+     * Drop the cached counter so the next booking reloads it from the database
+     */
+    public void evict(Long eventId) {
+        pools.remove(eventId);
+    }
+    
+    @Override
+    public void evictInventory(LongPredicate eventIds) {
+        pools.keySet().removeIf(eventIds::test);
+    }
+    
+    /**
+     * Release the tickets of a booking that did not go through. Requests turned away
+     * in the meantime may have recorded the lower count, so the release is published
+     * as a restock; it runs outside any transaction, so the change is delivered at once.
+     */
+    private void putBack(TicketPool pool, int count, String userId) {
+        pool.release(count, userId);
+        eventPublisher.publishEvent(CatalogChange.restocked(pool.getEventId()));
+    }
+    
+    private TicketPool poolFor(Long eventId) {
+        TicketPool pool = pools.get(eventId);
+        if (pool != null) {
+            return pool;
+        }
+        pool = pools.computeIfAbsent(eventId, id -> eventRepository.findById(id)
+            .map(event -> {
+                // Queued before any booking of the pool can be, so replay always meets it first
+                journal.ifPresent(bookingJournal -> bookingJournal.append(snapshotOf(event)));
+                return new TicketPool(event.getId(), event.getName(),
+                    event.getAvailableTickets(), event.getInventoryShards());
+            })
+            .orElse(null));
+        if (pool == null) {
+            throw new EventNotFoundException("Event not found with id: " + eventId);
+        }
+        return pool;
+    }
+    
+    private static JournalRecord snapshotOf(Event event) {
+        return new JournalRecord.EventSnapshot(event.getId(), event.getName(), event.getDescription(),
+            event.getTotalTickets(), event.getAvailableTickets(), event.getInventoryShards());
+    }
+}
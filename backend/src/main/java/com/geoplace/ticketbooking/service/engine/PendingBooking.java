@@ -0,0 +1,25 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An accepted booking on its way to the database, completed with the generated booking ID
+ */
+final class PendingBooking {
+    final Long eventId;
+    final int count;
+    final String userId;
+    final String idempotencyKey;
+    final LocalDateTime bookingTime;
+    final CompletableFuture<Long> result = new CompletableFuture<>();
+    Long bookingId;
+    
+    PendingBooking(Long eventId, int count, String userId, String idempotencyKey, LocalDateTime bookingTime) {
+        this.eventId = eventId;
+        this.count = count;
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.bookingTime = bookingTime;
+    }
+}
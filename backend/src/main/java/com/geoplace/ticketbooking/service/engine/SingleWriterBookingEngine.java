@@ -0,0 +1,254 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer engine: events are spread over {@code ticketbooking.single-writer.partitions}
+ * partitions, and each {@link BookingPartition} is owned by one thread that decides and
+ * persists all of its bookings. Request threads never touch inventory or take a lock;
+ * they publish a command into the partition's ring and wait for its result.
+ * <p>
+ * Multi-event orders and holds reserve tickets on each partition in ascending event ID
+ * order and then write their rows on the calling thread, putting the tickets back if
+ * that fails. Whenever a partition puts tickets back it publishes a restock, since
+ * requests turned away before may have recorded the lower count.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.booking.engine", havingValue = "single-writer")
+@Slf4j
+public class SingleWriterBookingEngine implements BookingEngine, DisposableBean {
+    
+    private final EventRepository eventRepository;
+    private final BookingBatchPersister persister;
+    private final BookingPartition[] partitions;
+    
+    public SingleWriterBookingEngine(EventRepository eventRepository,
+                                     BookingBatchPersister persister,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${ticketbooking.single-writer.partitions:0}") int partitionCount,
+                                     @Value("${ticketbooking.single-writer.ring-size:1024}") int ringSize,
+                                     @Value("${ticketbooking.single-writer.batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.persister = persister;
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new BookingPartition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new BookingPartition(i, eventRepository, persister,
+                eventId -> eventPublisher.publishEvent(CatalogChange.restocked(eventId)), ringSize, batchSize);
+        }
+        log.info("Single-writer booking engine with {} partitions", count);
+    }
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, Integer count, String userId, String idempotencyKey) {
+        try {
+            return bookTicketsAsync(eventId, count, userId, idempotencyKey).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<BookingResponse> bookTicketsAsync(Long eventId, Integer count, String userId,
+                                                               String idempotencyKey) {
+        if (log.isDebugEnabled()) {
+            log.debug("Attempting to book {} tickets for event {} by user {}", count, eventId, userId);
+        }
+        return partitionFor(eventId).book(eventId, count, userId, idempotencyKey);
+    }
+    
+    @Override
+    public List<BookingResponse> bookAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        log.debug("Attempting to book an order of {} events by user {}", ticketsPerEvent.size(), userId);
+        
+        Map<Long, Integer> remaining = reserveAll(ticketsPerEvent, userId);
+        List<Long> bookingIds;
+        try {
+            bookingIds = persister.writeAll(ticketsPerEvent, userId);
+        } catch (RuntimeException e) {
+            putBack(remaining.keySet(), ticketsPerEvent, e instanceof IllegalStateException);
+            throw e;
+        }
+        
+        List<BookingResponse> responses = new ArrayList<>(bookingIds.size());
+        int line = 0;
+        for (Map.Entry<Long, Integer> reservation : remaining.entrySet()) {
+            Long eventId = reservation.getKey();
+            responses.add(BookingResponse.success(bookingIds.get(line++), eventId, partitionFor(eventId).eventName(eventId),
+                ticketsPerEvent.get(eventId), reservation.getValue()));
+        }
+        return responses;
+    }
+    
+    /**
+     * Reserves on the owning partition right away and decrements the row in the caller's
+     * transaction; the reservation is put back if that transaction does not commit.
+     */
+    @Override
+    public void withdrawTickets(Long eventId, int count, String userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Withdrawing tickets requires an active transaction");
+        }
+        BookingPartition partition = partitionFor(eventId);
+        partition.reserve(eventId, count);
+        releaseUnlessCommitted(partition, eventId, count);
+        decrementReserved(partition, eventId, count);
+    }
+    
+    /**
+     * Reserves before the transaction starts. A caller waiting on the partition while
+     * holding a pooled connection could leave the owner thread without one to persist
+     * the batch ahead of the reservation, and enough such callers would stall it.
+     */
+    @Override
+    public <T> T withdrawTickets(Long eventId, int count, String userId,
+                                 TransactionOperations transaction, Supplier<T> work) {
+        BookingPartition partition = partitionFor(eventId);
+        partition.reserve(eventId, count);
+        boolean[] enlisted = new boolean[1];
+        try {
+            return transaction.execute(status -> {
+                releaseUnlessCommitted(partition, eventId, count);
+                enlisted[0] = true;
+                decrementReserved(partition, eventId, count);
+                return work.get();
+            });
+        } catch (RuntimeException e) {
+            if (!enlisted[0]) {
+                partition.release(eventId, count);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Increments the rows in the caller's transaction and tops up the partitions once it commits.
+     * The top-up is only queued: the committing thread still holds its connection, which the
+     * owner thread may need to persist the batches ahead of it.
+     */
+    @Override
+    public void restoreTickets(SortedMap<Long, Integer> ticketsPerEvent) {
+        ticketsPerEvent.forEach((eventId, count) -> eventRepository.incrementAvailableTickets(eventId, count));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ticketsPerEvent.forEach((eventId, count) -> partitionFor(eventId).release(eventId, count));
+            }
+        });
+    }
+    
+    @Override
+    public void awaitRestocked(Collection<Long> eventIds) {
+        eventIds.forEach(eventId -> partitionFor(eventId).await(eventId));
+    }
+    
+    @Override
+    public OptionalInt availableTickets(Long eventId) {
+        return partitionFor(eventId).availableTickets(eventId);
+    }
+    
+    @Override
+    public void evictInventory(LongPredicate eventIds) {
+        for (BookingPartition partition : partitions) {
+            partition.evictIf(eventIds);
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        for (BookingPartition partition : partitions) {
+            partition.shutdown();
+        }
+    }
+    
+    /**
+     * @return tickets left per event after its line was reserved, in event ID order
+     */
+    private Map<Long, Integer> reserveAll(SortedMap<Long, Integer> ticketsPerEvent, String userId) {
+        Map<Long, Integer> remaining = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : ticketsPerEvent.entrySet()) {
+                remaining.put(line.getKey(), partitionFor(line.getKey()).reserve(line.getKey(), line.getValue()));
+            }
+        } catch (InsufficientTicketsException e) {
+            putBack(remaining.keySet(), ticketsPerEvent, false);
+            Long eventId = ticketsPerEvent.keySet().stream()
+                .filter(id -> !remaining.containsKey(id))
+                .findFirst()
+                .orElseThrow();
+            log.warn("Insufficient tickets for event {} in order of user {}. Requested: {}, Available: {}",
+                     eventId, userId, ticketsPerEvent.get(eventId), e.getAvailable());
+            throw new InsufficientTicketsException(eventId, ticketsPerEvent.get(eventId), e.getAvailable());
+        } catch (RuntimeException e) {
+            putBack(remaining.keySet(), ticketsPerEvent, false);
+            throw e;
+        }
+        return remaining;
+    }
+    
+    /**
+     * Undo the reservations of a failed order, and only return once they are undone,
+     * so that the caller reads its tickets back right after the order fails
+     */
+    private void putBack(Iterable<Long> eventIds, Map<Long, Integer> ticketsPerEvent, boolean reload) {
+        for (Long eventId : eventIds) {
+            BookingPartition partition = partitionFor(eventId);
+            if (reload) {
+                partition.evict(eventId);
+            } else {
+                partition.release(eventId, ticketsPerEvent.get(eventId));
+            }
+        }
+        for (Long eventId : eventIds) {
+            partitionFor(eventId).await(eventId);
+        }
+    }
+    
+    private static void releaseUnlessCommitted(BookingPartition partition, Long eventId, int count) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    partition.release(eventId, count);
+                }
+            }
+        });
+    }
+    
+    private void decrementReserved(BookingPartition partition, Long eventId, int count) {
+        // The partition runs ahead of the row, so the row can always cover what it granted
+        if (eventRepository.decrementAvailableTickets(eventId, count) == 0) {
+            partition.evict(eventId);
+            throw new IllegalStateException(
+                "In-memory inventory for event " + eventId + " diverged from the database");
+        }
+    }
+    
+    private BookingPartition partitionFor(Long eventId) {
+        return partitions[Math.floorMod(Long.hashCode(eventId), partitions.length)];
+    }
+}
@@ -0,0 +1,155 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory remaining-ticket counter for one event, updated with CAS.
+ * <p>
+ * A pool can be split into several stripes so that a hot event does not funnel
+ * every buyer through one contended counter. Each booking starts at the stripe
+ * picked by its user ID. When that stripe runs dry it borrows from its
+ * siblings and keeps half of what the sibling had, so tickets drift towards
+ * the stripes that are actually being hit. Stripes sit a cache line apart.
+ * <p>
+ * Borrowers take their turn on a lock. Tickets a borrower has collected are missing
+ * from the stripes until it is done, so two borrowers at once could each fall short
+ * although together the stripes held enough; in turn, a borrower that falls short
+ * saw every stripe and the pool really is too small.
+ */
+public final class TicketPool {
+    
+    /** Returned by {@link #tryReserve(int, String)} when the pool cannot cover the request. */
+    public static final long REJECTED = -1L;
+    
+    /** Longs per cache line, so neighbouring stripes never share one. */
+    private static final int PADDING = 8;
+    
+    private final Long eventId;
+    private final String eventName;
+    private final int stripes;
+    private final AtomicLongArray counters;
+    private final Object borrowLock = new Object();
+    
+    public TicketPool(Long eventId, String eventName, long available) {
+        this(eventId, eventName, available, 1);
+    }
+    
+    public TicketPool(Long eventId, String eventName, long available, int stripes) {
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.stripes = Math.max(1, stripes);
+        this.counters = new AtomicLongArray(this.stripes * PADDING);
+        for (int stripe = 0; stripe < this.stripes; stripe++) {
+            long share = available / this.stripes + (stripe < available % this.stripes ? 1 : 0);
+            counters.set(stripe * PADDING, share);
+        }
+    }
+    
+    /**
+     * Take {@code count} tickets out of the pool if enough are left
+     * @param userId picks the stripe the reservation starts from
+     * @return the remaining tickets after the reservation, or {@link #REJECTED}
+     */
+    public long tryReserve(int count, String userId) {
+        if (count <= 0) {
+            return REJECTED;
+        }
+        int home = stripeFor(userId);
+        if (take(home, count, count) == count) {
+            return available();
+        }
+        if (stripes == 1) {
+            return REJECTED;
+        }
+        
+        // Home stripe is short: borrow from siblings until the request is covered
+        // or the whole pool has proven too small
+        synchronized (borrowLock) {
+            long taken = borrow(home, count);
+            if (taken == count) {
+                return available();
+            }
+            add(home, taken);
+            return REJECTED;
+        }
+    }
+    
+    /**
+     * Put tickets back, e.g. when persisting a reservation failed
+     */
+    public void release(int count, String userId) {
+        add(stripeFor(userId), count);
+    }
+    
+    /**
+     * Sum of all stripes; exact whenever no reservation is in flight
+     */
+    public long available() {
+        long total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            total += counters.get(stripe * PADDING);
+        }
+        return total;
+    }
+    
+    public int stripes() {
+        return stripes;
+    }
+    
+    public Long getEventId() {
+        return eventId;
+    }
+    
+    public String getEventName() {
+        return eventName;
+    }
+    
+    private long borrow(int home, int count) {
+        long taken = take(home, count, 1);
+        for (int offset = 1; offset < stripes && taken < count; offset++) {
+            int sibling = (home + offset) % stripes;
+            long siblingAvailable = counters.get(sibling * PADDING);
+            long needed = count - taken;
+            // Rebalance while borrowing: move half of the sibling over, but at least what is needed
+            long wanted = Math.max(needed, siblingAvailable / 2);
+            long moved = take(sibling, wanted, 1);
+            if (moved > needed) {
+                add(home, moved - needed);
+                moved = needed;
+            }
+            taken += moved;
+        }
+        return taken;
+    }
+    
+    /**
+     * CAS up to {@code wanted} tickets out of one stripe
+     * @return tickets taken, 0 if the stripe holds fewer than {@code minimum}
+     */
+    private long take(int stripe, long wanted, long minimum) {
+        int index = stripe * PADDING;
+        long current;
+        long taken;
+        do {
+            current = counters.get(index);
+            if (current < minimum) {
+                return 0;
+            }
+            taken = Math.min(current, wanted);
+        } while (!counters.compareAndSet(index, current, current - taken));
+        return taken;
+    }
+    
+    private void add(int stripe, long count) {
+        if (count > 0) {
+            counters.addAndGet(stripe * PADDING, count);
+        }
+    }
+    
+    private int stripeFor(String userId) {
+        if (stripes == 1 || userId == null) {
+            return 0;
+        }
+        return Math.floorMod(userId.hashCode(), stripes);
+    }
+}
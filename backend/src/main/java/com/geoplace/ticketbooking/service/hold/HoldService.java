@@ -0,0 +1,337 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.HoldResponse;
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.entity.TicketHold;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.HoldNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.repository.TicketHoldRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.cache.AvailabilityIndex;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import com.geoplace.ticketbooking.service.journal.BookingJournal;
+import com.geoplace.ticketbooking.service.journal.JournalRecord;
+import com.geoplace.ticketbooking.service.limits.PurchaseLimits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Timed holds: tickets are withdrawn from the event's availability when a hold is
+ * placed, turned into a booking on confirm, and given back on release or expiry.
+ * <p>
+ * Outstanding holds are kept in memory and timed on a {@link TimingWheel}, so
+ * there is no per-hold scheduled task and no polling of the holds table. Holds
+ * that expire in the same tick are given back in one transaction with one
+ * increment per event. Each hold closes exactly once: confirm, release and expiry
+ * race on an in-memory flag, and only the winner touches the database.
+ * <p>
+ * With the {@link BookingJournal}, every hold is journaled as it is placed and closed,
+ * and a confirmed hold's booking with its ID, all before their transactions commit, so
+ * a replay brings back the outstanding holds and the bookings made from them.
+ */
+@Service
+@Slf4j
+public class HoldService implements DisposableBean {
+    
+    private static final int DELETE_CHUNK = 1000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    
+    private final BookingEngine bookingEngine;
+    private final AvailabilityIndex availabilityIndex;
+    private final TicketHoldRepository holdRepository;
+    private final EventRepository eventRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<PurchaseLimits> purchaseLimits;
+    private final Optional<BookingJournal> journal;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final ConcurrentMap<Long, ActiveHold> holds = new ConcurrentHashMap<>();
+    private final TimingWheel<ActiveHold> wheel;
+    
+    public HoldService(BookingEngine bookingEngine,
+                       AvailabilityIndex availabilityIndex,
+                       TicketHoldRepository holdRepository,
+                       EventRepository eventRepository,
+                       BookingRepository bookingRepository,
+                       TransactionTemplate transactionTemplate,
+                       ApplicationEventPublisher eventPublisher,
+                       Optional<PurchaseLimits> purchaseLimits,
+                       Optional<BookingJournal> journal,
+                       @Value("${ticketbooking.holds.default-ttl:10m}") Duration defaultTtl,
+                       @Value("${ticketbooking.holds.max-ttl:30m}") Duration maxTtl,
+                       @Value("${ticketbooking.holds.tick:100ms}") Duration tick,
+                       @Value("${ticketbooking.holds.ticks-per-wheel:512}") int ticksPerWheel) {
+        this.bookingEngine = bookingEngine;
+        this.availabilityIndex = availabilityIndex;
+        this.holdRepository = holdRepository;
+        this.eventRepository = eventRepository;
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.purchaseLimits = purchaseLimits;
+        this.journal = journal;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.wheel = new TimingWheel<>("hold-expiry", tick, ticksPerWheel, this::expire);
+    }
+    
+    /**
+     * Put back on the wheel any holds that outlived a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = transactionTemplate.execute(status -> {
+            try (Stream<TicketHold> outstanding = holdRepository.streamAll()) {
+                return outstanding.mapToInt(hold -> {
+                    ActiveHold active = track(hold);
+                    wheel.schedule(active, Duration.between(now, hold.getExpiresAt()));
+                    return 1;
+                }).sum();
+            }
+        });
+        if (recovered > 0) {
+            log.info("Recovered {} outstanding ticket holds", recovered);
+        }
+    }
+    
+    /**
+     * Hold tickets for an event
+     * @param ttl How long to hold them; the configured default when null, capped at the maximum
+     * @return HoldResponse with the hold ID and its expiry
+     */
+    public HoldResponse hold(Long eventId, int count, String userId, Duration ttl) {
+        Duration holdFor = ttl == null ? defaultTtl : (ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl);
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdFor);
+        
+        purchaseLimits.ifPresent(limits -> limits.admit(userId));
+        availabilityIndex.rejectIfInsufficient(eventId, count);
+        // Held tickets count towards the user's limit until the hold is released or expires
+        purchaseLimits.ifPresent(limits -> limits.reserve(userId, eventId, count));
+        AvailabilityIndex.Slot slot = availabilityIndex.track(eventId);
+        TicketHold hold;
+        try {
+            hold = bookingEngine.withdrawTickets(eventId, count, userId, transactionTemplate, () -> {
+                TicketHold saved = holdRepository.save(new TicketHold(eventId, count, userId, expiresAt));
+                journal(new JournalRecord.Held(eventId, saved.getId(), count, userId, JournalRecord.epochMillis(expiresAt)));
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            purchaseLimits.ifPresent(limits -> limits.abandon(userId, eventId, count));
+            if (e instanceof InsufficientTicketsException insufficient) {
+                slot.observe(insufficient.getAvailable());
+            }
+            throw e;
+        }
+        purchaseLimits.ifPresent(limits -> limits.settle(userId, eventId, count));
+        wheel.schedule(track(hold), holdFor);
+        eventPublisher.publishEvent(CatalogChange.availability(eventId));
+        
+        log.debug("Held {} tickets for event {} by user {} until {}", count, eventId, userId, expiresAt);
+        return HoldResponse.held(hold.getId(), eventId, count, userId, expiresAt);
+    }
+    
+    /**
+     * Turn a hold into a booking; the tickets were already taken when it was placed
+     * @param userId User confirming; another user's hold is not found
+     * @return BookingResponse with booking details
+     */
+    public BookingResponse confirm(Long holdId, String userId) {
+        ActiveHold hold = claim(holdId, userId);
+        try {
+            BookingResponse response = transactionTemplate.execute(status -> {
+                if (holdRepository.deleteHold(holdId) == 0) {
+                    throw holdNotFound(holdId);
+                }
+                Event event = eventRepository.findById(hold.eventId)
+                    .orElseThrow(() -> new EventNotFoundException("Event not found with id: " + hold.eventId));
+                Booking booking = bookingRepository.save(new Booking(event, hold.count, hold.userId));
+                journal(new JournalRecord.HoldClosed(hold.eventId, holdId),
+                    new JournalRecord.Confirmed(event.getId(), booking.getId(), hold.count,
+                        JournalRecord.epochMillis(booking.getBookingTime()), hold.userId, null));
+                int remaining = bookingEngine.availableTickets(event.getId()).orElse(event.getAvailableTickets());
+                return BookingResponse.success(booking.getId(), event.getId(), event.getName(), hold.count, remaining);
+            });
+            holds.remove(holdId, hold);
+            log.debug("Confirmed hold {} as booking {}", holdId, response.getBookingId());
+            return response;
+        } catch (RuntimeException e) {
+            reopen(hold, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Give the held tickets back before the hold expires
+     * @param userId User releasing; another user's hold is not found
+     */
+    public void release(Long holdId, String userId) {
+        ActiveHold hold = claim(holdId, userId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (holdRepository.deleteHold(holdId) == 0) {
+                    throw holdNotFound(holdId);
+                }
+                // Journaled ahead of the restock: cut off in between, a replay undersells rather than oversells
+                journal(new JournalRecord.HoldClosed(hold.eventId, holdId));
+                bookingEngine.restoreTickets(new TreeMap<>(Map.of(hold.eventId, hold.count)));
+                eventPublisher.publishEvent(CatalogChange.restocked(hold.eventId));
+            });
+        } catch (RuntimeException e) {
+            reopen(hold, e);
+            throw e;
+        }
+        // Restocked tickets are visible to the caller once it returns
+        bookingEngine.awaitRestocked(List.of(hold.eventId));
+        holds.remove(holdId, hold);
+        releaseLimit(hold.userId, hold.eventId, hold.count);
+        log.debug("Released hold {}", holdId);
+    }
+    
+    /**
+     * Number of holds currently outstanding
+     */
+    public int outstandingHolds() {
+        return holds.size();
+    }
+    
+    /**
+     * Runs on the wheel thread with every hold that came due in one tick. Does not wait
+     * for the engine to take the restock in, so the wheel keeps ticking behind a busy engine.
+     */
+    private void expire(List<ActiveHold> due) {
+        List<ActiveHold> expired = new ArrayList<>(due.size());
+        SortedMap<Long, Integer> ticketsPerEvent = new TreeMap<>();
+        for (ActiveHold hold : due) {
+            if (hold.closed.compareAndSet(false, true)) {
+                expired.add(hold);
+                ticketsPerEvent.merge(hold.eventId, hold.count, Integer::sum);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Long> ids = expired.stream().map(hold -> hold.id).toList();
+                for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+                    holdRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK)));
+                }
+                journal(expired.stream()
+                    .map(hold -> new JournalRecord.HoldClosed(hold.eventId, hold.id))
+                    .toArray(JournalRecord[]::new));
+                bookingEngine.restoreTickets(ticketsPerEvent);
+                // Delivered on commit, so readers of the availability index see the restock right away
+                ticketsPerEvent.keySet().forEach(eventId -> eventPublisher.publishEvent(CatalogChange.restocked(eventId)));
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to expire {} holds, retrying in {}", expired.size(), RETRY_DELAY, e);
+            expired.forEach(hold -> {
+                hold.closed.set(false);
+                wheel.schedule(hold, RETRY_DELAY);
+            });
+            return;
+        }
+        
+        expired.forEach(hold -> {
+            holds.remove(hold.id, hold);
+            releaseLimit(hold.userId, hold.eventId, hold.count);
+        });
+        log.debug("Expired {} holds across {} events", expired.size(), ticketsPerEvent.size());
+    }
+    
+    private void journal(JournalRecord... records) {
+        journal.ifPresent(bookingJournal -> bookingJournal.appendBeforeCommit(records));
+    }
+    
+    private void releaseLimit(String userId, Long eventId, int count) {
+        purchaseLimits.ifPresent(limits -> limits.release(userId, eventId, count));
+    }
+    
+    private ActiveHold track(TicketHold hold) {
+        ActiveHold active = new ActiveHold(hold.getId(), hold.getEventId(), hold.getTicketCount(),
+            hold.getUserId(), hold.getExpiresAt());
+        holds.put(active.id, active);
+        return active;
+    }
+    
+    /**
+     * Close a hold for confirm or release; fails if it is unknown, already
+     * closed, or past its expiry even though the wheel has not reached it yet
+     */
+    private ActiveHold claim(Long holdId, String userId) {
+        ActiveHold hold = holds.get(holdId);
+        if (hold == null || !userId.equals(hold.userId) || !LocalDateTime.now().isBefore(hold.expiresAt)
+                || !hold.closed.compareAndSet(false, true)) {
+            throw holdNotFound(holdId);
+        }
+        return hold;
+    }
+    
+    /**
+     * Undo a claim whose transaction failed. The wheel may already have dropped
+     * the hold while it was closed, so it is scheduled again; a duplicate entry
+     * is harmless because only one expiry can close it.
+     */
+    private void reopen(ActiveHold hold, RuntimeException failure) {
+        if (failure instanceof HoldNotFoundException) {
+            holds.remove(hold.id, hold);
+            return;
+        }
+        hold.closed.set(false);
+        wheel.schedule(hold, Duration.between(LocalDateTime.now(), hold.expiresAt));
+    }
+    
+    private static HoldNotFoundException holdNotFound(Long holdId) {
+        return new HoldNotFoundException("Hold not found or expired with id: " + holdId);
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        wheel.close();
+    }
+    
+    private static final class ActiveHold {
+        private final Long id;
+        private final Long eventId;
+        private final int count;
+        private final String userId;
+        private final LocalDateTime expiresAt;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private ActiveHold(Long id, Long eventId, int count, String userId, LocalDateTime expiresAt) {
+            this.id = id;
+            this.eventId = eventId;
+            this.count = count;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a ring of buckets, one per tick, into which deadlines are
+ * hashed by tick number. Deadlines more than one revolution away carry a count of
+ * remaining rounds. Scheduling is O(1) and each tick visits a single bucket, so the
+ * cost per outstanding timeout does not grow with how many are outstanding.
+ * <p>
+ * Callers hand entries over through a lock-free queue; the buckets are only ever
+ * touched by the wheel thread, which also runs the expiry handler with everything
+ * that came due in a tick. There is no cancellation: owners are expected to ignore
+ * expiries for work that already finished.
+ */
+@Slf4j
+public final class TimingWheel<T> implements AutoCloseable {
+    
+    private final long tickNanos;
+    private final int mask;
+    private final List<Entry<T>>[] buckets;
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> expiryHandler;
+    private final long startNanos = System.nanoTime();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long tick;
+    
+    /**
+     * @param ticksPerWheel rounded up to a power of two
+     * @param expiryHandler called on the wheel thread with the entries due in one tick
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, Duration tickDuration, int ticksPerWheel, Consumer<List<T>> expiryHandler) {
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.mask = size - 1;
+        this.buckets = new List[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.expiryHandler = expiryHandler;
+        this.thread = Thread.ofPlatform().name(name).daemon().start(this::run);
+    }
+    
+    /**
+     * Have {@code task} handed to the expiry handler once {@code delay} has passed,
+     * rounded up to the next tick
+     */
+    public void schedule(T task, Duration delay) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+        incoming.add(new Entry<>(task, deadline));
+    }
+    
+    private void run() {
+        List<T> due = new ArrayList<>();
+        while (running) {
+            long sleepNanos = tickNanos * (tick + 1) - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            
+            transferIncoming();
+            expireBucket(buckets[(int) (tick & mask)], due);
+            if (!due.isEmpty()) {
+                try {
+                    expiryHandler.accept(due);
+                } catch (RuntimeException e) {
+                    log.error("Expiry handler failed for {} entries", due.size(), e);
+                }
+                due = new ArrayList<>();
+            }
+            tick++;
+        }
+    }
+    
+    private void transferIncoming() {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            long dueTick = entry.deadline / tickNanos;
+            entry.rounds = (dueTick - tick) / buckets.length;
+            // Anything already overdue goes into the bucket about to be expired
+            buckets[(int) (Math.max(dueTick, tick) & mask)].add(entry);
+        }
+    }
+    
+    private void expireBucket(List<Entry<T>> bucket, List<T> due) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry<T> entry = bucket.get(i);
+            if (entry.rounds <= 0) {
+                due.add(entry.task);
+            } else {
+                entry.rounds--;
+                bucket.set(kept++, entry);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+    
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    private static final class Entry<T> {
+        private final T task;
+        private final long deadline;
+        private long rounds;
+        
+        private Entry(T task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.geoplace.ticketbooking.service.idempotency;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
+import com.geoplace.ticketbooking.exception.IdempotencyKeyReusedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Recent {@code Idempotency-Key}s and the outcome of the booking each one started.
+ * <p>
+ * Keys are spread over lock stripes, each an access-ordered {@link LinkedHashMap}
+ * capped at its share of {@code ticketbooking.idempotency.max-entries}, so a lookup
+ * is O(1) and only contends with keys on the same stripe. Entries expire after
+ * {@code ticketbooking.idempotency.ttl}. The store is only a fast path: the unique
+ * index on {@code bookings (user_id, idempotency_key)} is what guarantees a key
+ * books at most once, including after an entry was evicted.
+ */
+@Component
+public class IdempotencyStore {
+    
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long ttlNanos;
+    private final Duration inFlightWait;
+    
+    public IdempotencyStore(@Value("${ticketbooking.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${ticketbooking.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${ticketbooking.idempotency.stripes:64}") int stripeCount,
+                            @Value("${ticketbooking.idempotency.in-flight-wait:10s}") Duration inFlightWait) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxEntries / size));
+        }
+        this.mask = size - 1;
+        this.ttlNanos = ttl.toNanos();
+        this.inFlightWait = inFlightWait;
+    }
+    
+    /**
+     * Look up a key, registering it if it is new or expired
+     * @return a claim that either owns the key, and must be completed or failed,
+     *         or refers to an earlier request with the key
+     */
+    public Claim claim(String userId, String idempotencyKey, Long eventId, int count) {
+        Key key = new Key(userId, idempotencyKey);
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry existing = stripe.entries.get(key);
+            if (existing != null && existing.expiresAt - now > 0) {
+                return new Claim(stripe, key, existing, false);
+            }
+            Entry entry = new Entry(eventId, count, now + ttlNanos);
+            stripe.entries.put(key, entry);
+            return new Claim(stripe, key, entry, true);
+        }
+    }
+    
+    private Stripe stripeFor(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+    
+    /**
+     * A request's hold on an idempotency key
+     */
+    public final class Claim {
+        
+        private final Stripe stripe;
+        private final Key key;
+        private final Entry entry;
+        private final boolean owner;
+        
+        private Claim(Stripe stripe, Key key, Entry entry, boolean owner) {
+            this.stripe = stripe;
+            this.key = key;
+            this.entry = entry;
+            this.owner = owner;
+        }
+        
+        /**
+         * Whether this request registered the key and has to perform the booking
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+        
+        public void complete(BookingResponse response) {
+            entry.result.complete(response);
+        }
+        
+        /**
+         * Forget the key so a retry runs the booking again, and hand the failure to
+         * duplicates already waiting on it
+         */
+        public void fail(Throwable failure) {
+            synchronized (stripe) {
+                stripe.entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(failure);
+        }
+        
+        /**
+         * Outcome of the earlier request with this key, waiting for it if it is still running
+         * @throws IdempotencyKeyReusedException if the earlier request asked for something else
+         */
+        public BookingResponse replay(Long eventId, int count) {
+            if (!entry.eventId.equals(eventId) || entry.count != count) {
+                throw new IdempotencyKeyReusedException(
+                    "Idempotency key " + key.idempotencyKey() + " was already used for a different booking");
+            }
+            try {
+                return entry.result.get(inFlightWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new BookingConflictException(
+                    "A request with idempotency key " + key.idempotencyKey() + " is still in progress");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }
+    }
+    
+    private record Key(String userId, String idempotencyKey) {
+    }
+    
+    private static final class Entry {
+        private final Long eventId;
+        private final int count;
+        private final long expiresAt;
+        private final CompletableFuture<BookingResponse> result = new CompletableFuture<>();
+        
+        private Entry(Long eventId, int count, long expiresAt) {
+            this.eventId = eventId;
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static final class Stripe {
+        private final Map<Key, Entry> entries;
+        
+        private Stripe(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only booking journal in memory-mapped segment files.
+ * <p>
+ * Every record is framed as {@code [length][crc32c][payload]} and appended by a
+ * single writer thread. The writer takes whatever has queued up since its last
+ * flush, copies it into the current segment and forces that range to disk once,
+ * so concurrent bookings share one fsync (group commit). A segment that cannot
+ * take the next record is closed and a new one of
+ * {@code ticketbooking.journal.segment-size} is started. Replay reads every
+ * segment in order and stops at the first zeroed or damaged frame, which is
+ * where a torn write left off and where appending resumes. A group that fails
+ * is cleared again, and what of it a rotation already forced is compensated.
+ * <p>
+ * After each rotation a background thread folds the closed segments, on top of
+ * the latest checkpoint, into a {@link JournalState} and writes it out as the
+ * next checkpoint: the records that rebuild that state, in a file named after
+ * the first segment it does not cover. The file is written under a temporary
+ * name, forced and renamed into place, and only then are the segments and
+ * checkpoints before it deleted. Replay starts from the latest checkpoint, so
+ * neither the journal nor the time to recover it grows with the number of
+ * bookings ever made, only with the number that stand.
+ */
+@Component
+@ConditionalOnExpression(BookingJournal.ENABLED)
+@Slf4j
+public class BookingJournal implements DisposableBean {
+    
+    /** The journal backs the in-memory engine only. */
+    public static final String ENABLED =
+        "'${ticketbooking.booking.engine:database}' == 'in-memory' and ${ticketbooking.journal.enabled:false}";
+    
+    private static final String SUFFIX = ".journal";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int CHECKPOINT_BUFFER_SIZE = 256 * 1024;
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+    
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxGroupSize;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final ExecutorService checkpointer =
+        Executors.newSingleThreadExecutor(Thread.ofPlatform().name("booking-journal-checkpoint").daemon().factory());
+    // Held while checkpoints are read, written or deleted
+    private final Object checkpointLock = new Object();
+    private volatile long closedBefore;
+    private volatile boolean running = true;
+    
+    // Owned by the writer thread once it has started
+    private final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.MAX_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private final List<JournalRecord> written = new ArrayList<>();
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int unforcedFrom;
+    
+    public BookingJournal(@Value("${ticketbooking.journal.directory:data/journal}") Path directory,
+                          @Value("${ticketbooking.journal.segment-size:64MB}") DataSize segmentSize,
+                          @Value("${ticketbooking.journal.max-group-size:1024}") int maxGroupSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.min(MAX_SEGMENT_SIZE, Math.max(HEADER + JournalRecord.MAX_SIZE, segmentSize.toBytes()));
+        this.maxGroupSize = maxGroupSize;
+        Files.createDirectories(directory);
+        for (Path leftover : files(TEMPORARY_SUFFIX)) {
+            Files.delete(leftover);
+        }
+        deleteBefore(latestCheckpoint());
+        openTail();
+        this.writerThread = Thread.ofPlatform().name("booking-journal").daemon().start(this::runWriter);
+        log.info("Booking journal in {} continues segment {} at offset {}", directory, segmentIndex, segment.position());
+    }
+    
+    /**
+     * Queue records for the next group commit. Records of one call end up next to
+     * each other in the same segment and are forced together.
+     * @return future completed once the records are on disk
+     */
+    public CompletableFuture<Void> append(JournalRecord... records) {
+        PendingAppend pending = new PendingAppend(records);
+        if (!running) {
+            pending.result.completeExceptionally(new IllegalStateException("Booking journal is closed"));
+            return pending.result;
+        }
+        queue.add(pending);
+        return pending.result;
+    }
+    
+    /**
+     * Append records and wait until they are on disk
+     * @throws IllegalStateException if they could not be written
+     */
+    public void appendAndWait(JournalRecord... records) {
+        try {
+            append(records).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to append to the booking journal", e.getCause());
+        }
+    }
+    
+    /**
+     * Append records that belong to the caller's transaction and wait until they are on
+     * disk, so the transaction only ever commits what the journal already holds. Should
+     * the transaction roll back instead, the compensations of everything it journaled are
+     * appended in reverse order, the way an undo log is unwound: a transaction restores
+     * tickets after what it took them for, so a rollback cut short takes them back first
+     * and can only undersell. Outside a transaction this is an append that waits.
+     * @throws IllegalStateException if the records could not be written; the caller's
+     *         transaction must not commit
+     */
+    @SuppressWarnings("unchecked")
+    public void appendBeforeCommit(JournalRecord... records) {
+        appendAndWait(records);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<JournalRecord> journaled = (List<JournalRecord>) TransactionSynchronizationManager.getResource(this);
+        if (journaled == null) {
+            List<JournalRecord> transactionRecords = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionRecords);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookingJournal.this);
+                    // An unknown outcome may have committed; undoing it could lose a booking on replay
+                    if (status == STATUS_ROLLED_BACK) {
+                        compensate(transactionRecords);
+                    }
+                }
+            });
+            journaled = transactionRecords;
+        }
+        journaled.addAll(Arrays.asList(records));
+    }
+    
+    private void compensate(List<JournalRecord> journaled) {
+        JournalRecord[] compensations = journaled.reversed().stream()
+            .map(JournalRecord::compensation)
+            .filter(Objects::nonNull)
+            .toArray(JournalRecord[]::new);
+        if (compensations.length == 0) {
+            return;
+        }
+        try {
+            appendAndWait(compensations);
+        } catch (IllegalStateException e) {
+            log.error("Failed to journal {} compensations of a rolled back transaction", compensations.length, e);
+        }
+    }
+    
+    /**
+     * Feed the latest checkpoint and every intact record after it to {@code consumer}, oldest first
+     */
+    public void replay(Consumer<JournalRecord> consumer) throws IOException {
+        synchronized (checkpointLock) {
+            read(consumer, Long.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Fold the segments closed so far into a new checkpoint and delete what it replaces.
+     * Does nothing when the latest checkpoint already covers them.
+     */
+    void checkpoint() throws IOException {
+        long boundary = closedBefore;
+        synchronized (checkpointLock) {
+            if (boundary <= latestCheckpoint()) {
+                return;
+            }
+            JournalState state = new JournalState();
+            read(state::apply, boundary);
+            writeCheckpoint(state, boundary);
+            deleteBefore(boundary);
+        }
+        log.debug("Checkpointed the booking journal up to segment {}", boundary);
+    }
+    
+    /**
+     * Read the latest checkpoint, then the segments after it and before {@code endSegment}
+     */
+    private void read(Consumer<JournalRecord> consumer, long endSegment) throws IOException {
+        long from = latestCheckpoint();
+        if (from > 0) {
+            readCheckpoint(checkpointFile(from), consumer);
+        }
+        for (Path file : files(SUFFIX)) {
+            long index = indexOf(file, SUFFIX);
+            if (index < from || index >= endSegment) {
+                continue;
+            }
+            try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                scan(readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size()), consumer);
+            }
+        }
+    }
+    
+    private void writeCheckpoint(JournalState state, long boundary) throws IOException {
+        Path target = checkpointFile(boundary);
+        Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel out = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckpointWriter writer = new CheckpointWriter(out);
+            try {
+                state.emit(writer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            out.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+    
+    /**
+     * A checkpoint is renamed into place whole, so a damaged one cannot be cut short
+     * like a segment: the segments it replaced are gone, and recovery has to stop.
+     */
+    private static void readCheckpoint(Path file, Consumer<JournalRecord> consumer) throws IOException {
+        byte[] payload = new byte[JournalRecord.MAX_SIZE];
+        CRC32C check = new CRC32C();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), CHECKPOINT_BUFFER_SIZE))) {
+            int length;
+            // A zero length ends the checkpoint
+            while ((length = in.readInt()) != 0) {
+                int expected = in.readInt();
+                if (length < 0 || length > JournalRecord.MAX_SIZE) {
+                    throw new IOException("Damaged journal checkpoint " + file);
+                }
+                in.readFully(payload, 0, length);
+                check.reset();
+                check.update(payload, 0, length);
+                if ((int) check.getValue() != expected) {
+                    throw new IOException("Damaged journal checkpoint " + file);
+                }
+                consumer.accept(JournalRecord.decode(ByteBuffer.wrap(payload, 0, length)));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated journal checkpoint " + file, e);
+        }
+    }
+    
+    /**
+     * Delete the segments and checkpoints that the checkpoint of {@code boundary} replaces
+     */
+    private void deleteBefore(long boundary) throws IOException {
+        for (Path file : files(SUFFIX)) {
+            if (indexOf(file, SUFFIX) < boundary) {
+                Files.delete(file);
+            }
+        }
+        for (Path file : files(CHECKPOINT_SUFFIX)) {
+            if (indexOf(file, CHECKPOINT_SUFFIX) < boundary) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    /**
+     * @return first segment not covered by the latest checkpoint; 0 when there is none
+     */
+    private long latestCheckpoint() throws IOException {
+        List<Path> checkpoints = files(CHECKPOINT_SUFFIX);
+        return checkpoints.isEmpty() ? 0 : indexOf(checkpoints.get(checkpoints.size() - 1), CHECKPOINT_SUFFIX);
+    }
+    
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // The segments stay; the next rotation tries again
+            log.error("Failed to checkpoint the booking journal", e);
+        }
+    }
+    
+    private void runWriter() {
+        List<PendingAppend> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+    
+    private void writeGroup(List<PendingAppend> group) {
+        long groupSegment = segmentIndex;
+        int groupStart = segment.position();
+        written.clear();
+        // Records before this index went to a segment that a rotation has closed and forced
+        int rotatedOut = 0;
+        try {
+            for (PendingAppend pending : group) {
+                for (JournalRecord record : pending.records) {
+                    long before = segmentIndex;
+                    write(record);
+                    if (segmentIndex != before) {
+                        rotatedOut = written.size();
+                    }
+                    written.add(record);
+                }
+            }
+            force();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to append {} journal entries", group.size(), e);
+            discard(segmentIndex == groupSegment ? groupStart : 0, written.subList(0, rotatedOut));
+            group.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+        group.forEach(pending -> pending.result.complete(null));
+    }
+    
+    /**
+     * Make sure nothing of a failed group is replayed: clear its frames from {@code from} on
+     * in the current segment, and compensate those already forced into closed segments,
+     * which a checkpoint may have folded in meanwhile, newest first
+     */
+    private void discard(int from, List<JournalRecord> rotatedOut) {
+        try {
+            int end = segment.position();
+            for (int i = from; i < end; i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.position(from);
+            if (end > from) {
+                segment.force(from, end - from);
+            }
+            unforcedFrom = Math.min(unforcedFrom, from);
+            for (JournalRecord record : rotatedOut.reversed()) {
+                JournalRecord compensation = record.compensation();
+                if (compensation != null) {
+                    write(compensation);
+                }
+            }
+            force();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to discard {} journal entries of a failed append; replay may apply them",
+                      rotatedOut.size(), e);
+        }
+    }
+    
+    private void write(JournalRecord record) throws IOException {
+        scratch.clear();
+        record.encode(scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment.remaining() < HEADER + length) {
+            rotate();
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        segment.putInt(length).putInt((int) crc.getValue()).put(scratch);
+    }
+    
+    private void force() {
+        int position = segment.position();
+        if (position > unforcedFrom) {
+            segment.force(unforcedFrom, position - unforcedFrom);
+            unforcedFrom = position;
+        }
+    }
+    
+    private void rotate() throws IOException {
+        force();
+        channel.close();
+        open(segmentIndex + 1, true);
+        log.debug("Started journal segment {}", segmentIndex);
+        closedBefore = segmentIndex;
+        checkpointer.execute(this::checkpointQuietly);
+    }
+    
+    /**
+     * Map the newest segment and position it after its last intact record
+     */
+    private void openTail() throws IOException {
+        List<Path> files = files(SUFFIX);
+        if (files.isEmpty()) {
+            open(latestCheckpoint(), true);
+            return;
+        }
+        Path last = files.get(files.size() - 1);
+        open(indexOf(last, SUFFIX), false);
+        closedBefore = segmentIndex;
+        int tail = scan(segment.duplicate(), record -> { });
+        // Clear what a torn write may have left behind, so it cannot be read as a frame later
+        int end = (int) Math.min(segment.limit(), (long) tail + HEADER + JournalRecord.MAX_SIZE);
+        for (int i = tail; i < end; i++) {
+            segment.put(i, (byte) 0);
+        }
+        if (end > tail) {
+            segment.force(tail, end - tail);
+        }
+        segment.position(tail);
+        unforcedFrom = tail;
+    }
+    
+    private void open(long index, boolean create) throws IOException {
+        Path file = directory.resolve(String.format("%010d%s", index, SUFFIX));
+        channel = create
+            ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = create ? segmentSize : channel.size();
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segmentIndex = index;
+        unforcedFrom = 0;
+        if (create) {
+            syncDirectory();
+        }
+    }
+    
+    /**
+     * Make a newly created segment's directory entry durable
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the segment contents are still forced
+            log.debug("Could not sync journal directory {}", directory, e);
+        }
+    }
+    
+    /**
+     * @return position after the last intact record
+     */
+    private int scan(ByteBuffer buffer, Consumer<JournalRecord> consumer) {
+        CRC32C check = new CRC32C();
+        while (buffer.remaining() >= HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length <= 0 || length > JournalRecord.MAX_SIZE || length > buffer.remaining()) {
+                return start;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            check.reset();
+            check.update(payload.duplicate());
+            if ((int) check.getValue() != expected) {
+                return start;
+            }
+            JournalRecord record;
+            try {
+                record = JournalRecord.decode(payload);
+            } catch (RuntimeException e) {
+                return start;
+            }
+            consumer.accept(record);
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position();
+    }
+    
+    private Path checkpointFile(long boundary) {
+        return directory.resolve(String.format("%010d%s", boundary, CHECKPOINT_SUFFIX));
+    }
+    
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().endsWith(suffix))
+                .sorted()
+                .toList();
+        }
+    }
+    
+    private static long indexOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - suffix.length()));
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        checkpointer.shutdown();
+        checkpointer.awaitTermination(5, TimeUnit.SECONDS);
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Booking journal is closed"));
+        }
+        channel.close();
+    }
+    
+    /**
+     * Frames checkpoint records like segment records and writes them in large chunks
+     */
+    private static final class CheckpointWriter implements Consumer<JournalRecord> {
+        private final FileChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BUFFER_SIZE);
+        private final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.MAX_SIZE);
+        private final CRC32C crc = new CRC32C();
+        
+        private CheckpointWriter(FileChannel out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void accept(JournalRecord record) {
+            scratch.clear();
+            record.encode(scratch);
+            scratch.flip();
+            int length = scratch.remaining();
+            crc.reset();
+            crc.update(scratch.array(), 0, length);
+            if (buffer.remaining() < HEADER + length) {
+                flush();
+            }
+            buffer.putInt(length).putInt((int) crc.getValue()).put(scratch);
+        }
+        
+        private void finish() throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(0);
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+    
+    private static final class PendingAppend {
+        private final JournalRecord[] records;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        
+        private PendingAppend(JournalRecord[] records) {
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * One entry of the {@link BookingJournal}, with its compact binary form: a type
+ * byte followed by fixed-width numbers and length-prefixed UTF-8 strings.
+ * <p>
+ * Only {@link Booked}, {@link Adjusted} and {@link Voided} move tickets on replay;
+ * the other records name what the tickets moved for, so that bookings and holds
+ * come back with the IDs their clients were given.
+ */
+public sealed interface JournalRecord {
+    
+    byte EVENT = 1;
+    byte BOOKED = 2;
+    byte ADJUSTED = 3;
+    byte EVENT_DELETED = 4;
+    byte CONFIRMED = 5;
+    byte VOIDED = 6;
+    byte HELD = 7;
+    byte HOLD_CLOSED = 8;
+    byte CANCELLED = 9;
+    byte REINSTATED = 10;
+    
+    /** Upper bound of an encoded record; each string is cut to {@link #MAX_STRING_BYTES} to stay below it. */
+    int MAX_SIZE = 16 * 1024;
+    int MAX_STRING_BYTES = 4 * 1024;
+    
+    long eventId();
+    
+    void encode(ByteBuffer buffer);
+    
+    /**
+     * @return record undoing this one, appended if the transaction that wrote it
+     *         rolls back; null when there is nothing to undo
+     */
+    default JournalRecord compensation() {
+        return null;
+    }
+    
+    /**
+     * An event's definition. The first snapshot of an event fixes its starting
+     * availability on replay; later ones only update its description.
+     */
+    record EventSnapshot(long eventId, String name, String description, int totalTickets,
+                         int availableTickets, int inventoryShards) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(EVENT).putLong(eventId);
+            putString(buffer, name);
+            putString(buffer, description);
+            buffer.putInt(totalTickets).putInt(availableTickets).putInt(inventoryShards);
+        }
+    }
+    
+    /**
+     * A booking that took its tickets itself
+     */
+    record Booked(long eventId, long bookingId, int count, long bookedAtMillis, String userId, String idempotencyKey)
+            implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(BOOKED).putLong(eventId).putLong(bookingId).putInt(count).putLong(bookedAtMillis);
+            putString(buffer, userId);
+            putString(buffer, idempotencyKey);
+        }
+        
+        @Override
+        public JournalRecord compensation() {
+            return new Voided(eventId, bookingId, count);
+        }
+    }
+    
+    /**
+     * A booking of tickets that were already withdrawn, e.g. by the hold it confirms
+     */
+    record Confirmed(long eventId, long bookingId, int count, long bookedAtMillis, String userId, String idempotencyKey)
+            implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(CONFIRMED).putLong(eventId).putLong(bookingId).putInt(count).putLong(bookedAtMillis);
+            putString(buffer, userId);
+            putString(buffer, idempotencyKey);
+        }
+        
+        @Override
+        public JournalRecord compensation() {
+            return new Voided(eventId, bookingId, 0);
+        }
+    }
+    
+    /**
+     * A booking whose transaction did not commit after all; {@code restoredTickets} go back on sale
+     */
+    record Voided(long eventId, long bookingId, int restoredTickets) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(VOIDED).putLong(eventId).putLong(bookingId).putInt(restoredTickets);
+        }
+    }
+    
+    /**
+     * Tickets withdrawn (negative) or restored (positive) without a booking, e.g. by holds
+     */
+    record Adjusted(long eventId, int delta) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(ADJUSTED).putLong(eventId).putInt(delta);
+        }
+        
+        @Override
+        public JournalRecord compensation() {
+            return new Adjusted(eventId, -delta);
+        }
+    }
+    
+    /**
+     * An outstanding hold; its tickets are withdrawn by an {@link Adjusted} of the same transaction
+     */
+    record Held(long eventId, long holdId, int count, String userId, long expiresAtMillis) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(HELD).putLong(eventId).putLong(holdId).putInt(count);
+            putString(buffer, userId);
+            buffer.putLong(expiresAtMillis);
+        }
+        
+        @Override
+        public JournalRecord compensation() {
+            return new HoldClosed(eventId, holdId);
+        }
+    }
+    
+    /**
+     * A hold that was confirmed, released or expired. A closing that rolls back is not
+     * compensated: the hold is then missing on replay and its tickets stay withdrawn,
+     * which can only undersell.
+     */
+    record HoldClosed(long eventId, long holdId) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(HOLD_CLOSED).putLong(eventId).putLong(holdId);
+        }
+    }
+    
+    /**
+     * A booking cancelled by its holder or with its event; its tickets are restored by an
+     * {@link Adjusted} of the same transaction
+     */
+    record Cancelled(long eventId, long bookingId, long cancelledAtMillis) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(CANCELLED).putLong(eventId).putLong(bookingId).putLong(cancelledAtMillis);
+        }
+        
+        @Override
+        public JournalRecord compensation() {
+            return new Reinstated(eventId, bookingId);
+        }
+    }
+    
+    /**
+     * A cancellation whose transaction did not commit after all
+     */
+    record Reinstated(long eventId, long bookingId) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(REINSTATED).putLong(eventId).putLong(bookingId);
+        }
+    }
+    
+    record EventDeleted(long eventId) implements JournalRecord {
+        
+        @Override
+        public void encode(ByteBuffer buffer) {
+            buffer.put(EVENT_DELETED).putLong(eventId);
+        }
+    }
+    
+    /**
+     * @return the local date-time as journaled, in epoch milliseconds of the system time zone
+     */
+    static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    static JournalRecord decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        return switch (type) {
+            case EVENT -> new EventSnapshot(buffer.getLong(), getString(buffer), getString(buffer),
+                buffer.getInt(), buffer.getInt(), buffer.getInt());
+            case BOOKED -> new Booked(buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getLong(),
+                getString(buffer), getString(buffer));
+            case CONFIRMED -> new Confirmed(buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getLong(),
+                getString(buffer), getString(buffer));
+            case VOIDED -> new Voided(buffer.getLong(), buffer.getLong(), buffer.getInt());
+            case ADJUSTED -> new Adjusted(buffer.getLong(), buffer.getInt());
+            case HELD -> new Held(buffer.getLong(), buffer.getLong(), buffer.getInt(), getString(buffer), buffer.getLong());
+            case HOLD_CLOSED -> new HoldClosed(buffer.getLong(), buffer.getLong());
+            case CANCELLED -> new Cancelled(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            case REINSTATED -> new Reinstated(buffer.getLong(), buffer.getLong());
+            case EVENT_DELETED -> new EventDeleted(buffer.getLong());
+            default -> throw new IllegalArgumentException("Unknown journal record type " + type);
+        };
+    }
+    
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        buffer.putShort((short) length).put(bytes, 0, length);
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
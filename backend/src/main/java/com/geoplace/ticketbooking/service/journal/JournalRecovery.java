@@ -0,0 +1,159 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Rebuilds the events, bookings and outstanding holds from the {@link BookingJournal}
+ * when the service starts against an empty database, before anything else can touch them.
+ * <p>
+ * The journal is folded into a {@link JournalState}: each event's latest definition and
+ * the availability left by its records, and every booking and hold with the ID it was
+ * given. Everything is then inserted with those IDs in JDBC batches, so a client holding
+ * a booking or hold ID still finds the same one after a restart, and the identity
+ * columns are moved past them.
+ */
+@Component
+@ConditionalOnExpression(BookingJournal.ENABLED)
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class JournalRecovery {
+    
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_EVENT =
+        "INSERT INTO events (id, name, description, total_tickets, available_tickets, inventory_shards, version) " +
+        "VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_BOOKING =
+        "INSERT INTO bookings (id, event_id, ticket_count, booking_time, user_id, idempotency_key, cancelled_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_HOLD =
+        "INSERT INTO ticket_holds (id, event_id, ticket_count, user_id, expires_at) VALUES (?, ?, ?, ?, ?)";
+    
+    private final BookingJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    public JournalRecovery(BookingJournal journal, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        recover();
+    }
+    
+    private void recover() {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Database already holds {} events, not replaying the booking journal", existing);
+            return;
+        }
+        
+        JournalState state = new JournalState();
+        try {
+            journal.replay(state::apply);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the booking journal", e);
+        }
+        if (state.events.isEmpty()) {
+            return;
+        }
+        
+        int[] restored = new int[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            insertEvents(state.events);
+            restored[0] = insertBookings(state);
+            restored[1] = insertHolds(state);
+        });
+        log.info("Recovered {} events, {} bookings and {} outstanding holds from the booking journal",
+            state.events.size(), restored[0], restored[1]);
+    }
+    
+    private void insertEvents(SortedMap<Long, JournalState.EventState> events) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        events.forEach((id, event) -> {
+            if (event.available < 0) {
+                log.warn("Journal leaves event {} at {} tickets; recovering it as sold out", id, event.available);
+            }
+            rows.add(new Object[] {id, event.name, event.description, event.totalTickets,
+                Math.max(0, event.available), event.inventoryShards});
+        });
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+        restartIdentity("events", events.lastKey());
+    }
+    
+    private int insertBookings(JournalState state) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int inserted = 0;
+        long lastId = 0;
+        for (Map.Entry<Long, JournalState.BookingState> entry : state.bookings.entrySet()) {
+            JournalState.BookingState booking = entry.getValue();
+            if (!state.events.containsKey(booking.eventId)) {
+                continue;
+            }
+            batch.add(new Object[] {entry.getKey(), booking.eventId, booking.count,
+                timestampOf(booking.bookedAtMillis), booking.userId, booking.idempotencyKey,
+                booking.isCancelled() ? timestampOf(booking.cancelledAtMillis) : null});
+            lastId = entry.getKey();
+            if (batch.size() == BATCH_SIZE) {
+                inserted += flush(INSERT_BOOKING, batch);
+            }
+        }
+        inserted += flush(INSERT_BOOKING, batch);
+        if (inserted > 0) {
+            restartIdentity("bookings", lastId);
+        }
+        return inserted;
+    }
+    
+    private int insertHolds(JournalState state) {
+        List<Object[]> rows = new ArrayList<>();
+        long lastId = 0;
+        for (JournalRecord.Held hold : state.holds.values()) {
+            if (state.events.containsKey(hold.eventId())) {
+                rows.add(new Object[] {hold.holdId(), hold.eventId(), hold.count(), hold.userId(),
+                    timestampOf(hold.expiresAtMillis())});
+                lastId = hold.holdId();
+            }
+        }
+        int inserted = flush(INSERT_HOLD, rows);
+        if (inserted > 0) {
+            restartIdentity("ticket_holds", lastId);
+        }
+        return inserted;
+    }
+    
+    private int flush(String sql, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+        int flushed = batch.size();
+        batch.clear();
+        return flushed;
+    }
+    
+    /**
+     * Explicit IDs do not advance an identity column; new rows must not collide with recovered ones
+     */
+    private void restartIdentity(String table, long lastId) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (lastId + 1));
+    }
+    
+    private static Timestamp timestampOf(long epochMillis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+    }
+}
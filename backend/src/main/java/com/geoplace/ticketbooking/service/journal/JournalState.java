@@ -0,0 +1,139 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * What a run of journal records adds up to: every live event with its availability,
+ * and the bookings and outstanding holds of those events, keyed by their IDs.
+ */
+final class JournalState {
+    
+    final SortedMap<Long, EventState> events = new TreeMap<>();
+    final SortedMap<Long, BookingState> bookings = new TreeMap<>();
+    final SortedMap<Long, JournalRecord.Held> holds = new TreeMap<>();
+    
+    void apply(JournalRecord record) {
+        switch (record) {
+            case JournalRecord.EventSnapshot snapshot -> events.compute(snapshot.eventId(), (id, event) ->
+                event == null ? new EventState(snapshot) : event.redefine(snapshot));
+            case JournalRecord.Booked booked -> {
+                if (adjust(booked.eventId(), -booked.count())) {
+                    bookings.put(booked.bookingId(), new BookingState(booked.eventId(), booked.count(),
+                        booked.bookedAtMillis(), booked.userId(), booked.idempotencyKey()));
+                }
+            }
+            case JournalRecord.Confirmed confirmed -> {
+                if (events.containsKey(confirmed.eventId())) {
+                    bookings.put(confirmed.bookingId(), new BookingState(confirmed.eventId(), confirmed.count(),
+                        confirmed.bookedAtMillis(), confirmed.userId(), confirmed.idempotencyKey()));
+                }
+            }
+            case JournalRecord.Voided voided -> {
+                if (bookings.remove(voided.bookingId()) != null) {
+                    adjust(voided.eventId(), voided.restoredTickets());
+                }
+            }
+            case JournalRecord.Adjusted adjusted -> adjust(adjusted.eventId(), adjusted.delta());
+            case JournalRecord.Held held -> {
+                if (events.containsKey(held.eventId())) {
+                    holds.put(held.holdId(), held);
+                }
+            }
+            case JournalRecord.HoldClosed closed -> holds.remove(closed.holdId());
+            case JournalRecord.Cancelled cancelled -> {
+                BookingState booking = bookings.get(cancelled.bookingId());
+                if (booking != null) {
+                    booking.cancelledAtMillis = cancelled.cancelledAtMillis();
+                }
+            }
+            case JournalRecord.Reinstated reinstated -> {
+                BookingState booking = bookings.get(reinstated.bookingId());
+                if (booking != null) {
+                    booking.cancelledAtMillis = BookingState.STANDING;
+                }
+            }
+            case JournalRecord.EventDeleted deleted -> events.remove(deleted.eventId());
+        }
+    }
+    
+    /**
+     * Feed {@code consumer} the records that rebuild this state when applied to an
+     * empty one: each live event with its availability, then its bookings and holds
+     */
+    void emit(Consumer<JournalRecord> consumer) {
+        events.forEach((eventId, event) -> consumer.accept(new JournalRecord.EventSnapshot(eventId, event.name,
+            event.description, event.totalTickets, event.available, event.inventoryShards)));
+        bookings.forEach((bookingId, booking) -> {
+            if (events.containsKey(booking.eventId)) {
+                consumer.accept(new JournalRecord.Confirmed(booking.eventId, bookingId, booking.count,
+                    booking.bookedAtMillis, booking.userId, booking.idempotencyKey));
+                if (booking.isCancelled()) {
+                    consumer.accept(new JournalRecord.Cancelled(booking.eventId, bookingId, booking.cancelledAtMillis));
+                }
+            }
+        });
+        holds.values().forEach(hold -> {
+            if (events.containsKey(hold.eventId())) {
+                consumer.accept(hold);
+            }
+        });
+    }
+    
+    /**
+     * @return whether the event is known
+     */
+    private boolean adjust(long eventId, int delta) {
+        EventState event = events.get(eventId);
+        if (event == null) {
+            return false;
+        }
+        event.available += delta;
+        return true;
+    }
+    
+    static final class EventState {
+        String name;
+        String description;
+        int totalTickets;
+        int inventoryShards;
+        int available;
+        
+        private EventState(JournalRecord.EventSnapshot snapshot) {
+            redefine(snapshot);
+            this.available = snapshot.availableTickets();
+        }
+        
+        private EventState redefine(JournalRecord.EventSnapshot snapshot) {
+            this.name = snapshot.name();
+            this.description = snapshot.description();
+            this.totalTickets = snapshot.totalTickets();
+            this.inventoryShards = snapshot.inventoryShards();
+            return this;
+        }
+    }
+    
+    static final class BookingState {
+        static final long STANDING = Long.MIN_VALUE;
+        
+        final long eventId;
+        final int count;
+        final long bookedAtMillis;
+        final String userId;
+        final String idempotencyKey;
+        long cancelledAtMillis = STANDING;
+        
+        private BookingState(long eventId, int count, long bookedAtMillis, String userId, String idempotencyKey) {
+            this.eventId = eventId;
+            this.count = count;
+            this.bookedAtMillis = bookedAtMillis;
+            this.userId = userId;
+            this.idempotencyKey = idempotencyKey;
+        }
+        
+        boolean isCancelled() {
+            return cancelledAtMillis != STANDING;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.geoplace.ticketbooking.service.limits;
+
+import java.util.Arrays;
+
+/**
+ * Counters keyed by a {@code long}, in lock-striped open-addressing tables of
+ * primitive arrays, so a lookup allocates nothing and only contends with keys
+ * on the same stripe.
+ * <p>
+ * Every slot carries a stamp, the current count, the previous window's count and
+ * how much of the count is still pending. Slots are never deleted one by one: when
+ * a stripe fills up, it is rebuilt without the slots stamped before the caller's
+ * expiry threshold, and grows only if that does not free enough room. A stripe at
+ * its maximum size that is still full of live counters never drops them all, or a
+ * flood of new keys would reset everyone's counts. Counters that exist only here,
+ * for {@link #tryAcquire}, are kept and the new key goes uncounted. Counters loaded
+ * from elsewhere can be loaded again, so the older half of them make room for a new
+ * one, except those with a pending amount, which the source does not know about yet.
+ */
+final class CounterTable {
+    
+    /** Returned by {@link #add} when the key has no live counter */
+    static final int ABSENT = Integer.MIN_VALUE;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final Stripe[] stripes;
+    private final int mask;
+    
+    CounterTable(int maxEntries, int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        int perStripe = Math.max(INITIAL_CAPACITY, maxEntries / size);
+        int maxCapacity = Integer.highestOneBit(perStripe - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(maxCapacity);
+        }
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Count one hit in a sliding window of two fixed windows: the previous window's
+     * count is weighted by how much of it still overlaps the sliding window
+     * @param window Index of the current fixed window
+     * @param previousWeight Share of the previous window still inside the sliding window, 0 to 1
+     * @return whether the hit is allowed; a hit over {@code limit} is not. A key that
+     *         finds its stripe full of live counters is let through without being counted.
+     */
+    boolean tryAcquire(long key, long window, double previousWeight, int limit) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int slot = stripe.slotFor(key, window, window - 1, false);
+            if (slot < 0) {
+                return true;
+            }
+            long stamp = stripe.stamps[slot];
+            if (stamp != window) {
+                stripe.previous[slot] = stamp == window - 1 ? stripe.counts[slot] : 0;
+                stripe.counts[slot] = 0;
+                stripe.stamps[slot] = window;
+            }
+            if (stripe.previous[slot] * previousWeight + stripe.counts[slot] + 1 > limit) {
+                return false;
+            }
+            stripe.counts[slot]++;
+            return true;
+        }
+    }
+    
+    /**
+     * Add to a counter that must stay within {@code limit}. The amount stays pending,
+     * which keeps the counter from being evicted, until it is settled or subtracted.
+     * @param now Stamp recorded as the counter's last use
+     * @param expiredBefore Counters last used before this, with nothing pending, are treated as absent
+     * @return the new count; {@link #ABSENT} if the key has no live counter;
+     *         or {@code ~count} if adding would exceed the limit, leaving it unchanged
+     */
+    int add(long key, int delta, int limit, long now, long expiredBefore) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot < 0 || !stripe.isLive(slot, expiredBefore)) {
+                return ABSENT;
+            }
+            int count = stripe.counts[slot];
+            if (count + delta > limit) {
+                return ~count;
+            }
+            stripe.counts[slot] = count + delta;
+            stripe.pending[slot] += delta;
+            stripe.stamps[slot] = now;
+            return count + delta;
+        }
+    }
+    
+    /**
+     * Install a counter loaded from elsewhere, unless a live one appeared meanwhile;
+     * in a full stripe, the least recently used counters with nothing pending are
+     * dropped to make room
+     * @return false if every counter of the stripe has something pending and none was installed
+     */
+    boolean load(long key, int count, long now, long expiredBefore) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0 && stripe.isLive(slot, expiredBefore)) {
+                return true;
+            }
+            slot = stripe.slotFor(key, now, expiredBefore, true);
+            if (slot < 0) {
+                return false;
+            }
+            stripe.counts[slot] = count;
+            stripe.pending[slot] = 0;
+            stripe.stamps[slot] = now;
+            return true;
+        }
+    }
+    
+    /**
+     * Mark {@code delta} of a counter's pending amount as known to the source it is loaded from
+     */
+    void settle(long key, int delta) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                stripe.pending[slot] = Math.max(0, stripe.pending[slot] - delta);
+            }
+        }
+    }
+    
+    /**
+     * Take {@code delta} back off a live counter, never below zero
+     * @param pending whether the amount was still pending, rather than settled
+     */
+    void subtract(long key, int delta, boolean pending) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            int slot = stripe.find(key);
+            if (slot >= 0) {
+                stripe.counts[slot] = Math.max(0, stripe.counts[slot] - delta);
+                if (pending) {
+                    stripe.pending[slot] = Math.max(0, stripe.pending[slot] - delta);
+                }
+            }
+        }
+    }
+    
+    private Stripe stripeFor(long key) {
+        // High bits pick the stripe, low bits the slot within it
+        return stripes[(int) (key >>> 32) & mask];
+    }
+    
+    /**
+     * Mix a 64-bit value into a well-spread, non-zero key (murmur3 finalizer)
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value == 0 ? 1 : value;
+    }
+    
+    private static final class Stripe {
+        
+        private final int maxCapacity;
+        private long[] keys;
+        private long[] stamps;
+        private int[] counts;
+        private int[] previous;
+        private int[] pending;
+        private int size;
+        
+        private Stripe(int maxCapacity) {
+            this.maxCapacity = maxCapacity;
+            allocate(INITIAL_CAPACITY);
+        }
+        
+        /**
+         * @return slot of the key, or -1
+         */
+        private int find(long key) {
+            int capacityMask = keys.length - 1;
+            for (int slot = (int) key & capacityMask; ; slot = (slot + 1) & capacityMask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                if (keys[slot] == 0) {
+                    return -1;
+                }
+            }
+        }
+        
+        private boolean isLive(int slot, long expiredBefore) {
+            return stamps[slot] >= expiredBefore || pending[slot] > 0;
+        }
+        
+        /**
+         * @param evictOldest whether a stripe full of live counters drops the older ones with
+         *                    nothing pending, down to half its size, rather than refusing the key
+         * @return slot of the key, claiming a fresh one stamped {@code stamp} if it has none;
+         *         -1 if there is no room for it
+         */
+        private int slotFor(long key, long stamp, long expiredBefore, boolean evictOldest) {
+            int slot = find(key);
+            if (slot >= 0) {
+                return slot;
+            }
+            // Keep the load factor at most 3/4, so probes stay short and always end
+            if ((size + 1) * 4 > keys.length * 3 && !rebuild(expiredBefore, evictOldest)) {
+                return -1;
+            }
+            int capacityMask = keys.length - 1;
+            slot = (int) key & capacityMask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & capacityMask;
+            }
+            keys[slot] = key;
+            stamps[slot] = stamp;
+            counts[slot] = 0;
+            previous[slot] = 0;
+            pending[slot] = 0;
+            size++;
+            return slot;
+        }
+        
+        /**
+         * Rehash without the slots stamped before {@code expiredBefore} and with nothing pending,
+         * growing if that frees too little
+         * @return whether there is room for one more slot; if not, the stripe is left as it was
+         */
+        private boolean rebuild(long expiredBefore, boolean evictOldest) {
+            long[] oldKeys = keys;
+            long[] oldStamps = stamps;
+            int[] oldCounts = counts;
+            int[] oldPrevious = previous;
+            int[] oldPending = pending;
+            int live = 0;
+            int pinned = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && (oldStamps[i] >= expiredBefore || oldPending[i] > 0)) {
+                    live++;
+                    if (oldPending[i] > 0) {
+                        pinned++;
+                    }
+                }
+            }
+            int capacity = oldKeys.length;
+            while ((live + 1) * 2 > capacity && capacity < maxCapacity) {
+                capacity <<= 1;
+            }
+            if ((live + 1) * 4 <= capacity * 3) {
+                allocate(capacity);
+                copy(oldKeys, oldStamps, oldCounts, oldPrevious, oldPending, expiredBefore, Integer.MAX_VALUE);
+                return true;
+            }
+            // Every counter here is still live and there is no room to grow
+            if (!evictOldest || (pinned + 1) * 4 > capacity * 3) {
+                return false;
+            }
+            // Keep the newest counters with nothing pending, up to half the stripe
+            int keep = Math.max(0, capacity / 2 - pinned);
+            long cutoff = Long.MAX_VALUE;
+            int ties = 0;
+            if (keep > 0) {
+                long[] unpinnedStamps = new long[live - pinned];
+                int next = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0 && oldPending[i] == 0 && oldStamps[i] >= expiredBefore) {
+                        unpinnedStamps[next++] = oldStamps[i];
+                    }
+                }
+                Arrays.sort(unpinnedStamps);
+                cutoff = unpinnedStamps[unpinnedStamps.length - keep];
+                ties = keep;
+                for (long stamp : unpinnedStamps) {
+                    if (stamp > cutoff) {
+                        ties--;
+                    }
+                }
+            }
+            allocate(capacity);
+            copy(oldKeys, oldStamps, oldCounts, oldPrevious, oldPending, cutoff, ties);
+            return true;
+        }
+        
+        /**
+         * Rehash the old slots that have something pending or are stamped after {@code from},
+         * and the first {@code ties} of the others stamped at it
+         */
+        private void copy(long[] oldKeys, long[] oldStamps, int[] oldCounts, int[] oldPrevious, int[] oldPending,
+                          long from, int ties) {
+            int capacityMask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) {
+                    continue;
+                }
+                boolean kept = oldPending[i] > 0 || oldStamps[i] > from || (oldStamps[i] == from && ties-- > 0);
+                if (!kept) {
+                    continue;
+                }
+                int slot = (int) oldKeys[i] & capacityMask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & capacityMask;
+                }
+                keys[slot] = oldKeys[i];
+                stamps[slot] = oldStamps[i];
+                counts[slot] = oldCounts[i];
+                previous[slot] = oldPrevious[i];
+                pending[slot] = oldPending[i];
+                size++;
+            }
+        }
+        
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            stamps = new long[capacity];
+            counts = new int[capacity];
+            previous = new int[capacity];
+            pending = new int[capacity];
+            size = 0;
+        }
+    }
+}
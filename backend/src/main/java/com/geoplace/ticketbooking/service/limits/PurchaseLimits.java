@@ -0,0 +1,175 @@
+package com.geoplace.ticketbooking.service.limits;
+
+import com.geoplace.ticketbooking.exception.PurchaseLimitExceededException;
+import com.geoplace.ticketbooking.exception.RateLimitedException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.TicketHoldRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-user request rate and per-user-per-event ticket limits, checked before a
+ * booking reaches the engine, so a rejected request never opens a transaction
+ * or waits on an event row.
+ * <p>
+ * Both live in {@link CounterTable}s keyed by a seeded 64-bit hash of the user ID
+ * (and event ID). Requests are counted in a sliding window of
+ * {@code ticketbooking.limits.window}; a user who finds no room for a counter is
+ * let through uncounted rather than turned away. Ticket counters are loaded on first use from
+ * an indexed sum over the user's bookings and outstanding holds for the event, and
+ * are dropped once unused for {@code ticketbooking.limits.counter-ttl}, to be
+ * loaded again when next needed. Reserved tickets are not in that sum until their
+ * booking or hold is written, so a counter with reservations in flight is never
+ * dropped. Counters are per node: in a cluster the owner of an event keeps its
+ * ticket counters.
+ */
+@Component
+@ConditionalOnProperty(name = "ticketbooking.limits.enabled", havingValue = "true")
+@Slf4j
+public class PurchaseLimits {
+    
+    private final BookingRepository bookingRepository;
+    private final TicketHoldRepository holdRepository;
+    private final int maxTicketsPerEvent;
+    private final int maxRequests;
+    private final long windowNanos;
+    private final long counterTtlNanos;
+    private final CounterTable requests;
+    private final CounterTable tickets;
+    /** Seeds the user hash, so user IDs that collide cannot be worked out in advance */
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    
+    public PurchaseLimits(BookingRepository bookingRepository,
+                          TicketHoldRepository holdRepository,
+                          @Value("${ticketbooking.limits.max-tickets-per-event:10}") int maxTicketsPerEvent,
+                          @Value("${ticketbooking.limits.requests-per-window:20}") int maxRequests,
+                          @Value("${ticketbooking.limits.window:10s}") Duration window,
+                          @Value("${ticketbooking.limits.counter-ttl:1h}") Duration counterTtl,
+                          @Value("${ticketbooking.limits.max-entries:100000}") int maxEntries,
+                          @Value("${ticketbooking.limits.stripes:64}") int stripes) {
+        this.bookingRepository = bookingRepository;
+        this.holdRepository = holdRepository;
+        this.maxTicketsPerEvent = maxTicketsPerEvent;
+        this.maxRequests = maxRequests;
+        this.windowNanos = window.toNanos();
+        this.counterTtlNanos = counterTtl.toNanos();
+        this.requests = new CounterTable(maxEntries, stripes);
+        this.tickets = new CounterTable(maxEntries, stripes);
+        log.info("Limiting users to {} tickets per event and {} booking requests per {}",
+                 maxTicketsPerEvent, maxRequests, window);
+    }
+    
+    /**
+     * Count a booking request against the user's rate limit
+     * @throws RateLimitedException if the user is over it
+     */
+    public void admit(String userId) {
+        long now = System.nanoTime();
+        long window = Math.floorDiv(now, windowNanos);
+        long intoWindow = Math.floorMod(now, windowNanos);
+        double previousWeight = 1 - (double) intoWindow / windowNanos;
+        if (!requests.tryAcquire(userKey(userId), window, previousWeight, maxRequests)) {
+            log.debug("Rate limited booking request of user {}", userId);
+            long retryAfterSeconds = Math.max(1, Duration.ofNanos(windowNanos - intoWindow).toSeconds());
+            throw new RateLimitedException(
+                "Too many booking requests from user " + userId + ", please retry later", retryAfterSeconds);
+        }
+    }
+    
+    /**
+     * Count tickets towards the user's limit for the event ahead of booking or holding them.
+     * Once the booking or hold is written they have to be {@link #settle}d, and if that
+     * fails they have to be given back with {@link #abandon}. In the rare case that the
+     * counter's stripe is full of reservations in flight, the tickets are only checked
+     * against the database.
+     * @throws PurchaseLimitExceededException if they would take the user past the limit
+     */
+    public void reserve(String userId, Long eventId, int count) {
+        if (count > maxTicketsPerEvent) {
+            throw new PurchaseLimitExceededException(count, maxTicketsPerEvent, 0);
+        }
+        long key = ticketKey(userId, eventId);
+        long now = System.nanoTime();
+        long expiredBefore = now - counterTtlNanos;
+        int result;
+        while ((result = tickets.add(key, count, maxTicketsPerEvent, now, expiredBefore)) == CounterTable.ABSENT) {
+            // Cold: load outside the stripe lock, a concurrent load of the same counter wins or loses harmlessly
+            int purchased = Math.toIntExact(bookingRepository.sumTicketCount(userId, eventId)
+                + holdRepository.sumTicketCount(userId, eventId));
+            if (!tickets.load(key, purchased, now, expiredBefore)) {
+                log.warn("No room for the ticket counter of user {} for event {}, checking the database only",
+                         userId, eventId);
+                result = purchased + count > maxTicketsPerEvent ? ~purchased : purchased + count;
+                break;
+            }
+        }
+        if (result < 0) {
+            log.debug("User {} is at the ticket limit for event {}", userId, eventId);
+            throw new PurchaseLimitExceededException(count, maxTicketsPerEvent, ~result);
+        }
+    }
+    
+    /**
+     * Reserve every line of an order, or none of them
+     */
+    public void reserveAll(String userId, SortedMap<Long, Integer> ticketsPerEvent) {
+        Long failed = null;
+        try {
+            for (var line : ticketsPerEvent.entrySet()) {
+                failed = line.getKey();
+                reserve(userId, line.getKey(), line.getValue());
+            }
+        } catch (RuntimeException e) {
+            abandonAll(userId, ticketsPerEvent.headMap(failed));
+            throw e;
+        }
+    }
+    
+    /**
+     * Mark reserved tickets as written, so their counter can be dropped and loaded again
+     */
+    public void settle(String userId, Long eventId, int count) {
+        tickets.settle(ticketKey(userId, eventId), count);
+    }
+    
+    public void settleAll(String userId, SortedMap<Long, Integer> ticketsPerEvent) {
+        ticketsPerEvent.forEach((eventId, count) -> settle(userId, eventId, count));
+    }
+    
+    /**
+     * Give back reserved tickets whose booking or hold failed
+     */
+    public void abandon(String userId, Long eventId, int count) {
+        tickets.subtract(ticketKey(userId, eventId), count, true);
+    }
+    
+    public void abandonAll(String userId, SortedMap<Long, Integer> ticketsPerEvent) {
+        ticketsPerEvent.forEach((eventId, count) -> abandon(userId, eventId, count));
+    }
+    
+    /**
+     * Give back settled tickets whose hold was released or expired, or whose booking was cancelled
+     */
+    public void release(String userId, Long eventId, int count) {
+        tickets.subtract(ticketKey(userId, eventId), count, false);
+    }
+    
+    private long userKey(String userId) {
+        // FNV-1a from a random offset
+        long hash = seed;
+        for (int i = 0; i < userId.length(); i++) {
+            hash = (hash ^ userId.charAt(i)) * 0x100000001b3L;
+        }
+        return CounterTable.mix(hash);
+    }
+    
+    private long ticketKey(String userId, Long eventId) {
+        return CounterTable.mix(userKey(userId) + eventId * 0x9e3779b97f4a7c15L);
+    }
+}
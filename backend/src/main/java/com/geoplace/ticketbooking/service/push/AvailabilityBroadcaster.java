@@ -0,0 +1,250 @@
+package com.geoplace.ticketbooking.service.push;
+
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.EventCatalogSnapshot;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes availability changes to every open {@code GET /api/events/stream} as Server-Sent Events.
+ * <p>
+ * Committed {@link CatalogChange}s only mark their event dirty. Once per
+ * {@code ticketbooking.push.interval} the ticker reads the latest availability of the dirty
+ * events and writes the ones that moved into a single {@code availability} frame, so an event
+ * is pushed at most once per tick and always with its newest value. That frame is encoded once
+ * and the same bytes go to every subscriber. A new subscriber first gets the current
+ * {@link EventCatalogSnapshot} as a {@code snapshot} frame, as does everyone after an event is
+ * created or removed.
+ * <p>
+ * Idle subscribers cost an open async request and nothing else. Each subscriber has its own
+ * frame queue, drained on a virtual thread only while frames are pending, so a slow client
+ * never holds up the others. A subscriber more than {@code ticketbooking.push.max-queued-frames}
+ * behind is disconnected; the browser reconnects and starts again from a snapshot.
+ */
+@Component
+@Slf4j
+public class AvailabilityBroadcaster implements DisposableBean {
+    
+    private static final byte[] HEARTBEAT = ": keepalive\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SNAPSHOT_PREFIX = "event: snapshot\ndata: ".getBytes(StandardCharsets.US_ASCII);
+    private static final String AVAILABILITY_PREFIX = "event: availability\ndata: [";
+    
+    private final TicketBookingService ticketBookingService;
+    private final EventCatalogSnapshot eventCatalogSnapshot;
+    private final long maxConnectionAgeMillis;
+    private final int maxQueuedFrames;
+    private final long heartbeatIntervalNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyEvents = ConcurrentHashMap.newKeySet();
+    private volatile boolean catalogChanged;
+    private volatile SnapshotFrame snapshotFrame;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService ticker;
+    
+    // Ticker thread only
+    private final Map<Long, Integer> published = new HashMap<>();
+    private long lastFrameAt = System.nanoTime();
+    
+    public AvailabilityBroadcaster(TicketBookingService ticketBookingService,
+                                   EventCatalogSnapshot eventCatalogSnapshot,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${ticketbooking.push.interval:100ms}") Duration interval,
+                                   @Value("${ticketbooking.push.heartbeat-interval:20s}") Duration heartbeatInterval,
+                                   @Value("${ticketbooking.push.max-connection-age:30m}") Duration maxConnectionAge,
+                                   @Value("${ticketbooking.push.max-queued-frames:64}") int maxQueuedFrames) {
+        this.ticketBookingService = ticketBookingService;
+        this.eventCatalogSnapshot = eventCatalogSnapshot;
+        this.maxConnectionAgeMillis = maxConnectionAge.toMillis();
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        Gauge.builder("ticketbooking.push.subscribers", subscribers, Set::size)
+            .description("Open availability streams")
+            .register(meterRegistry);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("availability-push").daemon().factory());
+        ticker.scheduleWithFixedDelay(this::tick, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Open a stream for one client, starting with the current snapshot
+     */
+    public ResponseBodyEmitter subscribe() {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(maxConnectionAgeMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // EventSource reconnects on its own once the stream ends
+        emitter.onTimeout(emitter::complete);
+        subscribers.add(subscriber);
+        subscriber.offer(snapshotFrame());
+        return emitter;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChange change) {
+        switch (change.type()) {
+            // Entity updates include the database engine's own availability writes
+            case UPDATED, AVAILABILITY, RESTOCKED -> dirtyEvents.add(change.eventId());
+            case CREATED, DELETED -> catalogChanged = true;
+        }
+    }
+    
+    /**
+     * Publish what changed since the last tick, or a heartbeat once the stream has been quiet
+     */
+    void tick() {
+        try {
+            if (subscribers.isEmpty()) {
+                // Nobody to tell; a new subscriber starts from a snapshot anyway
+                dirtyEvents.clear();
+                published.clear();
+                catalogChanged = false;
+                return;
+            }
+            byte[] frame = null;
+            if (catalogChanged) {
+                catalogChanged = false;
+                frame = snapshotFrame();
+            } else if (!dirtyEvents.isEmpty()) {
+                frame = availabilityFrame();
+            }
+            if (frame == null && System.nanoTime() - lastFrameAt >= heartbeatIntervalNanos) {
+                frame = HEARTBEAT;
+            }
+            if (frame != null) {
+                lastFrameAt = System.nanoTime();
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(frame);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish availability updates", e);
+        }
+    }
+    
+    /**
+     * @return frame with the events whose availability moved since they were last published, or null
+     */
+    private byte[] availabilityFrame() {
+        StringBuilder frame = new StringBuilder(AVAILABILITY_PREFIX.length() + dirtyEvents.size() * 40)
+            .append(AVAILABILITY_PREFIX);
+        int changed = 0;
+        for (Long eventId : List.copyOf(dirtyEvents)) {
+            // Clear the mark before reading, so a change landing mid-read is picked up next tick
+            dirtyEvents.remove(eventId);
+            int available;
+            try {
+                available = ticketBookingService.getEvent(eventId).getAvailableTickets();
+            } catch (EventNotFoundException e) {
+                published.remove(eventId);
+                continue;
+            }
+            Integer previous = published.put(eventId, available);
+            if (previous != null && previous == available) {
+                continue;
+            }
+            frame.append(changed++ == 0 ? "" : ",")
+                .append("{\"id\":").append(eventId)
+                .append(",\"availableTickets\":").append(available).append('}');
+        }
+        if (changed == 0) {
+            return null;
+        }
+        return frame.append("]\n\n").toString().getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * @return the current catalog snapshot as a frame, shared until the snapshot changes
+     */
+    private byte[] snapshotFrame() {
+        EventCatalogSnapshot.Snapshot snapshot = eventCatalogSnapshot.current();
+        SnapshotFrame cached = snapshotFrame;
+        if (cached != null && cached.snapshot == snapshot) {
+            return cached.frame;
+        }
+        byte[] json = snapshot.json();
+        byte[] frame = new byte[SNAPSHOT_PREFIX.length + json.length + 2];
+        System.arraycopy(SNAPSHOT_PREFIX, 0, frame, 0, SNAPSHOT_PREFIX.length);
+        System.arraycopy(json, 0, frame, SNAPSHOT_PREFIX.length, json.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        snapshotFrame = new SnapshotFrame(snapshot, frame);
+        return frame;
+    }
+    
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdown();
+    }
+    
+    private record SnapshotFrame(EventCatalogSnapshot.Snapshot snapshot, byte[] frame) {
+    }
+    
+    private final class Subscriber {
+        
+        private final ResponseBodyEmitter emitter;
+        private final Queue<byte[]> frames = new ConcurrentLinkedQueue<>();
+        // Frames queued or being sent; the offer that raises it from zero starts the sender
+        private final AtomicInteger pending = new AtomicInteger();
+        
+        private Subscriber(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        private void offer(byte[] frame) {
+            if (pending.get() >= maxQueuedFrames) {
+                log.debug("Disconnecting availability subscriber {} frames behind", pending.get());
+                if (subscribers.remove(this)) {
+                    emitter.complete();
+                }
+                return;
+            }
+            frames.add(frame);
+            if (pending.getAndIncrement() == 0) {
+                senders.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            do {
+                byte[] frame = frames.poll();
+                try {
+                    emitter.send(frame, MediaType.TEXT_EVENT_STREAM);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away, or the stream already ended; the container completes it
+                    subscribers.remove(this);
+                    frames.clear();
+                    return;
+                }
+            } while (pending.decrementAndGet() > 0);
+        }
+    }
+}
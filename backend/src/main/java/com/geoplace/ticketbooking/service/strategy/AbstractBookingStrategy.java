@@ -0,0 +1,173 @@
+package com.geoplace.ticketbooking.service.strategy;
+
+import com.geoplace.ticketbooking.diagnostics.BookingMetrics;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Shared booking bookkeeping and per-strategy metrics:
+ * {@code booking.strategy.attempts}, {@code booking.strategy.retries},
+ * {@code booking.strategy.conflicts} and {@code booking.strategy.outcomes},
+ * all tagged with the strategy name.
+ * <p>
+ * The database phases are timed as well: {@code booking.db.lock_wait} for the
+ * row lock, {@code booking.db.save} per entity, and {@code booking.db.commit}.
+ * The commit includes the flush of any pending entity updates.
+ */
+@Slf4j
+public abstract class AbstractBookingStrategy implements BookingConcurrencyStrategy {
+    
+    protected final EventRepository eventRepository;
+    protected final BookingRepository bookingRepository;
+    protected final TransactionTemplate transactionTemplate;
+    
+    private final Counter attempts;
+    private final Counter retries;
+    private final Counter conflicts;
+    private final Counter successes;
+    private final Counter insufficient;
+    private final Counter notFound;
+    private final Timer lockWait;
+    private final Timer eventSave;
+    private final Timer bookingSave;
+    private final Timer commit;
+    
+    protected AbstractBookingStrategy(EventRepository eventRepository,
+                                      BookingRepository bookingRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        
+        String strategy = getName();
+        this.attempts = meterRegistry.counter("booking.strategy.attempts", "strategy", strategy);
+        this.retries = meterRegistry.counter("booking.strategy.retries", "strategy", strategy);
+        this.conflicts = meterRegistry.counter("booking.strategy.conflicts", "strategy", strategy);
+        this.successes = meterRegistry.counter("booking.strategy.outcomes", "strategy", strategy, "outcome", "success");
+        this.insufficient = meterRegistry.counter("booking.strategy.outcomes", "strategy", strategy, "outcome", "insufficient");
+        this.notFound = meterRegistry.counter("booking.strategy.outcomes", "strategy", strategy, "outcome", "not_found");
+        this.lockWait = BookingMetrics.latencyTimer(meterRegistry, "booking.db.lock_wait", "strategy", strategy);
+        this.eventSave = BookingMetrics.latencyTimer(meterRegistry, "booking.db.save", "strategy", strategy, "entity", "event");
+        this.bookingSave = BookingMetrics.latencyTimer(meterRegistry, "booking.db.save", "strategy", strategy, "entity", "booking");
+        this.commit = BookingMetrics.latencyTimer(meterRegistry, "booking.db.commit", "strategy", strategy);
+    }
+    
+    /**
+     * Run {@code action} in a transaction, timing the commit separately from the work
+     */
+    protected <T> T inTransaction(TransactionCallback<T> action) {
+        long[] workDone = new long[1];
+        T result = transactionTemplate.execute(status -> {
+            T value = action.doInTransaction(status);
+            workDone[0] = System.nanoTime();
+            return value;
+        });
+        commit.record(System.nanoTime() - workDone[0], TimeUnit.NANOSECONDS);
+        return result;
+    }
+    
+    /**
+     * Read the event with {@code PESSIMISTIC_WRITE}, timing how long the lock took
+     */
+    protected Optional<Event> lockEvent(Long eventId) {
+        long start = System.nanoTime();
+        try {
+            return eventRepository.findByIdWithLock(eventId);
+        } finally {
+            lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Write the event's new availability, immediately when {@code flush} is set
+     */
+    protected void saveEvent(Event event, boolean flush) {
+        long start = System.nanoTime();
+        try {
+            if (flush) {
+                eventRepository.saveAndFlush(event);
+            } else {
+                eventRepository.save(event);
+            }
+        } finally {
+            eventSave.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Run a bulk update of the event row, timed as its save
+     * @return rows updated
+     */
+    protected int updateEvent(IntSupplier update) {
+        long start = System.nanoTime();
+        try {
+            return update.getAsInt();
+        } finally {
+            eventSave.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Insert the booking row for tickets already taken from {@code event}
+     */
+    protected BookingResponse recordBooking(Event event, int count, String userId, String idempotencyKey) {
+        long start = System.nanoTime();
+        Booking booking;
+        try {
+            booking = bookingRepository.save(new Booking(event, count, userId, idempotencyKey));
+        } finally {
+            bookingSave.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        successes.increment();
+        return BookingResponse.success(
+            booking.getId(),
+            event.getId(),
+            event.getName(),
+            count,
+            event.getAvailableTickets()
+        );
+    }
+    
+    protected EventNotFoundException eventNotFound(Long eventId) {
+        notFound.increment();
+        return new EventNotFoundException("Event not found with id: " + eventId);
+    }
+    
+    protected InsufficientTicketsException insufficientTickets(Long eventId, int count, int available) {
+        insufficient.increment();
+        // A sold-out event turns every attempt into one of these; the outcome counter carries the rate
+        if (log.isDebugEnabled()) {
+            log.debug("Insufficient tickets for event {}. Requested: {}, Available: {}",
+                      eventId, count, available);
+        }
+        return new InsufficientTicketsException(count, available);
+    }
+    
+    protected void recordAttempt() {
+        attempts.increment();
+    }
+    
+    protected void recordRetry() {
+        retries.increment();
+    }
+    
+    protected void recordConflict() {
+        conflicts.increment();
+    }
+}
@@ -0,0 +1,26 @@
+package com.geoplace.ticketbooking.service.strategy;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+
+/**
+ * How the database engine keeps concurrent bookings of one event row from overselling it.
+ * The active strategy is selected with {@code ticketbooking.booking.strategy}.
+ */
+public interface BookingConcurrencyStrategy {
+    
+    /**
+     * @return the value of {@code ticketbooking.booking.strategy} that selects this strategy
+     */
+    String getName();
+    
+    /**
+     * Take tickets from the event row and record the booking, in transaction(s)
+     * managed by the strategy itself
+     * @param eventId The event ID
+     * @param count Number of tickets to book
+     * @param userId User making the booking
+     * @param idempotencyKey Stored on the booking row, may be null
+     * @return BookingResponse with booking details
+     */
+    BookingResponse bookTickets(Long eventId, int count, String userId, String idempotencyKey);
+}
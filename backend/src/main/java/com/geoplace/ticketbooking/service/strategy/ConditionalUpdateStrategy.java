@@ -0,0 +1,50 @@
+package com.geoplace.ticketbooking.service.strategy;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Takes the tickets with a single
+ * {@code UPDATE ... WHERE available_tickets >= :count} and checks the rows
+ * affected, so the row is only locked for the duration of that statement.
+ */
+@Component
+public class ConditionalUpdateStrategy extends AbstractBookingStrategy {
+    
+    public static final String NAME = "conditional-update";
+    
+    public ConditionalUpdateStrategy(EventRepository eventRepository,
+                                     BookingRepository bookingRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     MeterRegistry meterRegistry) {
+        super(eventRepository, bookingRepository, transactionTemplate, meterRegistry);
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, int count, String userId, String idempotencyKey) {
+        recordAttempt();
+        return inTransaction(status -> {
+            if (count <= 0 || updateEvent(() -> eventRepository.decrementAvailableTickets(eventId, count)) == 0) {
+                // Nothing was taken: tell a missing event apart from a short one
+                Event event = eventRepository.findById(eventId)
+                    .orElseThrow(() -> eventNotFound(eventId));
+                throw insufficientTickets(eventId, count, event.getAvailableTickets());
+            }
+            
+            // The bulk update bypassed the persistence context, so this read sees the new count
+            Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> eventNotFound(eventId));
+            return recordBooking(event, count, userId, idempotencyKey);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.geoplace.ticketbooking.service.strategy;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads the event without a lock and relies on its {@code @Version} column to
+ * detect concurrent updates. A conflicting attempt is retried in a fresh
+ * transaction after a full-jitter exponential backoff, up to
+ * {@code ticketbooking.booking.optimistic.max-retries} times.
+ */
+@Component
+@Slf4j
+public class OptimisticLockingStrategy extends AbstractBookingStrategy {
+    
+    public static final String NAME = "optimistic";
+    
+    private final int maxRetries;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    
+    public OptimisticLockingStrategy(EventRepository eventRepository,
+                                     BookingRepository bookingRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${ticketbooking.booking.optimistic.max-retries:10}") int maxRetries,
+                                     @Value("${ticketbooking.booking.optimistic.base-backoff:2ms}") Duration baseBackoff,
+                                     @Value("${ticketbooking.booking.optimistic.max-backoff:100ms}") Duration maxBackoff) {
+        super(eventRepository, bookingRepository, transactionTemplate, meterRegistry);
+        this.maxRetries = maxRetries;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, int count, String userId, String idempotencyKey) {
+        for (int attempt = 0; ; attempt++) {
+            recordAttempt();
+            try {
+                return inTransaction(status -> bookOnce(eventId, count, userId, idempotencyKey));
+            } catch (ConcurrencyFailureException e) {
+                recordConflict();
+                if (attempt >= maxRetries) {
+                    log.warn("Giving up booking for event {} after {} conflicting attempts", eventId, attempt + 1);
+                    throw new BookingConflictException(
+                        "Too many concurrent bookings for event " + eventId + ", please retry");
+                }
+                recordRetry();
+                backoff(attempt);
+            }
+        }
+    }
+    
+    private BookingResponse bookOnce(Long eventId, int count, String userId, String idempotencyKey) {
+        Event event = eventRepository.findById(eventId)
+            .orElseThrow(() -> eventNotFound(eventId));
+        
+        if (!event.canBook(count)) {
+            throw insufficientTickets(eventId, count, event.getAvailableTickets());
+        }
+        
+        event.bookTickets(count);
+        // Flush now so a version conflict surfaces before the booking row is written
+        saveEvent(event, true);
+        return recordBooking(event, count, userId, idempotencyKey);
+    }
+    
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt, 20));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
@@ -0,0 +1,49 @@
+package com.geoplace.ticketbooking.service.strategy;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Locks the event row with {@code PESSIMISTIC_WRITE} for the whole booking.
+ * Never retries; contention shows up as lock wait instead.
+ */
+@Component
+public class PessimisticLockingStrategy extends AbstractBookingStrategy {
+    
+    public static final String NAME = "pessimistic";
+    
+    public PessimisticLockingStrategy(EventRepository eventRepository,
+                                      BookingRepository bookingRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        super(eventRepository, bookingRepository, transactionTemplate, meterRegistry);
+    }
+    
+    @Override
+    public String getName() {
+        return NAME;
+    }
+    
+    @Override
+    public BookingResponse bookTickets(Long eventId, int count, String userId, String idempotencyKey) {
+        recordAttempt();
+        return inTransaction(status -> {
+            // Use pessimistic write lock to prevent concurrent modifications
+            Event event = lockEvent(eventId)
+                .orElseThrow(() -> eventNotFound(eventId));
+            
+            if (!event.canBook(count)) {
+                throw insufficientTickets(eventId, count, event.getAvailableTickets());
+            }
+            
+            event.bookTickets(count);
+            saveEvent(event, false);
+            return recordBooking(event, count, userId, idempotencyKey);
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package com.geoplace.ticketbooking.service.waitingroom;
+
+import com.geoplace.ticketbooking.dto.QueueStatusResponse;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.NotAdmittedException;
+import com.geoplace.ticketbooking.exception.QueueTokenNotFoundException;
+import com.geoplace.ticketbooking.service.cache.AvailabilityIndex;
+import com.geoplace.ticketbooking.service.hold.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-event virtual queue in front of the booking path for flash sales.
+ * <p>
+ * Callers join an event's queue and get a token carrying their sequence number.
+ * A token bucket per event admits the queue head at
+ * {@code ticketbooking.waiting-room.admission-rate} per second, with bursts up to
+ * {@code burst}; admission is computed lazily whenever someone asks, so an idle
+ * queue costs nothing. An admitted token is good for one booking within
+ * {@code admission-window}. Once the {@link AvailabilityIndex} reports the event
+ * sold out, joins and polls answer {@code SOLD_OUT} with a retry-after straight
+ * from memory. Tokens are only required to book when
+ * {@code ticketbooking.waiting-room.enabled} is set.
+ */
+@Service
+@Slf4j
+public class WaitingRoom implements DisposableBean {
+    
+    public static final String TOKEN_HEADER = "X-Queue-Token";
+    
+    private final AvailabilityIndex availabilityIndex;
+    private final boolean enabled;
+    private final double admissionRate;
+    private final int burst;
+    private final long admissionWindowNanos;
+    private final long soldOutRetryAfterSeconds;
+    private final ConcurrentMap<Long, EventQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueueEntry> entries = new ConcurrentHashMap<>();
+    private final Duration tokenTtl;
+    private final TimingWheel<QueueEntry> tokenExpiry;
+    private final Counter queued;
+    private final Counter soldOut;
+    private final Counter admittedEntries;
+    private final Counter rejectedEntries;
+    
+    public WaitingRoom(AvailabilityIndex availabilityIndex,
+                       MeterRegistry meterRegistry,
+                       @Value("${ticketbooking.waiting-room.enabled:false}") boolean enabled,
+                       @Value("${ticketbooking.waiting-room.admission-rate:50}") double admissionRate,
+                       @Value("${ticketbooking.waiting-room.burst:50}") int burst,
+                       @Value("${ticketbooking.waiting-room.admission-window:2m}") Duration admissionWindow,
+                       @Value("${ticketbooking.waiting-room.sold-out-retry-after:30s}") Duration soldOutRetryAfter,
+                       @Value("${ticketbooking.waiting-room.token-ttl:30m}") Duration tokenTtl) {
+        this.availabilityIndex = availabilityIndex;
+        this.enabled = enabled;
+        this.admissionRate = admissionRate;
+        this.burst = burst;
+        this.admissionWindowNanos = admissionWindow.toNanos();
+        this.soldOutRetryAfterSeconds = soldOutRetryAfter.toSeconds();
+        this.tokenTtl = tokenTtl;
+        this.queued = meterRegistry.counter("waitingroom.joins", "outcome", "queued");
+        this.soldOut = meterRegistry.counter("waitingroom.joins", "outcome", "sold_out");
+        this.admittedEntries = meterRegistry.counter("waitingroom.entries", "outcome", "admitted");
+        this.rejectedEntries = meterRegistry.counter("waitingroom.entries", "outcome", "rejected");
+        
+        // Abandoned tokens are dropped once they could no longer be used anyway
+        this.tokenExpiry = new TimingWheel<>("queue-token-expiry", Duration.ofSeconds(1), 2048,
+            expired -> expired.forEach(entry -> entries.remove(entry.token, entry)));
+    }
+    
+    /**
+     * Join the queue for an event
+     * @return the new token and its place in the queue, or SOLD_OUT without a token
+     */
+    public QueueStatusResponse join(Long eventId, String userId) {
+        int remaining = availabilityIndex.remaining(eventId);
+        if (remaining == AvailabilityIndex.UNKNOWN) {
+            throw new EventNotFoundException("Event not found with id: " + eventId);
+        }
+        if (remaining == 0) {
+            soldOut.increment();
+            return QueueStatusResponse.soldOut(null, eventId, soldOutRetryAfterSeconds);
+        }
+        
+        EventQueue queue = queues.computeIfAbsent(eventId, id -> new EventQueue(burst));
+        QueueEntry entry = new QueueEntry(UUID.randomUUID().toString(), eventId, queue.issued.getAndIncrement());
+        entries.put(entry.token, entry);
+        tokenExpiry.schedule(entry, tokenTtl);
+        queued.increment();
+        log.debug("User {} joined the queue for event {} at {}", userId, eventId, entry.sequence);
+        return statusOf(entry, queue);
+    }
+    
+    /**
+     * Current state of a token: its position while waiting, or how long it stays admitted
+     */
+    public QueueStatusResponse status(String token) {
+        QueueEntry entry = entries.get(token);
+        if (entry == null) {
+            throw new QueueTokenNotFoundException("Queue token not found or expired: " + token);
+        }
+        return statusOf(entry, queues.get(entry.eventId));
+    }
+    
+    /**
+     * Let a booking for {@code eventId} through if its token has been admitted,
+     * using the token up. A no-op when the waiting room is disabled.
+     * @throws NotAdmittedException if the token is missing, unknown, or still waiting
+     */
+    public void enter(Long eventId, String token) {
+        if (!enabled) {
+            return;
+        }
+        QueueEntry entry = admitted(eventId, token == null ? null : entries.get(token));
+        if (!entries.remove(token, entry)) {
+            rejectedEntries.increment();
+            throw new NotAdmittedException("Queue token already used: " + token, 1);
+        }
+        admittedEntries.increment();
+    }
+    
+    /**
+     * Let several bookings through together, each on an admitted token for its event, or
+     * none of them. A no-op when the waiting room is disabled.
+     * @param eventIds event of each booking, once per booking
+     * @param tokens comma-separated tokens, matched to the bookings by their events
+     * @throws NotAdmittedException if any booking has no admitted token left for its event
+     */
+    public void enterAll(List<Long> eventIds, String tokens) {
+        if (!enabled) {
+            return;
+        }
+        List<QueueEntry> unused = new ArrayList<>();
+        if (tokens != null) {
+            for (String token : tokens.split(",")) {
+                QueueEntry entry = entries.get(token.trim());
+                if (entry != null) {
+                    unused.add(entry);
+                }
+            }
+        }
+        List<QueueEntry> matched = new ArrayList<>(eventIds.size());
+        for (Long eventId : eventIds) {
+            QueueEntry entry = unused.stream()
+                .filter(candidate -> candidate.eventId.equals(eventId))
+                .findFirst()
+                .orElse(null);
+            unused.remove(entry);
+            matched.add(admitted(eventId, entry));
+        }
+        
+        List<QueueEntry> used = new ArrayList<>(matched.size());
+        for (QueueEntry entry : matched) {
+            if (!entries.remove(entry.token, entry)) {
+                // Hand back the tokens taken so far; the request books nothing
+                used.forEach(taken -> entries.put(taken.token, taken));
+                rejectedEntries.increment();
+                throw new NotAdmittedException("Queue token already used: " + entry.token, 1);
+            }
+            used.add(entry);
+        }
+        admittedEntries.increment(used.size());
+    }
+    
+    /**
+     * @return the entry, once it is known to be admitted for the event
+     * @throws NotAdmittedException if the entry is missing, for another event, or still waiting
+     */
+    private QueueEntry admitted(Long eventId, QueueEntry entry) {
+        if (entry == null || !entry.eventId.equals(eventId)) {
+            rejectedEntries.increment();
+            EventQueue queue = queues.get(eventId);
+            long waiting = queue == null ? 0 : queue.waiting(System.nanoTime(), admissionRate);
+            throw new NotAdmittedException("Join the waiting room for event " + eventId + " first",
+                retryAfterSeconds(waiting + 1));
+        }
+        
+        QueueStatusResponse status = statusOf(entry, queues.get(eventId));
+        if (status.getStatus() == QueueStatusResponse.Status.WAITING) {
+            rejectedEntries.increment();
+            throw new NotAdmittedException("Still waiting at position " + status.getPosition(),
+                status.getRetryAfterSeconds());
+        }
+        return entry;
+    }
+    
+    private QueueStatusResponse statusOf(QueueEntry entry, EventQueue queue) {
+        if (availabilityIndex.isSoldOut(entry.eventId)) {
+            return QueueStatusResponse.soldOut(entry.token, entry.eventId, soldOutRetryAfterSeconds);
+        }
+        
+        long now = System.nanoTime();
+        long admitted = queue.admit(now, admissionRate);
+        if (entry.sequence >= admitted) {
+            long position = entry.sequence - admitted + 1;
+            return QueueStatusResponse.waiting(entry.token, entry.eventId, position, retryAfterSeconds(position));
+        }
+        
+        long admittedAt = entry.admittedAt(now);
+        long left = admissionWindowNanos - (now - admittedAt);
+        if (left <= 0) {
+            entries.remove(entry.token, entry);
+            throw new QueueTokenNotFoundException("Queue token not found or expired: " + entry.token);
+        }
+        return QueueStatusResponse.admitted(entry.token, entry.eventId,
+            LocalDateTime.now().plusNanos(left));
+    }
+    
+    private long retryAfterSeconds(long position) {
+        return Math.max(1, (long) Math.ceil(position / admissionRate));
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        tokenExpiry.close();
+    }
+    
+    /**
+     * Sequence numbers handed out for one event and the token bucket admitting them
+     */
+    private static final class EventQueue {
+        
+        private final AtomicLong issued = new AtomicLong();
+        private final int burst;
+        private long admitted;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        
+        private EventQueue(int burst) {
+            this.burst = burst;
+            this.tokens = burst;
+        }
+        
+        /**
+         * Refill the bucket for the time passed and admit as many waiting callers as it covers
+         * @return sequence numbers below this are admitted
+         */
+        synchronized long admit(long now, double ratePerSecond) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+            long admitting = Math.min((long) tokens, issued.get() - admitted);
+            admitted += admitting;
+            tokens -= admitting;
+            return admitted;
+        }
+        
+        long waiting(long now, double ratePerSecond) {
+            return issued.get() - admit(now, ratePerSecond);
+        }
+    }
+    
+    private static final class QueueEntry {
+        
+        private final String token;
+        private final Long eventId;
+        private final long sequence;
+        private final AtomicLong admittedAt = new AtomicLong();
+        
+        private QueueEntry(String token, Long eventId, long sequence) {
+            this.token = token;
+            this.eventId = eventId;
+            this.sequence = sequence;
+        }
+        
+        /**
+         * When the entry was first seen admitted; the admission window runs from there
+         */
+        long admittedAt(long now) {
+            admittedAt.compareAndSet(0, now);
+            return admittedAt.get();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.geoplace.ticketbooking.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitedDataSourceTest {
+    
+    @Test
+    void testPermitReturnedWhenConnectionClosed() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource =
+            new ConcurrencyLimitedDataSource(target, 1, 10, Duration.ofMillis(50));
+        
+        Connection first = dataSource.getConnection();
+        assertEquals(0, dataSource.getAvailablePermits());
+        
+        first.close();
+        first.close(); // closing twice must not hand out a second permit
+        assertEquals(1, dataSource.getAvailablePermits());
+        
+        dataSource.getConnection().close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+    
+    @Test
+    void testWaiterTimesOutWhileAllPermitsHeld() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource =
+            new ConcurrencyLimitedDataSource(target, 1, 10, Duration.ofMillis(50));
+        
+        Connection held = dataSource.getConnection();
+        
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getWaiters());
+        held.close();
+    }
+    
+    @Test
+    void testCallersShedWhenWaitQueueIsFull() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource =
+            new ConcurrencyLimitedDataSource(target, 1, 0, Duration.ofSeconds(30));
+        
+        Connection held = dataSource.getConnection();
+        
+        // No waiting allowed: rejected immediately instead of after the 30s timeout
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 5);
+        held.close();
+    }
+    
+    @Test
+    void testReleasedPermitGoesToQueuedWaiter() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource =
+            new ConcurrencyLimitedDataSource(target, 1, 1, Duration.ofSeconds(2));
+        Connection held = dataSource.getConnection();
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getWaiters() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(100);
+        
+        held.close();
+        
+        // A caller arriving as the permit is freed must not take it ahead of the queued one
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+}
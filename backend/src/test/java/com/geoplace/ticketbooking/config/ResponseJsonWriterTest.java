@@ -0,0 +1,87 @@
+package com.geoplace.ticketbooking.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.ErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseJsonWriterTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    @Test
+    void testBookingResponseMatchesJackson() throws IOException {
+        String[] names = {"Cloud Native Conference", "", null, "Say \"hi\" \\ bye", "Line\nbreak\ttab\u0001\u001f",
+            "Café Zürich – 東京", "Rock 🎸 night"};
+        for (String name : names) {
+            BookingResponse response = BookingResponse.success(Long.MAX_VALUE, 5L, name, 2, 0);
+            assertEquals(jackson(response), written(response), "event name " + name);
+        }
+        
+        // A lone surrogate has no UTF-8 form, so it is escaped rather than written as is
+        BookingResponse broken = BookingResponse.success(1L, 5L, "Broken \ud83c", 2, 0);
+        assertTrue(written(broken).contains("\"eventName\":\"Broken \\uD83C\""), written(broken));
+        
+        BookingResponse rejected = new BookingResponse(-1, Long.MIN_VALUE, "Event", Integer.MIN_VALUE, 1000000, null);
+        assertEquals(jackson(rejected), written(rejected));
+        rejected.setMessage("Booking successful".substring(0)); // equal, but not the shared constant
+        assertEquals(jackson(rejected), written(rejected));
+    }
+    
+    @Test
+    void testErrorResponseMatchesJackson() throws IOException {
+        ErrorResponse error = new ErrorResponse("Insufficient Tickets", "Not enough tickets available. Requested: 3, Available: 1");
+        assertEquals(jackson(error), written(error));
+        // Fractions of any length, and years the ISO form writes with a sign
+        for (LocalDateTime timestamp : new LocalDateTime[] {LocalDateTime.of(2025, 3, 1, 12, 0),
+            LocalDateTime.of(2025, 3, 1, 12, 0, 7, 120_000_000), LocalDateTime.of(2025, 12, 31, 23, 59, 59, 123_456_789),
+            LocalDateTime.of(999, 1, 2, 3, 4, 5, 1_000), LocalDateTime.of(10_000, 1, 1, 0, 0), null}) {
+            ErrorResponse response = new ErrorResponse(timestamp, "Not Found", null);
+            assertEquals(jackson(response), written(response));
+        }
+    }
+    
+    @Test
+    void testConcurrentWritersNeverShareABuffer() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                BookingResponse response = BookingResponse.success(i, 5L, "Event " + "x".repeat(i % 50), 2, i);
+                results.add(executor.submit(() -> jackson(response).equals(written(response))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+    
+    private String jackson(Object value) throws IOException {
+        return objectMapper.writeValueAsString(value);
+    }
+    
+    private String written(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (value instanceof BookingResponse booking) {
+            ResponseJsonWriter.write(booking, out);
+        } else {
+            ResponseJsonWriter.write((ErrorResponse) value, out);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
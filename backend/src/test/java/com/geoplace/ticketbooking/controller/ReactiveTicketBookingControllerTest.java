@@ -0,0 +1,114 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveTicketBookingControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 10));
+    }
+    
+    @Test
+    void testBookTickets_CompletesAsynchronously() throws Exception {
+        MvcResult booking = mockMvc.perform(post("/api/reactive/tickets/{id}/book", testEvent.getId()).param("count", "3"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        mockMvc.perform(asyncDispatch(booking))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.ticketsBooked").value(3))
+            .andExpect(jsonPath("$.remainingTickets").value(7));
+        
+        MvcResult event = mockMvc.perform(get("/api/reactive/tickets/{id}", testEvent.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(event))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableTickets").value(7));
+    }
+    
+    @Test
+    void testBookTickets_ErrorsMapLikeTheBlockingEndpoint() throws Exception {
+        MvcResult insufficient = mockMvc.perform(post("/api/reactive/tickets/{id}/book", testEvent.getId()).param("count", "11"))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(insufficient))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Insufficient Tickets"));
+        
+        MvcResult notFound = mockMvc.perform(post("/api/reactive/tickets/{id}/book", 9999L).param("count", "1"))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(notFound))
+            .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    void testBookTickets_IdempotentRetryReplaysBooking() throws Exception {
+        String first = bookWithKey("retry-key");
+        String retry = bookWithKey("retry-key");
+        
+        assertEquals(first, retry);
+        assertEquals(1, bookingRepository.findByEventId(testEvent.getId()).size());
+    }
+    
+    @Test
+    void testGetAllEvents_StreamsEveryPageInOrder() throws Exception {
+        List<Long> expected = new ArrayList<>();
+        expected.add(testEvent.getId());
+        for (int i = 0; i < ReactiveTicketBookingController.STREAM_PAGE_SIZE * 2 + 5; i++) {
+            expected.add(eventRepository.save(new Event("Event " + i, "Streamed", 10)).getId());
+        }
+        
+        MvcResult stream = mockMvc.perform(get("/api/reactive/events"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        stream.getAsyncResult();
+        
+        String[] lines = stream.getResponse().getContentAsString().split("\n");
+        assertEquals(expected.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{\"id\":" + expected.get(i) + ","), lines[i]);
+        }
+    }
+    
+    private String bookWithKey(String key) throws Exception {
+        MvcResult booking = mockMvc.perform(post("/api/reactive/tickets/{id}/book", testEvent.getId())
+                .param("count", "2")
+                .header(TicketBookingController.IDEMPOTENCY_KEY_HEADER, key))
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(booking))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,292 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TicketBookingControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 100));
+    }
+    
+    @Test
+    void testGetAllEvents_NotModifiedUntilCatalogChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/events"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$[0].availableTickets").value(100))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+        
+        mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId()).param("count", "3"))
+            .andExpect(status().isCreated());
+        
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].availableTickets").value(97));
+    }
+    
+    @Test
+    void testGetAllEvents_ServesPrecompressedBody() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/events").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+        
+        String json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(json.startsWith("[{\"id\":" + testEvent.getId()));
+    }
+    
+    @Test
+    void testGetAllEvents_HonoursEncodingQualities() throws Exception {
+        mockMvc.perform(get("/api/events").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        
+        mockMvc.perform(get("/api/events").header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        
+        assertFalse(TicketBookingController.acceptsGzip("*;q=0.5, gzip;q=0"));
+        assertFalse(TicketBookingController.acceptsGzip("deflate, br"));
+        assertTrue(TicketBookingController.acceptsGzip("GZIP ; Q=0.8"));
+    }
+    
+    @Test
+    void testGetAllEvents_NotModifiedForTagListsAndWildcard() throws Exception {
+        String etag = mockMvc.perform(get("/api/events"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, "\"stale\", W/" + etag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, "\"x" + etag.substring(1)))
+            .andExpect(status().isOk());
+    }
+    
+    @Test
+    void testGetEventsPage_WalksCatalogWithCursor() throws Exception {
+        Event second = eventRepository.save(new Event("Second Event", "Second", 10));
+        Event third = eventRepository.save(new Event("Third Event", "Third", 10));
+        
+        String cursor = mockMvc.perform(get("/api/events/page").param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.events.length()").value(2))
+            .andExpect(jsonPath("$.events[0].id").value(testEvent.getId()))
+            .andExpect(jsonPath("$.events[1].id").value(second.getId()))
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        
+        mockMvc.perform(get("/api/events/page").param("size", "2").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.events.length()").value(1))
+            .andExpect(jsonPath("$.events[0].id").value(third.getId()))
+            .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        
+        mockMvc.perform(get("/api/events/page").param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void testGetUserBookings_WalksHistoryNewestFirst() throws Exception {
+        // Arrange - three bookings of user1 a day apart, and one of someone else
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 12, 0);
+        Booking first = bookAt(testEvent, "user1", start);
+        Booking second = bookAt(testEvent, "user1", start.plusDays(1));
+        Booking third = bookAt(eventRepository.save(new Event("Second Event", "Second", 10)), "user1", start.plusDays(2));
+        bookAt(testEvent, "user2", start.plusDays(1));
+        
+        // Act & Assert
+        String cursor = mockMvc.perform(get("/api/users/{userId}/bookings", "user1").param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bookings.length()").value(2))
+            .andExpect(jsonPath("$.bookings[0].bookingId").value(third.getId()))
+            .andExpect(jsonPath("$.bookings[0].eventName").value("Second Event"))
+            .andExpect(jsonPath("$.bookings[1].bookingId").value(second.getId()))
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        
+        mockMvc.perform(get("/api/users/{userId}/bookings", "user1").param("size", "2").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bookings.length()").value(1))
+            .andExpect(jsonPath("$.bookings[0].bookingId").value(first.getId()))
+            .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        
+        // From is inclusive, to exclusive
+        mockMvc.perform(get("/api/users/{userId}/bookings", "user1")
+                .param("from", start.plusDays(1).toString())
+                .param("to", start.plusDays(2).toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bookings.length()").value(1))
+            .andExpect(jsonPath("$.bookings[0].bookingId").value(second.getId()));
+    }
+    
+    @Test
+    void testGetEventBookings_PagesBookingsOfOneEvent() throws Exception {
+        // Arrange - two bookings in the same instant are told apart by ID
+        LocalDateTime at = LocalDateTime.of(2025, 3, 1, 12, 0);
+        Booking first = bookAt(testEvent, "user1", at);
+        Booking second = bookAt(testEvent, "user2", at);
+        
+        // Act & Assert
+        String cursor = mockMvc.perform(get("/api/events/{id}/bookings", testEvent.getId()).param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bookings[0].bookingId").value(second.getId()))
+            .andExpect(jsonPath("$.bookings[0].userId").value("user2"))
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        
+        mockMvc.perform(get("/api/events/{id}/bookings", testEvent.getId()).param("size", "1").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.bookings[0].bookingId").value(first.getId()))
+            .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        
+        mockMvc.perform(get("/api/events/{id}/bookings", 9999L))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/events/{id}/bookings", testEvent.getId()).param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void testCancelBooking_PutsTicketsBackOnSale() throws Exception {
+        String bookingId = mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId())
+                .param("count", "3").param("userId", "user1"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"bookingId\":(\\d+).*", "$1");
+        
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", bookingId))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", bookingId).param("userId", "user2"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", bookingId).param("userId", "user1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cancelledBookings").value(1))
+            .andExpect(jsonPath("$.releasedTickets").value(3));
+        mockMvc.perform(get("/api/tickets/{id}", testEvent.getId()))
+            .andExpect(jsonPath("$.availableTickets").value(100));
+        mockMvc.perform(post("/api/bookings/{bookingId}/cancel", bookingId).param("userId", "user1"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.message").value("Booking Not Found"));
+        mockMvc.perform(get("/api/users/{userId}/bookings", "user1"))
+            .andExpect(jsonPath("$.bookings[0].cancelledAt").exists());
+        
+        mockMvc.perform(post("/api/bookings/cancel").param("userId", "user1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"bookingIds\":[]}"))
+            .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void testHold_OnlyItsOwnerCanConfirmOrReleaseIt() throws Exception {
+        String holdId = mockMvc.perform(post("/api/tickets/{id}/hold", testEvent.getId())
+                .param("count", "2").param("userId", "user1"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString()
+            .replaceAll(".*\"holdId\":(\\d+).*", "$1");
+        
+        mockMvc.perform(post("/api/holds/{holdId}/confirm", holdId))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/holds/{holdId}/confirm", holdId).param("userId", "user2"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/holds/{holdId}", holdId).param("userId", "user2"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/holds/{holdId}/confirm", holdId).param("userId", "user1"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.ticketsBooked").value(2));
+    }
+    
+    @Test
+    void testCancelEventBookings_IsAnAdminEndpoint() throws Exception {
+        mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId()).param("count", "4").param("userId", "user1"))
+            .andExpect(status().isCreated());
+        
+        mockMvc.perform(post("/admin/events/{id}/bookings/cancel", testEvent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cancelledBookings").value(1))
+            .andExpect(jsonPath("$.releasedTickets").value(4));
+    }
+    
+    @Test
+    void testExportEvents_WritesOneJsonObjectPerLine() throws Exception {
+        eventRepository.save(new Event("Second Event", "Second", 10));
+        
+        MvcResult started = mockMvc.perform(get("/api/events/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Test Event\""));
+        assertTrue(lines[1].contains("\"name\":\"Second Event\""));
+    }
+    
+    @Test
+    void testBookAll_CreatedAndValidated() throws Exception {
+        mockMvc.perform(post("/api/bookings/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":\"user1\",\"lines\":[{\"eventId\":" + testEvent.getId() + ",\"count\":2}]}"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.totalTickets").value(2))
+            .andExpect(jsonPath("$.bookings[0].remainingTickets").value(98));
+        
+        mockMvc.perform(post("/api/bookings/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lines\":[{\"eventId\":" + testEvent.getId() + ",\"count\":0}]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.details").value("Count must be at least 1"));
+    }
+    
+    private Booking bookAt(Event event, String userId, LocalDateTime bookingTime) {
+        Booking booking = new Booking(event, 1, userId);
+        booking.setBookingTime(bookingTime);
+        return bookingRepository.save(booking);
+    }
+}
@@ -0,0 +1,161 @@
+package com.geoplace.ticketbooking.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.waitingroom.WaitingRoom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "ticketbooking.waiting-room.enabled=true",
+    "ticketbooking.waiting-room.admission-rate=0.001",
+    "ticketbooking.waiting-room.burst=2"
+})
+class WaitingRoomControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 4));
+    }
+    
+    @Test
+    void testQueue_AdmitsTheBurstAndQueuesTheRest() throws Exception {
+        // Act - four callers join; the bucket holds two admissions
+        List<JsonNode> joined = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            joined.add(join());
+        }
+        
+        // Assert
+        assertEquals("ADMITTED", joined.get(0).get("status").asText());
+        assertEquals("ADMITTED", joined.get(1).get("status").asText());
+        assertEquals("WAITING", joined.get(2).get("status").asText());
+        assertEquals(1, joined.get(2).get("position").asLong());
+        assertEquals(2, joined.get(3).get("position").asLong());
+        
+        mockMvc.perform(get("/api/queue/{token}", joined.get(3).get("token").asText()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andExpect(jsonPath("$.position").value(2));
+        
+        // A waiting token cannot book yet, an admitted one books exactly once
+        mockMvc.perform(book(joined.get(2).get("token").asText(), 1))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        
+        String admitted = joined.get(0).get("token").asText();
+        mockMvc.perform(book(admitted, 1)).andExpect(status().isCreated());
+        mockMvc.perform(book(admitted, 1)).andExpect(status().isTooManyRequests());
+    }
+    
+    @Test
+    void testBooking_RequiresToken() throws Exception {
+        mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId()).param("count", "1"))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(jsonPath("$.message").value("Not Admitted"));
+    }
+    
+    @Test
+    void testBulkAndBatch_RequireATokenPerBooking() throws Exception {
+        // Arrange - two admitted tokens, then the queue is full
+        String first = join().get("token").asText();
+        String second = join().get("token").asText();
+        String waiting = join().get("token").asText();
+        String bulk = "{\"userId\":\"user1\",\"lines\":[{\"eventId\":" + testEvent.getId() + ",\"count\":1}]}";
+        String batch = "{\"bookings\":[{\"eventId\":" + testEvent.getId() + ",\"count\":1,\"userId\":\"user1\"},"
+            + "{\"eventId\":" + testEvent.getId() + ",\"count\":1,\"userId\":\"user2\"}]}";
+        
+        // Act & Assert - no token, or one still waiting, skips nothing
+        mockMvc.perform(post("/api/bookings/bulk").contentType(MediaType.APPLICATION_JSON).content(bulk))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(post("/api/bookings/bulk").contentType(MediaType.APPLICATION_JSON).content(bulk)
+                .header(WaitingRoom.TOKEN_HEADER, waiting))
+            .andExpect(status().isTooManyRequests());
+        mockMvc.perform(post("/api/bookings/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+            .andExpect(status().isTooManyRequests());
+        
+        // One admitted token does not cover two bookings, and is not used up by the refusal
+        mockMvc.perform(post("/api/bookings/batch").contentType(MediaType.APPLICATION_JSON).content(batch)
+                .header(WaitingRoom.TOKEN_HEADER, first + "," + waiting))
+            .andExpect(status().isTooManyRequests());
+        mockMvc.perform(post("/api/bookings/batch").contentType(MediaType.APPLICATION_JSON).content(batch)
+                .header(WaitingRoom.TOKEN_HEADER, first + ", " + second))
+            .andExpect(status().isOk());
+        assertEquals(2, bookingRepository.count());
+    }
+    
+    @Test
+    void testQueue_SoldOutAnswersFromMemory() throws Exception {
+        // Arrange - sell the event out through an admitted token
+        String token = join().get("token").asText();
+        String waiting = join().get("token").asText();
+        mockMvc.perform(book(token, 4)).andExpect(status().isCreated());
+        
+        // Act & Assert - no new tokens, and waiting ones learn it is over
+        mockMvc.perform(post("/api/events/{id}/queue", testEvent.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("SOLD_OUT"))
+            .andExpect(jsonPath("$.token").doesNotExist())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+        mockMvc.perform(get("/api/queue/{token}", waiting))
+            .andExpect(jsonPath("$.status").value("SOLD_OUT"));
+    }
+    
+    @Test
+    void testQueue_UnknownTokenAndEvent() throws Exception {
+        mockMvc.perform(get("/api/queue/{token}", "missing"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/events/{id}/queue", 9999L))
+            .andExpect(status().isNotFound());
+    }
+    
+    private JsonNode join() throws Exception {
+        String body = mockMvc.perform(post("/api/events/{id}/queue", testEvent.getId()).param("userId", "user1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+    
+    private RequestBuilder book(String token, int count) {
+        return post("/api/tickets/{id}/book", testEvent.getId())
+            .param("count", String.valueOf(count))
+            .header(WaitingRoom.TOKEN_HEADER, token);
+    }
+}
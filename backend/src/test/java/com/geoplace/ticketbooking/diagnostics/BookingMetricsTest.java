@@ -0,0 +1,63 @@
+package com.geoplace.ticketbooking.diagnostics;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class BookingMetricsTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 10));
+    }
+    
+    @Test
+    void testPrometheusEndpoint_ExposesBookingHistogramsAndOutcomesPerEvent() throws Exception {
+        // Arrange
+        mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId()).param("count", "3"))
+            .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/tickets/{id}/book", testEvent.getId()).param("count", "30"))
+            .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/tickets/{id}/book", 9999L).param("count", "1"))
+            .andExpect(status().isNotFound());
+        
+        // Act & Assert
+        String event = "event=\"" + testEvent.getId() + "\"";
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("booking_requests_total{" + event + ",outcome=\"success\",} 1.0")))
+            .andExpect(content().string(containsString("booking_requests_total{" + event + ",outcome=\"insufficient\",} 1.0")))
+            .andExpect(content().string(containsString("booking_requests_total{event=\"9999\",outcome=\"not_found\",} 1.0")))
+            .andExpect(content().string(containsString("booking_latency_seconds_bucket{outcome=\"success\"")))
+            .andExpect(content().string(containsString("booking_db_lock_wait_seconds_bucket{strategy=\"pessimistic\"")))
+            .andExpect(content().string(containsString("booking_db_save_seconds_count{entity=\"booking\",strategy=\"pessimistic\",}")))
+            .andExpect(content().string(containsString("booking_db_commit_seconds_count{strategy=\"pessimistic\",}")));
+    }
+}
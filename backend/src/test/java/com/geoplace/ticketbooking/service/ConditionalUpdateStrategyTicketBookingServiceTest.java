@@ -0,0 +1,12 @@
+package com.geoplace.ticketbooking.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the booking scenarios against the conditional-update concurrency strategy.
+ */
+@TestPropertySource(properties = {
+    "ticketbooking.booking.strategy=conditional-update"
+})
+class ConditionalUpdateStrategyTicketBookingServiceTest extends TicketBookingServiceTest {
+}
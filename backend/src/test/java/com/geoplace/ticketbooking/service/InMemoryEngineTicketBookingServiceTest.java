@@ -0,0 +1,95 @@
+package com.geoplace.ticketbooking.service;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.cache.AvailabilityIndex;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the booking scenarios against the lock-free in-memory engine.
+ */
+@TestPropertySource(properties = "ticketbooking.booking.engine=in-memory")
+class InMemoryEngineTicketBookingServiceTest extends TicketBookingServiceTest {
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private BookingEngine bookingEngine;
+    
+    @Test
+    void testBookTicketsAsync_BatchedWritesMatchAcceptedBookings() {
+        // Arrange - 300 callers competing for 250 tickets
+        Event event = eventRepository.save(new Event("Batched Event", "Write-behind batches", 250));
+        Long eventId = event.getId();
+        
+        // Act
+        List<CompletableFuture<BookingResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(ticketBookingService.bookTicketsAsync(eventId, 1, "user" + i));
+        }
+        
+        // Assert
+        Set<Long> bookingIds = new HashSet<>();
+        int failed = 0;
+        for (CompletableFuture<BookingResponse> future : futures) {
+            try {
+                bookingIds.add(future.join().getBookingId());
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        
+        assertEquals(250, bookingIds.size(), "Every accepted booking gets its own ID");
+        assertEquals(50, failed);
+        assertEquals(0, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+        assertEquals(250, bookingRepository.findByEventId(eventId).size());
+    }
+    
+    @Test
+    void testFailedWrite_DoesNotLeaveTheEventSoldOut() {
+        // Arrange - 3 tickets left in the pool, but only 2 in the row
+        Event event = eventRepository.save(new Event("Diverged Event", "Row sold behind the pool", 4));
+        Long eventId = event.getId();
+        ticketBookingService.bookTickets(eventId, 1, "first");
+        Event row = eventRepository.findById(eventId).orElseThrow();
+        row.setAvailableTickets(2);
+        eventRepository.save(row);
+        
+        // Act - a request turned away while the next 3 tickets are reserved sees none left,
+        // then their write fails
+        AvailabilityIndex.Slot slot = availabilityIndex.track(eventId);
+        CompletableFuture<BookingResponse> failing = bookingEngine.bookTicketsAsync(eventId, 3, "second", null);
+        slot.observe(0);
+        CompletionException failure = assertThrows(CompletionException.class, failing::join);
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        
+        // Assert
+        BookingResponse next = ticketBookingService.bookTickets(eventId, 2, "third");
+        assertEquals(0, next.getRemainingTickets());
+        assertEquals(0, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+    }
+}
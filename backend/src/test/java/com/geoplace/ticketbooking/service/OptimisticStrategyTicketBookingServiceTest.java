@@ -0,0 +1,13 @@
+package com.geoplace.ticketbooking.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the booking scenarios against the optimistic concurrency strategy.
+ */
+@TestPropertySource(properties = {
+    "ticketbooking.booking.strategy=optimistic",
+    "ticketbooking.booking.optimistic.max-retries=64"
+})
+class OptimisticStrategyTicketBookingServiceTest extends TicketBookingServiceTest {
+}
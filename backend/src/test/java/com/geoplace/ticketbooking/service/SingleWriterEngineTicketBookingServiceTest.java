@@ -0,0 +1,73 @@
+package com.geoplace.ticketbooking.service;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the booking scenarios against the single-writer engine, with more
+ * partitions than this machine may have cores so events really are spread out.
+ */
+@TestPropertySource(properties = {
+    "ticketbooking.booking.engine=single-writer",
+    "ticketbooking.single-writer.partitions=4",
+    "ticketbooking.single-writer.ring-size=512"
+})
+class SingleWriterEngineTicketBookingServiceTest extends TicketBookingServiceTest {
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Test
+    void testBookTicketsAsync_PartitionsDecideEveryEventExactly() {
+        // Arrange - three events, likely on different partitions, 150 callers for 100 tickets each
+        List<Long> eventIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            eventIds.add(eventRepository.save(new Event("Partitioned Event " + i, "Single writer", 100)).getId());
+        }
+        
+        // Act
+        List<CompletableFuture<BookingResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            for (Long eventId : eventIds) {
+                futures.add(ticketBookingService.bookTicketsAsync(eventId, 1, "user" + i));
+            }
+        }
+        
+        // Assert
+        Set<Long> bookingIds = new HashSet<>();
+        int failed = 0;
+        for (CompletableFuture<BookingResponse> future : futures) {
+            try {
+                bookingIds.add(future.join().getBookingId());
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        
+        assertEquals(300, bookingIds.size(), "Every accepted booking gets its own ID");
+        assertEquals(150, failed);
+        for (Long eventId : eventIds) {
+            assertEquals(0, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+            assertEquals(100, bookingRepository.findByEventId(eventId).size());
+        }
+    }
+}
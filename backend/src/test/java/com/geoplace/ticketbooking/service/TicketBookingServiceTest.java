@@ -1,19 +1,29 @@
 package com.geoplace.ticketbooking.service;
 
+import com.geoplace.ticketbooking.dto.BatchBookingRequest;
+import com.geoplace.ticketbooking.dto.BatchBookingResponse;
+import com.geoplace.ticketbooking.dto.BookingLine;
+import com.geoplace.ticketbooking.dto.BookingRequest;
 import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.BulkBookingRequest;
+import com.geoplace.ticketbooking.dto.BulkBookingResponse;
 import com.geoplace.ticketbooking.dto.EventDTO;
 import com.geoplace.ticketbooking.entity.Event;
 import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.exception.IdempotencyKeyReusedException;
 import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
 import com.geoplace.ticketbooking.repository.BookingRepository;
 import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -31,6 +41,9 @@ class TicketBookingServiceTest {
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private BookingEngine bookingEngine;
+    
     private Event testEvent;
     
     @BeforeEach
@@ -303,6 +316,171 @@ class TicketBookingServiceTest {
         assertEquals(0, event.getAvailableTickets());
     }
     
+    @Test
+    void testBookAll_AllOrNothing() {
+        // Arrange
+        Event smallEvent = eventRepository.save(new Event("Small Event", "Only 3 tickets", 3));
+        BulkBookingRequest tooMany = new BulkBookingRequest(List.of(
+            new BookingLine(testEvent.getId(), 10),
+            new BookingLine(smallEvent.getId(), 4)
+        ), "user1");
+        
+        // Act & Assert - the second line fails, so the first must not be booked either
+        assertThrows(InsufficientTicketsException.class, () -> ticketBookingService.bookAll(tooMany));
+        assertEquals(100, ticketBookingService.getEvent(testEvent.getId()).getAvailableTickets());
+        assertEquals(3, ticketBookingService.getEvent(smallEvent.getId()).getAvailableTickets());
+        assertEquals(0, bookingRepository.count());
+        
+        // Act - duplicate lines for one event are merged
+        BulkBookingResponse response = ticketBookingService.bookAll(new BulkBookingRequest(List.of(
+            new BookingLine(smallEvent.getId(), 1),
+            new BookingLine(testEvent.getId(), 10),
+            new BookingLine(smallEvent.getId(), 2)
+        ), "user1"));
+        
+        // Assert
+        assertEquals(2, response.getBookings().size());
+        assertEquals(13, response.getTotalTickets());
+        assertEquals(testEvent.getId(), response.getBookings().get(0).getEventId());
+        assertEquals(90, response.getBookings().get(0).getRemainingTickets());
+        assertEquals(0, response.getBookings().get(1).getRemainingTickets());
+        assertEquals(90, ticketBookingService.getEvent(testEvent.getId()).getAvailableTickets());
+        assertEquals(0, ticketBookingService.getEvent(smallEvent.getId()).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookAll_ConcurrentOverlappingOrders() throws InterruptedException, ExecutionException {
+        // Arrange - orders list the same two events in opposite orders
+        Event otherEvent = eventRepository.save(new Event("Other Event", "Other Description", 100));
+        List<Long> eventIds = List.of(testEvent.getId(), otherEvent.getId());
+        
+        int numberOfThreads = 20;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        List<Future<BookingResult>> futures = new ArrayList<>();
+        
+        // Act - 30 orders of 4 + 4 tickets compete for 100 tickets per event
+        for (int i = 0; i < 30; i++) {
+            final int userId = i;
+            final Long first = eventIds.get(i % 2);
+            final Long second = eventIds.get((i + 1) % 2);
+            futures.add(executorService.submit(() -> {
+                try {
+                    ticketBookingService.bookAll(new BulkBookingRequest(List.of(
+                        new BookingLine(first, 4), new BookingLine(second, 4)), "user" + userId));
+                    return new BookingResult(true, null);
+                } catch (InsufficientTicketsException e) {
+                    return new BookingResult(false, null);
+                }
+            }));
+        }
+        
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS), "Orders should not deadlock");
+        
+        // Assert - 25 orders fit exactly
+        int successfulOrders = 0;
+        for (Future<BookingResult> future : futures) {
+            if (future.get().success) {
+                successfulOrders++;
+            }
+        }
+        assertEquals(25, successfulOrders);
+        assertEquals(0, ticketBookingService.getEvent(testEvent.getId()).getAvailableTickets());
+        assertEquals(0, ticketBookingService.getEvent(otherEvent.getId()).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookBatch_IndependentResults() {
+        // Act
+        BatchBookingResponse response = ticketBookingService.bookBatch(new BatchBookingRequest(List.of(
+            new BookingRequest(testEvent.getId(), 60, "user1"),
+            new BookingRequest(9999L, 1, "user2"),
+            new BookingRequest(testEvent.getId(), 60, "user3"),
+            new BookingRequest(testEvent.getId(), 40, null)
+        )));
+        
+        // Assert - the second 60 can never fit, everything else is decided on its own
+        assertEquals(2, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals(201, response.getResults().get(0).getStatus());
+        assertEquals(404, response.getResults().get(1).getStatus());
+        assertEquals(409, response.getResults().get(2).getStatus());
+        assertEquals(201, response.getResults().get(3).getStatus());
+        assertEquals(3, response.getResults().get(3).getIndex());
+        assertEquals(0, ticketBookingService.getEvent(testEvent.getId()).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookTickets_IdempotentRetries() throws InterruptedException, ExecutionException {
+        // Arrange
+        Long eventId = testEvent.getId();
+        String key = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<BookingResponse>> futures = new ArrayList<>();
+        
+        // Act - the same request retried concurrently
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.submit(() -> ticketBookingService.bookTickets(eventId, 5, "user1", key)));
+        }
+        List<BookingResponse> responses = new ArrayList<>();
+        for (Future<BookingResponse> future : futures) {
+            responses.add(future.get());
+        }
+        executor.shutdown();
+        
+        // Assert - one booking, every retry sees it
+        long bookingId = responses.get(0).getBookingId();
+        assertTrue(responses.stream().allMatch(response -> response.getBookingId() == bookingId));
+        assertEquals(1, bookingRepository.count());
+        assertEquals(95, ticketBookingService.getEvent(eventId).getAvailableTickets());
+        
+        // A different user may use the same key
+        assertNotEquals(bookingId, ticketBookingService.bookTickets(eventId, 5, "user2", key).getBookingId());
+        assertEquals(90, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookTickets_IdempotencyKeyReused() {
+        // Arrange
+        Long eventId = testEvent.getId();
+        String key = UUID.randomUUID().toString();
+        ticketBookingService.bookTickets(eventId, 5, "user1", key);
+        
+        // Act & Assert
+        assertThrows(IdempotencyKeyReusedException.class,
+            () -> ticketBookingService.bookTickets(eventId, 6, "user1", key));
+        assertEquals(95, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookTickets_FailedAttemptDoesNotUseKey() {
+        // Arrange
+        Long eventId = testEvent.getId();
+        String key = UUID.randomUUID().toString();
+        assertThrows(InsufficientTicketsException.class,
+            () -> ticketBookingService.bookTickets(eventId, 101, "user1", key));
+        
+        // Act - the key is free again, even for a different request
+        BookingResponse response = ticketBookingService.bookTickets(eventId, 5, "user1", key);
+        
+        // Assert
+        assertEquals(5, response.getTicketsBooked());
+        assertEquals(95, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+    
+    @Test
+    void testBookTickets_UniqueIndexRejectsDuplicateKey() {
+        // Arrange
+        Long eventId = testEvent.getId();
+        String key = UUID.randomUUID().toString();
+        bookingEngine.bookTickets(eventId, 5, "user1", key);
+        
+        // Act & Assert - the index holds even without the in-memory store in front
+        assertThrows(DataIntegrityViolationException.class, () -> bookingEngine.bookTickets(eventId, 5, "user1", key));
+        assertEquals(1, bookingRepository.count());
+        assertEquals(95, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+    
     // Helper class to store booking results
     private static class BookingResult {
         boolean success;
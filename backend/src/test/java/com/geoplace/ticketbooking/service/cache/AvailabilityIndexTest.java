@@ -0,0 +1,125 @@
+package com.geoplace.ticketbooking.service.cache;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.hold.HoldService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AvailabilityIndexTest {
+    
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private HoldService holdService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 10));
+    }
+    
+    @Test
+    void testBookingsLowerTheIndex_RestockResetsIt() {
+        // Arrange - a hold is taken before the sell-out
+        Long holdId = holdService.hold(testEvent.getId(), 4, "holder", Duration.ofMinutes(5)).getHoldId();
+        assertEquals(6, availabilityIndex.remaining(testEvent.getId()));
+        
+        // Act - the booking path records the sell-out
+        ticketBookingService.bookTickets(testEvent.getId(), 6, "buyer");
+        
+        // Assert - sold out until the hold is released
+        assertTrue(availabilityIndex.isSoldOut(testEvent.getId()));
+        holdService.release(holdId, "holder");
+        assertEquals(4, availabilityIndex.remaining(testEvent.getId()));
+    }
+    
+    @Test
+    void testEditRaisingAvailability_ResetsTheIndex() {
+        // Arrange
+        ticketBookingService.bookTickets(testEvent.getId(), 10, "buyer");
+        assertTrue(availabilityIndex.isSoldOut(testEvent.getId()));
+        
+        // Act - an administrator adds tickets to the event
+        Event event = eventRepository.findById(testEvent.getId()).orElseThrow();
+        event.setAvailableTickets(5);
+        eventRepository.save(event);
+        
+        // Assert
+        assertEquals(5, availabilityIndex.remaining(testEvent.getId()));
+        assertNotNull(ticketBookingService.bookTickets(testEvent.getId(), 5, "late"));
+    }
+    
+    @Test
+    void testObservationsOnlyLowerTheSlot() {
+        // Arrange
+        AvailabilityIndex.Slot slot = availabilityIndex.track(testEvent.getId());
+        
+        // Act - a late, higher observation must not raise the count
+        slot.observe(8);
+        slot.observe(9);
+        
+        // Assert
+        assertEquals(8, availabilityIndex.remaining(testEvent.getId()));
+        assertEquals(AvailabilityIndex.UNKNOWN, availabilityIndex.remaining(9999L));
+    }
+    
+    @Test
+    void testSoldOut_RejectedWithoutReachingTheStrategy() {
+        // Arrange
+        ticketBookingService.bookTickets(testEvent.getId(), 10, "buyer");
+        double attempts = meterRegistry.counter("booking.strategy.attempts", "strategy", "pessimistic").count();
+        double fastRejections = meterRegistry.counter("booking.fast_path.rejections").count();
+        
+        // Act
+        for (int i = 0; i < 20; i++) {
+            InsufficientTicketsException rejected = assertThrows(InsufficientTicketsException.class,
+                () -> ticketBookingService.bookTickets(testEvent.getId(), 1, "late"));
+            
+            // Assert - same 409 message, no stack trace
+            assertEquals("Not enough tickets available. Requested: 1, Available: 0", rejected.getMessage());
+            assertEquals(0, rejected.getStackTrace().length);
+        }
+        
+        assertEquals(attempts, meterRegistry.counter("booking.strategy.attempts", "strategy", "pessimistic").count());
+        assertEquals(fastRejections + 20, meterRegistry.counter("booking.fast_path.rejections").count());
+    }
+    
+    @Test
+    void testLowStock_RejectsOnlyWhatCannotFit() {
+        // Arrange - the engine reports 3 left when turning down a request for 5
+        ticketBookingService.bookTickets(testEvent.getId(), 7, "buyer");
+        
+        // Act & Assert
+        assertThrows(InsufficientTicketsException.class,
+            () -> ticketBookingService.bookTickets(testEvent.getId(), 5, "late"));
+        assertNotNull(ticketBookingService.bookTickets(testEvent.getId(), 3, "last"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.geoplace.ticketbooking.service.cache;
+
+import com.geoplace.ticketbooking.dto.EventDTO;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.CatalogChange;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RecordApplicationEvents
+class EventCatalogCacheTest {
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private ApplicationEvents applicationEvents;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Cached Event", "Cached Description", 100));
+    }
+    
+    @Test
+    void testGetEvent_SeesBookingMadeAfterCaching() {
+        Long eventId = testEvent.getId();
+        assertEquals(100, ticketBookingService.getEvent(eventId).getAvailableTickets());
+        
+        ticketBookingService.bookTickets(eventId, 7, "user1");
+        
+        assertEquals(93, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+    
+    @Test
+    void testGetAllEvents_SeesEventsCreatedAndRenamedAfterCaching() {
+        assertEquals(1, ticketBookingService.getAllEvents().size());
+        
+        Event added = eventRepository.save(new Event("Added Event", "Added later", 10));
+        testEvent.setName("Renamed Event");
+        eventRepository.save(testEvent);
+        
+        List<EventDTO> events = ticketBookingService.getAllEvents();
+        assertEquals(2, events.size());
+        assertEquals("Renamed Event", events.get(0).getName());
+        assertEquals(added.getId(), events.get(1).getId());
+    }
+    
+    @Test
+    void testBookTickets_KeepsEventMetadataCached() {
+        Long eventId = testEvent.getId();
+        applicationEvents.clear();
+        
+        ticketBookingService.bookTickets(eventId, 3, "user1");
+        
+        List<CatalogChange.Type> changes = applicationEvents.stream(CatalogChange.class)
+            .filter(change -> change.eventId().equals(eventId))
+            .map(CatalogChange::type)
+            .toList();
+        assertFalse(changes.isEmpty());
+        assertFalse(changes.contains(CatalogChange.Type.UPDATED));
+        assertEquals(97, ticketBookingService.getEvent(eventId).getAvailableTickets());
+    }
+}
@@ -0,0 +1,154 @@
+package com.geoplace.ticketbooking.service.cancellation;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.BookingNotFoundException;
+import com.geoplace.ticketbooking.exception.EventNotFoundException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingCancellationServiceTest {
+    
+    @Autowired
+    private BookingCancellationService cancellationService;
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 100));
+    }
+    
+    @Test
+    void testCancel_ReturnsTicketsOnce() {
+        // Arrange
+        BookingResponse booking = ticketBookingService.bookTickets(testEvent.getId(), 10, "user1");
+        
+        // Act
+        CancellationResponse cancelled = cancellationService.cancel(booking.getBookingId(), "user1");
+        
+        // Assert - the tickets are back and the booking stays on record as cancelled
+        assertEquals(1, cancelled.getCancelledBookings());
+        assertEquals(10, cancelled.getReleasedTickets());
+        assertEquals(100, availableTickets(testEvent));
+        assertNotNull(bookingRepository.findById(booking.getBookingId()).orElseThrow().getCancelledAt());
+        assertThrows(BookingNotFoundException.class, () -> cancellationService.cancel(booking.getBookingId(), "user1"));
+        assertThrows(BookingNotFoundException.class, () -> cancellationService.cancel(9999L, "user1"));
+        assertEquals(100, availableTickets(testEvent));
+    }
+    
+    @Test
+    void testCancelAll_AggregatesAcrossEvents() {
+        // Arrange
+        Event other = eventRepository.save(new Event("Other Event", "Other", 20));
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bookingIds.add(ticketBookingService.bookTickets(testEvent.getId(), 2, "user1").getBookingId());
+            bookingIds.add(ticketBookingService.bookTickets(other.getId(), 3, "user1").getBookingId());
+        }
+        Long kept = ticketBookingService.bookTickets(testEvent.getId(), 1, "keeper").getBookingId();
+        
+        // Act - unknown, repeated and other users' IDs are skipped
+        bookingIds.add(9999L);
+        bookingIds.add(bookingIds.get(0));
+        bookingIds.add(kept);
+        CancellationResponse cancelled = cancellationService.cancelAll(bookingIds, "user1");
+        
+        // Assert
+        assertEquals(10, cancelled.getCancelledBookings());
+        assertEquals(25, cancelled.getReleasedTickets());
+        assertEquals(2, cancelled.getAffectedEvents());
+        assertEquals(99, availableTickets(testEvent));
+        assertEquals(20, availableTickets(other));
+        assertNull(bookingRepository.findById(kept).orElseThrow().getCancelledAt());
+    }
+    
+    @Test
+    void testCancelEvent_FreesEveryTicketForTheBookingPath() {
+        // Arrange - sell the event out
+        for (int i = 0; i < 25; i++) {
+            ticketBookingService.bookTickets(testEvent.getId(), 4, "user" + i);
+        }
+        assertEquals(0, availableTickets(testEvent));
+        
+        // Act
+        CancellationResponse cancelled = cancellationService.cancelEvent(testEvent.getId());
+        
+        // Assert - the booking path sees the whole event on sale again
+        assertEquals(25, cancelled.getCancelledBookings());
+        assertEquals(100, cancelled.getReleasedTickets());
+        assertEquals(100, availableTickets(testEvent));
+        assertEquals(100, ticketBookingService.bookTickets(testEvent.getId(), 100, "user1").getTicketsBooked());
+        // Only the new booking is left to cancel
+        assertEquals(1, cancellationService.cancelEvent(testEvent.getId()).getCancelledBookings());
+        assertThrows(EventNotFoundException.class, () -> cancellationService.cancelEvent(9999L));
+    }
+    
+    @Test
+    void testConcurrentCancellations_ReleaseEachBookingOnce() throws Exception {
+        // Arrange
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            bookingIds.add(ticketBookingService.bookTickets(testEvent.getId(), 5, "user1").getBookingId());
+        }
+        
+        // Act - eight callers race to cancel the same bookings
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<CancellationResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executorService.submit(() -> cancellationService.cancelAll(bookingIds, "user1")));
+        }
+        int released = 0;
+        for (Future<CancellationResponse> result : results) {
+            released += result.get().getReleasedTickets();
+        }
+        executorService.shutdown();
+        
+        // Assert
+        assertEquals(100, released);
+        assertEquals(100, availableTickets(testEvent));
+        assertEquals(100, eventRepository.findById(testEvent.getId()).orElseThrow().getAvailableTickets());
+    }
+    
+    @Test
+    void testCancel_LeavesOtherUsersBookingsStanding() {
+        // Arrange
+        BookingResponse booking = ticketBookingService.bookTickets(testEvent.getId(), 10, "user1");
+        
+        // Act & Assert - someone else's booking looks like an unknown one
+        assertThrows(BookingNotFoundException.class, () -> cancellationService.cancel(booking.getBookingId(), "user2"));
+        assertEquals(0, cancellationService.cancelAll(List.of(booking.getBookingId()), "user2").getCancelledBookings());
+        assertEquals(90, availableTickets(testEvent));
+        assertNull(bookingRepository.findById(booking.getBookingId()).orElseThrow().getCancelledAt());
+    }
+    
+    private int availableTickets(Event event) {
+        return ticketBookingService.getEvent(event.getId()).getAvailableTickets();
+    }
+}
@@ -0,0 +1,11 @@
+package com.geoplace.ticketbooking.service.cancellation;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the cancellation scenarios against the single-writer engine, where freed
+ * tickets also have to reach the owning partition's counters.
+ */
+@TestPropertySource(properties = "ticketbooking.booking.engine=single-writer")
+class SingleWriterEngineBookingCancellationServiceTest extends BookingCancellationServiceTest {
+}
@@ -0,0 +1,181 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import com.geoplace.ticketbooking.TicketBookingApplication;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.CancellationResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.EventCatalogSnapshot;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.cancellation.BookingCancellationService;
+import com.geoplace.ticketbooking.service.engine.BookingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two cluster members in one JVM, sharing one in-memory database the way separate JVMs share a server database.
+ */
+class ClusterRoutingTest {
+    
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+    
+    @AfterEach
+    void tearDown() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+    
+    @Test
+    void testBookingsAreServedByTheOwnerUntilItLeaves() throws IOException {
+        // Arrange
+        int firstPort = freePort();
+        int secondPort = freePort();
+        String members = "http://localhost:" + firstPort + ",http://localhost:" + secondPort;
+        first = start(firstPort, members, "create-drop");
+        second = start(secondPort, members, "none");
+        ClusterMembership membership = first.getBean(ClusterMembership.class);
+        EventRepository eventRepository = first.getBean(EventRepository.class);
+        Event event;
+        do {
+            event = eventRepository.save(new Event("Clustered Event", "Owned by the second node", 10));
+        } while (!membership.ownerOf(event.getId()).equals("http://localhost:" + secondPort));
+        Long eventId = event.getId();
+        TicketBookingService bookingService = first.getBean(TicketBookingService.class);
+        
+        // Act - booked through the first node, decided by the second
+        BookingResponse forwarded = bookingService.bookTickets(eventId, 4, "user1", "key-1");
+        BookingResponse replayed = bookingService.bookTickets(eventId, 4, "user1", "key-1");
+        
+        // Assert
+        assertEquals(6, forwarded.getRemainingTickets());
+        assertEquals(forwarded.getBookingId(), replayed.getBookingId());
+        assertEquals(6, second.getBean(BookingEngine.class).availableTickets(eventId).orElseThrow());
+        assertTrue(first.getBean(BookingEngine.class).availableTickets(eventId).isEmpty());
+        assertThrows(InsufficientTicketsException.class, () -> bookingService.bookTickets(eventId, 7, "user2"));
+        
+        // Act - the owner goes away, the first node takes the event over from the database
+        second.close();
+        second = null;
+        BookingResponse local = bookingService.bookTickets(eventId, 2, "user3");
+        
+        // Assert
+        assertEquals(4, local.getRemainingTickets());
+        assertTrue(membership.owns(eventId));
+        assertEquals(4, first.getBean(BookingEngine.class).availableTickets(eventId).orElseThrow());
+        assertEquals(4, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+    }
+    
+    @Test
+    void testCancellationsAreServedByTheOwner() throws IOException {
+        // Arrange - an event owned by the second node, booked through it
+        int firstPort = freePort();
+        int secondPort = freePort();
+        String members = "http://localhost:" + firstPort + ",http://localhost:" + secondPort;
+        first = start(firstPort, members, "create-drop");
+        second = start(secondPort, members, "none");
+        ClusterMembership membership = first.getBean(ClusterMembership.class);
+        EventRepository eventRepository = first.getBean(EventRepository.class);
+        Event event;
+        do {
+            event = eventRepository.save(new Event("Clustered Event", "Owned by the second node", 10));
+        } while (!membership.ownerOf(event.getId()).equals("http://localhost:" + secondPort));
+        Long eventId = event.getId();
+        TicketBookingService bookingService = first.getBean(TicketBookingService.class);
+        Long ownBooking = bookingService.bookTickets(eventId, 4, "user1").getBookingId();
+        Long otherBooking = bookingService.bookTickets(eventId, 3, "user2").getBookingId();
+        BookingCancellationService cancellationService = first.getBean(BookingCancellationService.class);
+        
+        // Act - cancelled through the first node
+        CancellationResponse cancelled = cancellationService.cancelAll(List.of(ownBooking, otherBooking), "user1");
+        
+        // Assert - the owner's inventory has the tickets back, the other user's booking stands
+        assertEquals(1, cancelled.getCancelledBookings());
+        assertEquals(4, cancelled.getReleasedTickets());
+        assertEquals(1, cancelled.getAffectedEvents());
+        assertEquals(7, second.getBean(BookingEngine.class).availableTickets(eventId).orElseThrow());
+        assertTrue(first.getBean(BookingEngine.class).availableTickets(eventId).isEmpty());
+        assertEquals(7, bookingService.bookTickets(eventId, 7, "user3").getTicketsBooked());
+        
+        // Act - every booking of the event, again through the first node
+        CancellationResponse wholeEvent = cancellationService.cancelEvent(eventId);
+        
+        // Assert
+        assertEquals(2, wholeEvent.getCancelledBookings());
+        assertEquals(10, second.getBean(BookingEngine.class).availableTickets(eventId).orElseThrow());
+    }
+    
+    @Test
+    void testCatalogChangesReachTheOtherMembers() throws Exception {
+        // Arrange - the first node has read the event before the owner sells from it
+        int firstPort = freePort();
+        int secondPort = freePort();
+        String members = "http://localhost:" + firstPort + ",http://localhost:" + secondPort;
+        first = start(firstPort, members, "create-drop");
+        second = start(secondPort, members, "none");
+        ClusterMembership membership = first.getBean(ClusterMembership.class);
+        EventRepository eventRepository = first.getBean(EventRepository.class);
+        Event event;
+        do {
+            event = eventRepository.save(new Event("Clustered Event", "Owned by the second node", 10));
+        } while (!membership.ownerOf(event.getId()).equals("http://localhost:" + secondPort));
+        Long eventId = event.getId();
+        TicketBookingService firstService = first.getBean(TicketBookingService.class);
+        EventCatalogSnapshot firstCatalog = first.getBean(EventCatalogSnapshot.class);
+        assertEquals(10, firstService.getEvent(eventId).getAvailableTickets());
+        String etag = firstCatalog.current().etag();
+        
+        // Act - sold and then restocked on the owner alone
+        Long bookingId = second.getBean(TicketBookingService.class).bookTickets(eventId, 4, "user1").getBookingId();
+        
+        // Assert
+        awaitTrue(() -> firstService.getEvent(eventId).getAvailableTickets() == 6);
+        awaitTrue(() -> !firstCatalog.current().etag().equals(etag));
+        assertTrue(new String(firstCatalog.current().json(), StandardCharsets.UTF_8).contains("\"availableTickets\":6"));
+        
+        second.getBean(BookingCancellationService.class).cancel(bookingId, "user1");
+        awaitTrue(() -> firstService.getEvent(eventId).getAvailableTickets() == 10);
+    }
+    
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 5 seconds");
+            Thread.sleep(20);
+        }
+    }
+    
+    private static ConfigurableApplicationContext start(int port, String members, String ddlAuto) {
+        return new SpringApplicationBuilder(TicketBookingApplication.class)
+            .run(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.jmx.enabled=false",
+                "--ticketbooking.booking.engine=in-memory",
+                "--ticketbooking.cluster.enabled=true",
+                "--ticketbooking.cluster.members=" + members,
+                "--ticketbooking.cluster.heartbeat-interval=200ms");
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
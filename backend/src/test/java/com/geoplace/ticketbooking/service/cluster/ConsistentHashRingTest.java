@@ -0,0 +1,52 @@
+package com.geoplace.ticketbooking.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+    
+    private static final List<String> MEMBERS =
+        List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+    
+    @Test
+    void testEventsSpreadEvenlyOverMembers() {
+        ConsistentHashRing ring = ConsistentHashRing.of(MEMBERS, 128);
+        Map<String, Integer> owned = new HashMap<>();
+        
+        for (long eventId = 1; eventId <= 30_000; eventId++) {
+            owned.merge(ring.ownerOf(eventId), 1, Integer::sum);
+        }
+        
+        assertEquals(MEMBERS.size(), owned.size());
+        owned.values().forEach(count -> assertTrue(count > 7_500 && count < 12_500,
+            "Each member should own about a third of the events, got " + owned));
+    }
+    
+    @Test
+    void testRemovingAMemberOnlyMovesItsOwnEvents() {
+        ConsistentHashRing full = ConsistentHashRing.of(MEMBERS, 128);
+        ConsistentHashRing shrunk = ConsistentHashRing.of(MEMBERS.subList(0, 2), 128);
+        
+        for (long eventId = 1; eventId <= 10_000; eventId++) {
+            String before = full.ownerOf(eventId);
+            if (!before.equals(MEMBERS.get(2))) {
+                assertEquals(before, shrunk.ownerOf(eventId), "Event " + eventId + " moved without cause");
+            }
+        }
+    }
+    
+    @Test
+    void testEveryNodeComputesTheSameOwners() {
+        ConsistentHashRing ring = ConsistentHashRing.of(MEMBERS, 64);
+        ConsistentHashRing reordered = ConsistentHashRing.of(List.of(MEMBERS.get(2), MEMBERS.get(0), MEMBERS.get(1)), 64);
+        
+        for (long eventId = 1; eventId <= 1_000; eventId++) {
+            assertEquals(ring.ownerOf(eventId), reordered.ownerOf(eventId));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandRingTest {
+    
+    @Test
+    void testFullRingRefusesUntilConsumerReleases() {
+        CommandRing<long[]> ring = new CommandRing<>(3, () -> new long[1]);
+        
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            long sequence = ring.tryClaim();
+            ring.slot(sequence)[0] = i;
+            ring.publish(sequence);
+        }
+        assertEquals(CommandRing.FULL, ring.tryClaim());
+        
+        assertEquals(4, ring.available(10));
+        assertEquals(2, ring.peek(2)[0]);
+        ring.release(1);
+        assertEquals(4, ring.tryClaim());
+    }
+    
+    @Test
+    void testConcurrentProducersAreConsumedExactlyOnceInOrder() throws InterruptedException {
+        // Arrange - 8 producers pushing 10,000 values each through a 64-slot ring
+        CommandRing<long[]> ring = new CommandRing<>(64, () -> new long[2]);
+        int producers = 8;
+        int perProducer = 10_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+        
+        // Act
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            executorService.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long sequence;
+                    while ((sequence = ring.tryClaim()) == CommandRing.FULL) {
+                        Thread.onSpinWait();
+                    }
+                    long[] slot = ring.slot(sequence);
+                    slot[0] = producer;
+                    slot[1] = i;
+                    ring.publish(sequence);
+                }
+            });
+        }
+        List<long[]> consumed = new ArrayList<>();
+        while (consumed.size() < producers * perProducer) {
+            int batch = ring.available(16);
+            if (batch == 0) {
+                ring.awaitPublished(TimeUnit.MILLISECONDS.toNanos(10));
+                continue;
+            }
+            for (int i = 0; i < batch; i++) {
+                consumed.add(ring.peek(i).clone());
+            }
+            ring.release(batch);
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // Assert
+        long[] next = new long[producers];
+        for (long[] value : consumed) {
+            assertEquals(next[(int) value[0]]++, value[1], "Each producer's values arrive once and in order");
+        }
+        assertEquals(0, ring.available(1));
+    }
+}
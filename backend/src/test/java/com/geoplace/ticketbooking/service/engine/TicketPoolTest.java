@@ -0,0 +1,94 @@
+package com.geoplace.ticketbooking.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketPoolTest {
+    
+    @Test
+    void testStripedPool_SplitsInventoryExactly() {
+        TicketPool pool = new TicketPool(1L, "Striped", 203, 8);
+        
+        assertEquals(8, pool.stripes());
+        assertEquals(203, pool.available());
+    }
+    
+    @Test
+    void testStripedPool_BorrowsFromSiblingsWhenHomeStripeRunsDry() {
+        // 10 tickets over 4 stripes: no single stripe can cover 7
+        TicketPool pool = new TicketPool(1L, "Striped", 10, 4);
+        
+        assertEquals(3, pool.tryReserve(7, "user1"));
+        assertEquals(TicketPool.REJECTED, pool.tryReserve(4, "user2"));
+        assertEquals(0, pool.tryReserve(3, "user3"));
+        assertEquals(0, pool.available());
+    }
+    
+    @Test
+    void testStripedPool_ConcurrentReservationsNeverOversell() throws InterruptedException {
+        // Arrange - 200 tickets over 8 stripes, 64 threads each trying 20 times
+        TicketPool pool = new TicketPool(1L, "Cloud Native Conference", 200, 8);
+        int numberOfThreads = 64;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        AtomicInteger reserved = new AtomicInteger();
+        
+        // Act
+        for (int i = 0; i < numberOfThreads; i++) {
+            final String userId = "user" + i;
+            final int count = (i % 3) + 1;
+            executorService.submit(() -> {
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    if (pool.tryReserve(count, userId) != TicketPool.REJECTED) {
+                        reserved.addAndGet(count);
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // Assert
+        assertTrue(pool.available() >= 0, "Should not have negative tickets");
+        assertEquals(200, reserved.get() + pool.available(),
+                    "Reserved + remaining should equal initial tickets");
+        
+        // Whatever is left must still be bookable from a single stripe's user
+        long leftover = pool.available();
+        for (long i = 0; i < leftover; i++) {
+            assertNotEquals(TicketPool.REJECTED, pool.tryReserve(1, "late-user"));
+        }
+        assertEquals(0, pool.available());
+    }
+    
+    @Test
+    void testStripedPool_ConcurrentBorrowersSellOutExactly() throws InterruptedException {
+        // Arrange - demand matches supply, so no reservation may be turned away
+        TicketPool pool = new TicketPool(1L, "Sell-out", 320, 8);
+        int numberOfThreads = 64;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        AtomicInteger rejected = new AtomicInteger();
+        
+        // Act - every thread books from the same stripe, which has to borrow the rest
+        for (int i = 0; i < numberOfThreads; i++) {
+            executorService.submit(() -> {
+                for (int attempt = 0; attempt < 5; attempt++) {
+                    if (pool.tryReserve(1, "same-user") == TicketPool.REJECTED) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // Assert
+        assertEquals(0, rejected.get());
+        assertEquals(0, pool.available());
+    }
+}
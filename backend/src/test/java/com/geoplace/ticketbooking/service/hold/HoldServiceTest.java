@@ -0,0 +1,163 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.HoldResponse;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.HoldNotFoundException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.repository.TicketHoldRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = "ticketbooking.holds.tick=20ms")
+class HoldServiceTest {
+    
+    @Autowired
+    private HoldService holdService;
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TicketHoldRepository holdRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        holdRepository.deleteAll();
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 100));
+    }
+    
+    @Test
+    void testHold_WithdrawsTicketsUntilConfirmed() {
+        // Act
+        HoldResponse hold = holdService.hold(testEvent.getId(), 10, "user1", Duration.ofMinutes(5));
+        
+        // Assert - held tickets are no longer available, confirming does not take them twice
+        assertEquals(90, availableTickets());
+        BookingResponse booking = holdService.confirm(hold.getHoldId(), "user1");
+        assertEquals(10, booking.getTicketsBooked());
+        assertEquals(90, booking.getRemainingTickets());
+        assertEquals(90, availableTickets());
+        assertEquals(1, bookingRepository.count());
+        assertEquals(0, holdRepository.count());
+        assertThrows(HoldNotFoundException.class, () -> holdService.confirm(hold.getHoldId(), "user1"));
+    }
+    
+    @Test
+    void testRelease_ReturnsTickets() {
+        // Arrange
+        HoldResponse hold = holdService.hold(testEvent.getId(), 30, "user1", Duration.ofMinutes(5));
+        
+        // Act
+        holdService.release(hold.getHoldId(), "user1");
+        
+        // Assert
+        assertEquals(100, availableTickets());
+        assertEquals(0, holdRepository.count());
+        assertThrows(HoldNotFoundException.class, () -> holdService.release(hold.getHoldId(), "user1"));
+    }
+    
+    @Test
+    void testAnotherUsersHold_IsNotFound() {
+        // Arrange
+        HoldResponse hold = holdService.hold(testEvent.getId(), 10, "user1", Duration.ofMinutes(5));
+        
+        // Act & Assert - the hold is left as it was for its owner
+        assertThrows(HoldNotFoundException.class, () -> holdService.confirm(hold.getHoldId(), "user2"));
+        assertThrows(HoldNotFoundException.class, () -> holdService.release(hold.getHoldId(), "user2"));
+        assertEquals(90, availableTickets());
+        assertEquals(10, holdService.confirm(hold.getHoldId(), "user1").getTicketsBooked());
+    }
+    
+    @Test
+    void testExpiry_ReturnsTicketsInOneBatch() throws InterruptedException {
+        // Arrange
+        List<Long> holdIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            holdIds.add(holdService.hold(testEvent.getId(), 5, "user" + i, Duration.ofSeconds(1)).getHoldId());
+        }
+        assertEquals(0, availableTickets());
+        assertThrows(InsufficientTicketsException.class,
+            () -> ticketBookingService.bookTickets(testEvent.getId(), 1, "late"));
+        
+        // Act - wait for the wheel to pass the deadline
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (availableTickets() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        
+        // Assert
+        assertEquals(0, holdRepository.count());
+        assertEquals(100, availableTickets());
+        assertThrows(HoldNotFoundException.class, () -> holdService.confirm(holdIds.get(0), "user0"));
+        assertNotNull(ticketBookingService.bookTickets(testEvent.getId(), 100, "buyer"));
+    }
+    
+    @Test
+    void testConcurrentHolds_NoOverselling() throws Exception {
+        // Arrange
+        int numberOfThreads = 20;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        
+        // Act - 40 holds of 5 compete for 100 tickets alongside direct bookings
+        for (int i = 0; i < 40; i++) {
+            final int userId = i;
+            futures.add(executorService.submit(() -> {
+                try {
+                    if (userId % 4 == 0) {
+                        ticketBookingService.bookTickets(testEvent.getId(), 5, "user" + userId);
+                    } else {
+                        holdService.hold(testEvent.getId(), 5, "user" + userId, Duration.ofMinutes(5));
+                    }
+                    return true;
+                } catch (InsufficientTicketsException e) {
+                    return false;
+                }
+            }));
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // Assert
+        int successful = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get()) {
+                successful++;
+            }
+        }
+        assertEquals(20, successful);
+        assertEquals(0, availableTickets());
+    }
+    
+    private int availableTickets() {
+        return ticketBookingService.getEvent(testEvent.getId()).getAvailableTickets();
+    }
+}
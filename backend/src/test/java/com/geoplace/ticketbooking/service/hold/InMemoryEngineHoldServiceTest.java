@@ -0,0 +1,11 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the hold scenarios against the in-memory engine, where holds move
+ * tickets between the in-memory pools and the event rows.
+ */
+@TestPropertySource(properties = "ticketbooking.booking.engine=in-memory")
+class InMemoryEngineHoldServiceTest extends HoldServiceTest {
+}
@@ -0,0 +1,11 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the hold scenarios against the single-writer engine, where holds reserve
+ * tickets on the owning partition before decrementing the event rows.
+ */
+@TestPropertySource(properties = "ticketbooking.booking.engine=single-writer")
+class SingleWriterEngineHoldServiceTest extends HoldServiceTest {
+}
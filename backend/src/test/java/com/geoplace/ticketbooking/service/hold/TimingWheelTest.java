@@ -0,0 +1,61 @@
+package com.geoplace.ticketbooking.service.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    
+    @Test
+    void testEntriesExpireAfterTheirDelay_IncludingLaterRounds() throws Exception {
+        // Arrange - 8 buckets of 10ms, so 250ms is three revolutions out
+        ConcurrentMap<String, Long> expiredAt = new ConcurrentHashMap<>();
+        CountDownLatch allExpired = new CountDownLatch(3);
+        long start = System.nanoTime();
+        
+        try (TimingWheel<String> wheel = new TimingWheel<>("test-wheel", Duration.ofMillis(10), 8, due -> {
+            due.forEach(task -> expiredAt.put(task, System.nanoTime() - start));
+            due.forEach(task -> allExpired.countDown());
+        })) {
+            // Act
+            wheel.schedule("short", Duration.ofMillis(20));
+            wheel.schedule("long", Duration.ofMillis(250));
+            wheel.schedule("overdue", Duration.ofMillis(-5));
+            
+            // Assert
+            assertTrue(allExpired.await(5, TimeUnit.SECONDS));
+        }
+        assertTrue(expiredAt.get("short") >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(expiredAt.get("long") >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertTrue(expiredAt.get("overdue") < expiredAt.get("long"));
+    }
+    
+    @Test
+    void testEntriesDueInTheSameTickAreHandedOverTogether() throws Exception {
+        // Arrange
+        CountDownLatch expired = new CountDownLatch(1);
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        
+        try (TimingWheel<Integer> wheel = new TimingWheel<>("test-wheel", Duration.ofMillis(200), 4, due -> {
+            batches.add(List.copyOf(due));
+            expired.countDown();
+        })) {
+            // Act
+            for (int i = 0; i < 1000; i++) {
+                wheel.schedule(i, Duration.ZERO);
+            }
+            
+            // Assert
+            assertTrue(expired.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1000, batches.get(0).size());
+    }
+}
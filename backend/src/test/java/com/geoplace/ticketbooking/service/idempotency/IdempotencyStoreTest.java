@@ -0,0 +1,76 @@
+package com.geoplace.ticketbooking.service.idempotency;
+
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.exception.BookingConflictException;
+import com.geoplace.ticketbooking.exception.InsufficientTicketsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+    
+    @Test
+    void testDuplicateReplaysOwnersResponse() {
+        // Arrange
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1), 4, Duration.ofSeconds(1));
+        IdempotencyStore.Claim first = store.claim("user1", "key", 1L, 2);
+        BookingResponse response = BookingResponse.success(7L, 1L, "Event", 2, 98);
+        
+        // Act
+        first.complete(response);
+        IdempotencyStore.Claim retry = store.claim("user1", "key", 1L, 2);
+        
+        // Assert
+        assertTrue(first.isOwner());
+        assertFalse(retry.isOwner());
+        assertSame(response, retry.replay(1L, 2));
+        assertTrue(store.claim("user2", "key", 1L, 2).isOwner());
+    }
+    
+    @Test
+    void testInFlightDuplicateTimesOutAsConflict() {
+        // Arrange
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1), 4, Duration.ofMillis(20));
+        store.claim("user1", "key", 1L, 2);
+        
+        // Act & Assert
+        assertThrows(BookingConflictException.class, () -> store.claim("user1", "key", 1L, 2).replay(1L, 2));
+    }
+    
+    @Test
+    void testFailureReleasesKey() {
+        // Arrange
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1), 4, Duration.ofSeconds(1));
+        IdempotencyStore.Claim first = store.claim("user1", "key", 1L, 2);
+        IdempotencyStore.Claim waiting = store.claim("user1", "key", 1L, 2);
+        
+        // Act
+        first.fail(new InsufficientTicketsException(2, 0));
+        
+        // Assert - the duplicate already waiting sees the failure, a later retry starts over
+        assertThrows(InsufficientTicketsException.class, () -> waiting.replay(1L, 2));
+        assertTrue(store.claim("user1", "key", 1L, 2).isOwner());
+    }
+    
+    @Test
+    void testEntriesAreBoundedAndExpire() throws InterruptedException {
+        // Arrange - a single stripe of two entries
+        IdempotencyStore bounded = new IdempotencyStore(2, Duration.ofHours(1), 1, Duration.ofSeconds(1));
+        IdempotencyStore expiring = new IdempotencyStore(100, Duration.ofMillis(10), 1, Duration.ofSeconds(1));
+        
+        // Act
+        bounded.claim("user1", "a", 1L, 1);
+        bounded.claim("user1", "b", 1L, 1);
+        bounded.claim("user1", "a", 1L, 1);
+        bounded.claim("user1", "c", 1L, 1);
+        expiring.claim("user1", "a", 1L, 1);
+        Thread.sleep(20);
+        
+        // Assert - "b" was least recently used
+        assertFalse(bounded.claim("user1", "a", 1L, 1).isOwner());
+        assertTrue(bounded.claim("user1", "b", 1L, 1).isOwner());
+        assertTrue(expiring.claim("user1", "a", 1L, 1).isOwner());
+    }
+}
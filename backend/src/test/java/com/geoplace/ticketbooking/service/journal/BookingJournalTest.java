@@ -0,0 +1,222 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testAppendedRecordsReplayInOrder() throws Exception {
+        // Arrange
+        BookingJournal journal = open(DataSize.ofMegabytes(1));
+        JournalRecord snapshot = new JournalRecord.EventSnapshot(1L, "Event", null, 100, 100, 1);
+        JournalRecord booked = new JournalRecord.Booked(1L, 7L, 3, 1_700_000_000_000L, "user1", "key-1");
+        
+        // Act
+        journal.append(snapshot).join();
+        journal.append(booked, new JournalRecord.Adjusted(1L, -2)).join();
+        journal.append(new JournalRecord.EventDeleted(1L)).join();
+        
+        // Assert
+        assertEquals(List.of(snapshot, booked, new JournalRecord.Adjusted(1L, -2), new JournalRecord.EventDeleted(1L)),
+            replay(journal));
+        journal.destroy();
+    }
+    
+    @Test
+    void testReopenedJournalContinuesAfterLastRecord() throws Exception {
+        // Arrange
+        BookingJournal first = open(DataSize.ofMegabytes(1));
+        first.append(new JournalRecord.Adjusted(1L, -1)).join();
+        first.destroy();
+        
+        // Act
+        BookingJournal second = open(DataSize.ofMegabytes(1));
+        second.append(new JournalRecord.Adjusted(1L, -2)).join();
+        
+        // Assert
+        assertEquals(List.of(new JournalRecord.Adjusted(1L, -1), new JournalRecord.Adjusted(1L, -2)), replay(second));
+        second.destroy();
+    }
+    
+    @Test
+    void testConcurrentAppendsRotateAcrossSegments() throws Exception {
+        // Arrange - segments barely larger than one maximum record
+        BookingJournal journal = open(DataSize.ofKilobytes(20));
+        journal.append(new JournalRecord.EventSnapshot(1L, "Event", null, 2000, 2000, 1)).join();
+        
+        // Act
+        List<CompletableFuture<Void>> appends = IntStream.range(0, 2000)
+            .mapToObj(i -> journal.append(new JournalRecord.Booked(1L, i, 1, i, "user" + i, null)))
+            .toList();
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+        
+        // Assert - whatever has been checkpointed meanwhile, every booking is still there
+        JournalState state = fold(journal);
+        assertEquals(0, state.events.get(1L).available);
+        assertEquals(2000, state.bookings.size());
+        state.bookings.forEach((bookingId, booking) -> assertEquals(bookingId, booking.bookedAtMillis));
+        assertTrue(files(".journal").stream().anyMatch(file -> !file.getFileName().toString().startsWith("0000000000")));
+        journal.destroy();
+    }
+    
+    @Test
+    void testFailedAppendAcrossRotationIsNotReplayed() throws Exception {
+        // Arrange - two bookings fill the first segment, the third starts the next one
+        BookingJournal journal = open(DataSize.ofKilobytes(20));
+        journal.append(new JournalRecord.EventSnapshot(1L, "Event", null, 100, 100, 1)).join();
+        String large = "u".repeat(JournalRecord.MAX_STRING_BYTES);
+        
+        // Act - the last record of the append cannot be encoded
+        CompletableFuture<Void> failed = journal.append(
+            new JournalRecord.Booked(1L, 1L, 2, 1_000L, large, large),
+            new JournalRecord.Booked(1L, 2L, 3, 2_000L, large, large),
+            new JournalRecord.Booked(1L, 3L, 4, 3_000L, large, large),
+            null);
+        assertThrows(CompletionException.class, failed::join);
+        journal.append(new JournalRecord.Booked(1L, 5L, 1, 5_000L, "user5", null)).join();
+        journal.destroy();
+        
+        // Assert - only the booking after the failure survives, also once reopened
+        assertTrue(files(".journal").size() > 1 || !files(".checkpoint").isEmpty());
+        BookingJournal reopened = open(DataSize.ofKilobytes(20));
+        JournalState state = fold(reopened);
+        assertEquals(99, state.events.get(1L).available);
+        assertEquals(List.of(5L), List.copyOf(state.bookings.keySet()));
+        reopened.destroy();
+    }
+    
+    @Test
+    void testCheckpointReplacesClosedSegments() throws Exception {
+        // Arrange - a booking, a voided one and a hold spread over several segments
+        BookingJournal journal = open(DataSize.ofKilobytes(20));
+        journal.append(new JournalRecord.EventSnapshot(1L, "Event", "Checkpointed", 100, 100, 1)).join();
+        journal.append(new JournalRecord.Booked(1L, 1L, 4, 1_000L, "user1", "key-1")).join();
+        journal.append(new JournalRecord.Booked(1L, 2L, 6, 2_000L, "user2", null)).join();
+        journal.append(new JournalRecord.Adjusted(1L, -5), new JournalRecord.Held(1L, 9L, 5, "user3", 3_000L)).join();
+        journal.append(new JournalRecord.Booked(1L, 3L, 2, 4_000L, "user4", null)).join();
+        journal.append(new JournalRecord.Cancelled(1L, 3L, 5_000L), new JournalRecord.Adjusted(1L, 2)).join();
+        fill(journal);
+        
+        // Act
+        journal.checkpoint();
+        journal.append(new JournalRecord.Voided(1L, 2L, 6)).join();
+        
+        // Assert
+        List<Path> checkpoints = files(".checkpoint");
+        assertEquals(1, checkpoints.size());
+        String boundary = checkpoints.get(0).getFileName().toString().replace(".checkpoint", ".journal");
+        assertTrue(files(".journal").stream().allMatch(file -> file.getFileName().toString().compareTo(boundary) >= 0));
+        
+        JournalState state = fold(journal);
+        assertEquals(91, state.events.get(1L).available);
+        assertEquals("Checkpointed", state.events.get(1L).description);
+        assertEquals(List.of(1L, 3L), List.copyOf(state.bookings.keySet()));
+        assertFalse(state.bookings.get(1L).isCancelled());
+        assertEquals(5_000L, state.bookings.get(3L).cancelledAtMillis);
+        assertEquals("key-1", state.bookings.get(1L).idempotencyKey);
+        assertEquals(new JournalRecord.Held(1L, 9L, 5, "user3", 3_000L), state.holds.get(9L));
+        journal.destroy();
+    }
+    
+    @Test
+    void testReopenedJournalContinuesAfterCheckpoint() throws Exception {
+        // Arrange
+        BookingJournal first = open(DataSize.ofKilobytes(20));
+        first.append(new JournalRecord.EventSnapshot(1L, "Event", null, 100, 100, 1)).join();
+        first.append(new JournalRecord.Adjusted(1L, -10)).join();
+        fill(first);
+        first.checkpoint();
+        first.destroy();
+        Files.writeString(directory.resolve("9999999999.checkpoint.tmp"), "left over from a crash");
+        
+        // Act
+        BookingJournal second = open(DataSize.ofKilobytes(20));
+        second.append(new JournalRecord.Adjusted(1L, -20)).join();
+        
+        // Assert
+        assertEquals(70, fold(second).events.get(1L).available);
+        assertTrue(files(".tmp").isEmpty());
+        second.destroy();
+    }
+    
+    @Test
+    void testTornTailIsIgnoredAndOverwritten() throws Exception {
+        // Arrange - a half-written frame after the last intact record
+        BookingJournal first = open(DataSize.ofMegabytes(1));
+        first.append(new JournalRecord.Adjusted(1L, -1)).join();
+        first.destroy();
+        long tail;
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            tail = 8 + 1 + Long.BYTES + Integer.BYTES;
+            channel.write(ByteBuffer.allocate(12).putInt(13).putInt(0xCAFE).putInt(42).flip(), tail);
+        }
+        
+        // Act
+        BookingJournal second = open(DataSize.ofMegabytes(1));
+        List<JournalRecord> beforeAppend = replay(second);
+        second.append(new JournalRecord.Adjusted(1L, -2)).join();
+        
+        // Assert
+        assertEquals(List.of(new JournalRecord.Adjusted(1L, -1)), beforeAppend);
+        assertEquals(List.of(new JournalRecord.Adjusted(1L, -1), new JournalRecord.Adjusted(1L, -2)), replay(second));
+        second.destroy();
+    }
+    
+    private BookingJournal open(DataSize segmentSize) throws IOException {
+        return new BookingJournal(directory, segmentSize, 64);
+    }
+    
+    /**
+     * Append no-op adjustments of an unknown event until the journal has rotated a few times
+     */
+    private static void fill(BookingJournal journal) {
+        CompletableFuture<?>[] appends = IntStream.range(0, 10_000)
+            .mapToObj(i -> journal.append(new JournalRecord.Adjusted(2L, 0)))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(appends).join();
+    }
+    
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+    
+    private static JournalState fold(BookingJournal journal) throws IOException {
+        JournalState state = new JournalState();
+        journal.replay(state::apply);
+        return state;
+    }
+    
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().findFirst().orElseThrow();
+        }
+    }
+    
+    private static List<JournalRecord> replay(BookingJournal journal) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+}
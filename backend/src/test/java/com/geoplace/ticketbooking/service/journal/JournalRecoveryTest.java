@@ -0,0 +1,143 @@
+package com.geoplace.ticketbooking.service.journal;
+
+import com.geoplace.ticketbooking.TicketBookingApplication;
+import com.geoplace.ticketbooking.dto.BookingResponse;
+import com.geoplace.ticketbooking.dto.HoldResponse;
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.exception.BookingNotFoundException;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.repository.TicketHoldRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import com.geoplace.ticketbooking.service.cancellation.BookingCancellationService;
+import com.geoplace.ticketbooking.service.hold.HoldService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restarts the service on a fresh database and checks that the journal brings back what was booked.
+ */
+class JournalRecoveryTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testRestartRebuildsEventsAndBookingsFromJournal() {
+        // Arrange
+        Long eventId;
+        List<Long> bookingIds = new ArrayList<>();
+        try (ConfigurableApplicationContext first = start("journal-before")) {
+            TicketBookingService bookingService = first.getBean(TicketBookingService.class);
+            eventId = first.getBean(EventRepository.class).save(new Event("Journaled Event", "Survives restarts", 40)).getId();
+            for (int i = 0; i < 10; i++) {
+                bookingIds.add(bookingService.bookTickets(eventId, 2, "user" + i, "key-" + i).getBookingId());
+            }
+        }
+        
+        // Act
+        try (ConfigurableApplicationContext second = start("journal-after")) {
+            EventRepository eventRepository = second.getBean(EventRepository.class);
+            BookingRepository bookingRepository = second.getBean(BookingRepository.class);
+            TicketBookingService bookingService = second.getBean(TicketBookingService.class);
+            
+            // Assert
+            Event recovered = eventRepository.findById(eventId).orElseThrow();
+            assertEquals("Journaled Event", recovered.getName());
+            assertEquals(20, recovered.getAvailableTickets());
+            List<Booking> bookings = bookingRepository.findByEventId(eventId);
+            assertEquals(bookingIds, bookings.stream().map(Booking::getId).sorted().toList());
+            assertEquals(20, bookings.stream().mapToInt(Booking::getTicketCount).sum());
+            assertEquals(6, eventRepository.count());
+            
+            BookingResponse retry = bookingService.bookTickets(eventId, 2, "user3", "key-3");
+            assertEquals(bookingIds.get(3), retry.getBookingId());
+            assertEquals(20, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+            assertEquals(0, bookingService.bookTickets(eventId, 20, "user10").getRemainingTickets());
+            assertTrue(eventRepository.save(new Event("After Restart", "New ID", 10)).getId() > eventId);
+        }
+    }
+    
+    @Test
+    void testRestartKeepsConfirmedAndOutstandingHolds() {
+        // Arrange
+        Long eventId;
+        long confirmedBookingId;
+        Long outstandingHoldId;
+        try (ConfigurableApplicationContext first = start("journal-holds-before")) {
+            HoldService holdService = first.getBean(HoldService.class);
+            eventId = first.getBean(EventRepository.class).save(new Event("Held Event", "Holds survive restarts", 30)).getId();
+            HoldResponse confirmed = holdService.hold(eventId, 5, "user1", Duration.ofMinutes(5));
+            confirmedBookingId = holdService.confirm(confirmed.getHoldId(), "user1").getBookingId();
+            holdService.release(holdService.hold(eventId, 7, "user2", Duration.ofMinutes(5)).getHoldId(), "user2");
+            outstandingHoldId = holdService.hold(eventId, 4, "user3", Duration.ofMinutes(5)).getHoldId();
+        }
+        
+        // Act
+        try (ConfigurableApplicationContext second = start("journal-holds-after")) {
+            EventRepository eventRepository = second.getBean(EventRepository.class);
+            BookingRepository bookingRepository = second.getBean(BookingRepository.class);
+            HoldService holdService = second.getBean(HoldService.class);
+            
+            // Assert - the confirmed booking keeps its ID, the outstanding hold its tickets
+            assertEquals(21, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+            Booking booking = bookingRepository.findById(confirmedBookingId).orElseThrow();
+            assertEquals(5, booking.getTicketCount());
+            assertEquals("user1", booking.getUserId());
+            assertEquals(1, second.getBean(TicketHoldRepository.class).count());
+            
+            holdService.release(outstandingHoldId, "user3");
+            assertEquals(25, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+        }
+    }
+    
+    @Test
+    void testRestartKeepsCancellations() {
+        // Arrange
+        Long eventId;
+        long cancelledId;
+        long standingId;
+        try (ConfigurableApplicationContext first = start("journal-cancel-before")) {
+            TicketBookingService bookingService = first.getBean(TicketBookingService.class);
+            eventId = first.getBean(EventRepository.class).save(new Event("Cancelled Event", "Refunds survive", 20)).getId();
+            cancelledId = bookingService.bookTickets(eventId, 6, "user1").getBookingId();
+            standingId = bookingService.bookTickets(eventId, 4, "user2").getBookingId();
+            first.getBean(BookingCancellationService.class).cancel(cancelledId, "user1");
+        }
+        
+        // Act
+        try (ConfigurableApplicationContext second = start("journal-cancel-after")) {
+            EventRepository eventRepository = second.getBean(EventRepository.class);
+            BookingRepository bookingRepository = second.getBean(BookingRepository.class);
+            BookingCancellationService cancellationService = second.getBean(BookingCancellationService.class);
+            
+            // Assert - the cancelled booking stays cancelled and cannot give its tickets back twice
+            assertEquals(16, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+            assertNotNull(bookingRepository.findById(cancelledId).orElseThrow().getCancelledAt());
+            assertNull(bookingRepository.findById(standingId).orElseThrow().getCancelledAt());
+            assertThrows(BookingNotFoundException.class, () -> cancellationService.cancel(cancelledId, "user1"));
+            assertEquals(16, eventRepository.findById(eventId).orElseThrow().getAvailableTickets());
+        }
+    }
+    
+    private ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(TicketBookingApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--ticketbooking.booking.engine=in-memory",
+                "--ticketbooking.journal.enabled=true",
+                "--ticketbooking.journal.directory=" + directory);
+    }
+}
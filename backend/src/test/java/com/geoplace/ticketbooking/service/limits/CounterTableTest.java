@@ -0,0 +1,144 @@
+package com.geoplace.ticketbooking.service.limits;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterTableTest {
+    
+    @Test
+    void testTryAcquire_WeighsThePreviousWindow() {
+        CounterTable table = new CounterTable(64, 1);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(table.tryAcquire(7L, 10, 1.0, 4));
+        }
+        assertFalse(table.tryAcquire(7L, 10, 1.0, 4));
+        
+        // Half of the previous window still counts: 2 + 2 new hits
+        assertTrue(table.tryAcquire(7L, 11, 0.5, 4));
+        assertTrue(table.tryAcquire(7L, 11, 0.5, 4));
+        assertFalse(table.tryAcquire(7L, 11, 0.5, 4));
+        
+        // A window later nothing is left over
+        assertTrue(table.tryAcquire(7L, 13, 1.0, 1));
+    }
+    
+    @Test
+    void testAdd_RejectsPastTheLimitAndReportsTheCount() {
+        CounterTable table = new CounterTable(64, 1);
+        assertEquals(CounterTable.ABSENT, table.add(7L, 1, 4, 100, 0));
+        
+        table.load(7L, 3, 100, 0);
+        assertEquals(~3, table.add(7L, 2, 4, 100, 0));
+        assertEquals(4, table.add(7L, 1, 4, 100, 0));
+        table.subtract(7L, 2, true);
+        assertEquals(3, table.add(7L, 1, 4, 100, 0));
+        
+        // Stale counters with nothing pending read as absent
+        table.settle(7L, 1);
+        assertEquals(CounterTable.ABSENT, table.add(7L, 1, 4, 300, 200));
+    }
+    
+    @Test
+    void testLoad_DropsExpiredCountersWhenFull() {
+        // One stripe of at most 16 slots
+        CounterTable table = new CounterTable(16, 1);
+        for (long key = 1; key <= 12; key++) {
+            table.load(CounterTable.mix(key), 1, 100, 0);
+        }
+        
+        // The next load makes room by dropping everything last used before 200
+        table.load(CounterTable.mix(13), 1, 300, 200);
+        
+        assertEquals(2, table.add(CounterTable.mix(13), 1, 4, 300, 200));
+        assertEquals(CounterTable.ABSENT, table.add(CounterTable.mix(1), 1, 4, 300, 0));
+    }
+    
+    @Test
+    void testTryAcquire_LetsNewKeysThroughRatherThanResetLiveCounters() {
+        // One stripe of at most 16 slots, filled with counters at their limit
+        CounterTable table = new CounterTable(16, 1);
+        for (long key = 1; key <= 12; key++) {
+            assertTrue(table.tryAcquire(CounterTable.mix(key), 10, 1.0, 1));
+        }
+        
+        // A new key is not refused, only not counted
+        assertTrue(table.tryAcquire(CounterTable.mix(13), 10, 1.0, 1));
+        assertTrue(table.tryAcquire(CounterTable.mix(13), 10, 1.0, 1));
+        
+        // The existing counters still hold their counts
+        for (long key = 1; key <= 12; key++) {
+            assertFalse(table.tryAcquire(CounterTable.mix(key), 10, 1.0, 1));
+        }
+        // Once they expire the new key is counted too
+        assertTrue(table.tryAcquire(CounterTable.mix(13), 12, 1.0, 1));
+        assertFalse(table.tryAcquire(CounterTable.mix(13), 12, 1.0, 1));
+    }
+    
+    @Test
+    void testLoad_EvictsTheLeastRecentlyUsedLiveCountersWhenFull() {
+        CounterTable table = new CounterTable(16, 1);
+        for (long key = 1; key <= 12; key++) {
+            table.load(CounterTable.mix(key), 1, 100 + key, 0);
+        }
+        
+        table.load(CounterTable.mix(13), 1, 200, 0);
+        
+        assertEquals(2, table.add(CounterTable.mix(13), 1, 4, 200, 0));
+        for (long key = 1; key <= 4; key++) {
+            assertEquals(CounterTable.ABSENT, table.add(CounterTable.mix(key), 1, 4, 200, 0));
+        }
+        for (long key = 5; key <= 12; key++) {
+            assertEquals(2, table.add(CounterTable.mix(key), 1, 4, 200, 0));
+        }
+    }
+    
+    @Test
+    void testLoad_NeverEvictsCountersWithPendingAmounts() {
+        // The oldest four counters have tickets reserved but not yet written
+        CounterTable table = new CounterTable(16, 1);
+        for (long key = 1; key <= 12; key++) {
+            table.load(CounterTable.mix(key), 1, 100 + key, 0);
+        }
+        for (long key = 1; key <= 4; key++) {
+            assertEquals(2, table.add(CounterTable.mix(key), 1, 4, 100 + key, 0));
+        }
+        
+        table.load(CounterTable.mix(13), 1, 200, 0);
+        
+        // The next oldest counters made room instead
+        for (long key = 1; key <= 4; key++) {
+            assertEquals(3, table.add(CounterTable.mix(key), 1, 4, 100 + key, 0));
+        }
+        for (long key = 5; key <= 8; key++) {
+            assertEquals(CounterTable.ABSENT, table.add(CounterTable.mix(key), 1, 4, 200, 0));
+        }
+        
+        // Once written, they can go like any other
+        for (long key = 1; key <= 4; key++) {
+            table.settle(CounterTable.mix(key), 3);
+        }
+        for (long key = 14; key <= 16; key++) {
+            table.load(CounterTable.mix(key), 1, 300, 0);
+        }
+        table.load(CounterTable.mix(17), 1, 400, 0);
+        assertEquals(CounterTable.ABSENT, table.add(CounterTable.mix(1), 1, 4, 400, 0));
+    }
+    
+    @Test
+    void testLoad_RefusesWhenEveryCounterHasAPendingAmount() {
+        CounterTable table = new CounterTable(16, 1);
+        for (long key = 1; key <= 12; key++) {
+            table.load(CounterTable.mix(key), 0, 100, 0);
+            table.add(CounterTable.mix(key), 1, 4, 100, 0);
+        }
+        
+        assertFalse(table.load(CounterTable.mix(13), 1, 200, 0));
+        
+        // A failed booking gives its reservation back, and the counter can go
+        table.subtract(CounterTable.mix(1), 1, true);
+        assertTrue(table.load(CounterTable.mix(13), 1, 200, 0));
+        assertEquals(2, table.add(CounterTable.mix(13), 1, 4, 200, 0));
+        assertEquals(2, table.add(CounterTable.mix(2), 1, 4, 200, 0));
+    }
+}
@@ -0,0 +1,122 @@
+package com.geoplace.ticketbooking.service.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoplace.ticketbooking.entity.Booking;
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "ticketbooking.limits.enabled=true",
+    "ticketbooking.limits.max-tickets-per-event=4",
+    "ticketbooking.limits.requests-per-window=5",
+    "ticketbooking.limits.window=1h"
+})
+class PurchaseLimitsTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    // Counters outlive each test in the shared context, so every test books as a user of its own
+    private String userId;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 100));
+        userId = "user-" + UUID.randomUUID();
+    }
+    
+    @Test
+    void testBooking_CapsTicketsPerUserAcrossBookings() throws Exception {
+        mockMvc.perform(book(testEvent, userId, 3)).andExpect(status().isCreated());
+        
+        mockMvc.perform(book(testEvent, userId, 2))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Purchase Limit Exceeded"));
+        mockMvc.perform(book(testEvent, userId, 1)).andExpect(status().isCreated());
+        // The cap is per user
+        mockMvc.perform(book(testEvent, "other-" + userId, 4)).andExpect(status().isCreated());
+    }
+    
+    @Test
+    void testBooking_ColdCounterLoadsPastBookings() throws Exception {
+        // Arrange - bookings the limiter never saw
+        bookingRepository.save(new Booking(testEvent, 3, userId));
+        
+        // Act & Assert
+        mockMvc.perform(book(testEvent, userId, 2)).andExpect(status().isConflict());
+        mockMvc.perform(book(testEvent, userId, 1)).andExpect(status().isCreated());
+    }
+    
+    @Test
+    void testHold_CountsUntilReleased() throws Exception {
+        String body = mockMvc.perform(post("/api/tickets/{id}/hold", testEvent.getId())
+                .param("count", "4").param("userId", userId))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        long holdId = objectMapper.readTree(body).get("holdId").asLong();
+        
+        mockMvc.perform(book(testEvent, userId, 1)).andExpect(status().isConflict());
+        mockMvc.perform(delete("/api/holds/{holdId}", holdId).param("userId", userId)).andExpect(status().isNoContent());
+        mockMvc.perform(book(testEvent, userId, 1)).andExpect(status().isCreated());
+    }
+    
+    @Test
+    void testBooking_FailedBookingGivesItsTicketsBack() throws Exception {
+        // Arrange - two tickets left
+        Event smallEvent = eventRepository.save(new Event("Small Event", "Test Description", 2));
+        
+        // Act & Assert - three would fit the cap but not the event, and are not counted
+        mockMvc.perform(book(smallEvent, userId, 3)).andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Insufficient Tickets"));
+        mockMvc.perform(book(smallEvent, userId, 2)).andExpect(status().isCreated());
+        mockMvc.perform(book(testEvent, userId, 4)).andExpect(status().isCreated());
+    }
+    
+    @Test
+    void testBooking_RateLimitsRequestsPerUser() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(book(testEvent, userId, 1));
+        }
+        
+        mockMvc.perform(book(testEvent, userId, 1))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andExpect(jsonPath("$.message").value("Rate Limited"));
+        mockMvc.perform(book(testEvent, "other-" + userId, 1)).andExpect(status().isCreated());
+    }
+    
+    private RequestBuilder book(Event event, String userId, int count) {
+        return post("/api/tickets/{id}/book", event.getId())
+            .param("count", String.valueOf(count))
+            .param("userId", userId);
+    }
+}
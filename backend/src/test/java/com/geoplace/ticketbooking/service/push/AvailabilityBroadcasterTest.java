@@ -0,0 +1,128 @@
+package com.geoplace.ticketbooking.service.push;
+
+import com.geoplace.ticketbooking.entity.Event;
+import com.geoplace.ticketbooking.repository.BookingRepository;
+import com.geoplace.ticketbooking.repository.EventRepository;
+import com.geoplace.ticketbooking.service.TicketBookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * The ticker is effectively switched off; each test drives it through {@link AvailabilityBroadcaster#tick()}.
+ */
+@SpringBootTest(properties = "ticketbooking.push.interval=1h")
+@AutoConfigureMockMvc
+class AvailabilityBroadcasterTest {
+    
+    private static final Pattern AVAILABILITY_FRAME = Pattern.compile("event: availability\ndata: (.*)\n\n");
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private AvailabilityBroadcaster broadcaster;
+    
+    @Autowired
+    private TicketBookingService ticketBookingService;
+    
+    @Autowired
+    private EventRepository eventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    private Event testEvent;
+    
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        eventRepository.deleteAll();
+        testEvent = eventRepository.save(new Event("Test Event", "Test Description", 100));
+    }
+    
+    @Test
+    void testSubscribe_StartsWithSnapshot() throws Exception {
+        MvcResult stream = subscribe();
+        
+        String content = awaitContent(stream, "\n\n");
+        // Headers go out with the first frame
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, stream.getResponse().getContentType());
+        assertTrue(content.startsWith("event: snapshot\ndata: [{\"id\":" + testEvent.getId() + ","), content);
+        assertTrue(content.contains("\"availableTickets\":100"), content);
+    }
+    
+    @Test
+    void testBookings_CoalescedIntoOneFramePerTick() throws Exception {
+        // Flush the catalog change of setUp, so the next tick carries availability only
+        broadcaster.tick();
+        MvcResult stream = subscribe();
+        awaitContent(stream, "event: snapshot");
+        
+        for (int i = 0; i < 5; i++) {
+            ticketBookingService.bookTickets(testEvent.getId(), 2, "user" + i);
+        }
+        broadcaster.tick();
+        String content = awaitContent(stream, "event: availability");
+        
+        // One update carrying the latest value, not one per booking
+        assertEquals(1, countAvailabilityFrames(content));
+        assertTrue(content.contains("data: [{\"id\":" + testEvent.getId() + ",\"availableTickets\":90}]\n\n"), content);
+        
+        // Nothing moved since, so nothing is sent again
+        broadcaster.tick();
+        Thread.sleep(100);
+        assertEquals(1, countAvailabilityFrames(stream.getResponse().getContentAsString()));
+    }
+    
+    @Test
+    void testCatalogChange_SendsFreshSnapshot() throws Exception {
+        MvcResult stream = subscribe();
+        awaitContent(stream, "event: snapshot");
+        
+        Event added = eventRepository.save(new Event("Added Event", "Added later", 50));
+        broadcaster.tick();
+        
+        String content = awaitContent(stream, "\"id\":" + added.getId() + ",");
+        assertEquals(2, content.split("event: snapshot", -1).length - 1, content);
+    }
+    
+    private MvcResult subscribe() throws Exception {
+        return mockMvc.perform(get("/api/events/stream").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
+    
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+    
+    private static int countAvailabilityFrames(String content) {
+        Matcher matcher = AVAILABILITY_FRAME.matcher(content);
+        int frames = 0;
+        while (matcher.find()) {
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -1,4 +1,4 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { MatTableModule } from '@angular/material/table';
 import { MatButtonModule } from '@angular/material/button';
@@ -7,8 +7,9 @@ import { MatCardModule } from '@angular/material/card';
 import { MatProgressSpinnerModule } from '@angular/material/progress-spinner';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { MatDialog, MatDialogModule } from '@angular/material/dialog';
+import { Subscription } from 'rxjs';
 import { TicketBookingService } from '../../services/ticket-booking.service';
-import { Event } from '../../models/event.model';
+import { AvailabilityMessage, Event } from '../../models/event.model';
 import { BookDialogComponent } from '../book-dialog/book-dialog.component';
 
 @Component({
@@ -27,10 +28,11 @@ import { BookDialogComponent } from '../book-dialog/book-dialog.component';
   templateUrl: './event-list.component.html',
   styleUrls: ['./event-list.component.scss']
 })
-export class EventListComponent implements OnInit {
+export class EventListComponent implements OnInit, OnDestroy {
   events: Event[] = [];
   displayedColumns: string[] = ['name', 'description', 'totalTickets', 'availableTickets', 'action'];
   loading = true;
+  private availability?: Subscription;
 
   constructor(
     private ticketBookingService: TicketBookingService,
@@ -39,7 +41,39 @@ export class EventListComponent implements OnInit {
   ) { }
 
   ngOnInit(): void {
-    this.loadEvents();
+    this.watchAvailability();
+  }
+
+  ngOnDestroy(): void {
+    this.availability?.unsubscribe();
+  }
+
+  /**
+   * Keep the list current from the server's availability stream instead of polling;
+   * falls back to a one-off load if the stream cannot be opened
+   */
+  watchAvailability(): void {
+    this.loading = true;
+    this.availability = this.ticketBookingService.watchAvailability().subscribe({
+      next: (message) => this.applyAvailability(message),
+      error: (error) => {
+        console.error('Live availability unavailable, loading events once:', error);
+        this.loadEvents();
+      }
+    });
+  }
+
+  private applyAvailability(message: AvailabilityMessage): void {
+    if (message.type === 'snapshot') {
+      this.events = message.events;
+      this.loading = false;
+      return;
+    }
+    const updates = new Map(message.updates.map(update => [update.id, update.availableTickets]));
+    // A new array, so the table notices the change
+    this.events = this.events.map(event => updates.has(event.id)
+      ? { ...event, availableTickets: updates.get(event.id)! }
+      : event);
   }
 
   loadEvents(): void {
@@ -75,8 +109,8 @@ export class EventListComponent implements OnInit {
     });
 
     dialogRef.afterClosed().subscribe(result => {
-      if (result) {
-        // Refresh the event list after successful booking
+      if (result && (!this.availability || this.availability.closed)) {
+        // Without the live stream, refresh the event list after a successful booking
         this.loadEvents();
       }
     });
@@ -6,6 +6,19 @@ export interface Event {
   availableTickets: number;
 }
 
+export interface AvailabilityUpdate {
+  id: number;
+  availableTickets: number;
+}
+
+/**
+ * A message of the live availability stream: the full event list when the
+ * stream (re)connects or the catalog changes, otherwise the events that moved
+ */
+export type AvailabilityMessage =
+  | { type: 'snapshot'; events: Event[] }
+  | { type: 'availability'; updates: AvailabilityUpdate[] };
+
 export interface BookingResponse {
   bookingId: number;
   eventId: number;
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Event, BookingResponse } from '../models/event.model';
+import { Event, BookingResponse, AvailabilityMessage } from '../models/event.model';
 
 @Injectable({
   providedIn: 'root'
@@ -18,6 +18,37 @@ export class TicketBookingService {
     return this.http.get<Event[]>(`${this.API_URL}/events`);
   }
 
+  /**
+   * Live availability pushed by the server over Server-Sent Events.
+   * The browser reconnects on its own after a dropped connection and then
+   * receives a fresh snapshot; the observable only errors if the stream
+   * never opened. Closing the subscription closes the stream.
+   */
+  watchAvailability(): Observable<AvailabilityMessage> {
+    return new Observable<AvailabilityMessage>(subscriber => {
+      const source = new EventSource(`${this.API_URL}/events/stream`);
+      let opened = false;
+
+      source.onopen = () => opened = true;
+      source.addEventListener('snapshot', message => subscriber.next({
+        type: 'snapshot',
+        events: JSON.parse((message as MessageEvent).data)
+      }));
+      source.addEventListener('availability', message => subscriber.next({
+        type: 'availability',
+        updates: JSON.parse((message as MessageEvent).data)
+      }));
+      source.onerror = error => {
+        if (!opened) {
+          source.close();
+          subscriber.error(error);
+        }
+      };
+
+      return () => source.close();
+    });
+  }
+
   /**
    * Get event by ID
    */
@@ -0,0 +1,38 @@
+#!/bin/bash
+
+echo "========================================="
+echo "Starting a 3-node Ticket Booking cluster"
+echo "========================================="
+echo ""
+
+PORTS="8081 8082 8083"
+
+cd backend
+
+echo "Building the project..."
+mvn clean package -DskipTests
+
+if [ $? -ne 0 ]; then
+    echo ""
+    echo "❌ Build failed. Please check the errors above."
+    exit 1
+fi
+
+PIDS=""
+trap 'echo ""; echo "Stopping cluster..."; kill $PIDS 2>/dev/null; exit 0' INT TERM
+
+for PORT in $PORTS; do
+    echo "Starting node on port $PORT (log: backend/target/cluster-$PORT.log)"
+    java -jar target/ticket-booking-service-1.0.0-exec.jar \
+        --spring.profiles.active=cluster \
+        --server.port=$PORT > target/cluster-$PORT.log 2>&1 &
+    PIDS="$PIDS $!"
+    # Let the first node create the schema and sample events before the others connect
+    sleep 10
+done
+
+echo ""
+echo "✅ Cluster running on ports $PORTS"
+echo "Members seen by a node: curl http://localhost:8081/internal/cluster/members"
+echo "Press Ctrl+C to stop all nodes."
+wait